@@ -0,0 +1,103 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github.benchmark;
+
+import org.kohsuke.github.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds SCIM resources shaped like the ones GitHub EMU returns, for the benchmarks.
+ *
+ * @author Hiroyuki Wada
+ */
+public final class BenchmarkResources {
+
+    private BenchmarkResources() {
+    }
+
+    public static String userId(int i) {
+        return String.format("%08d-0000-0000-0000-000000000000", i);
+    }
+
+    public static String groupId(int i) {
+        return String.format("%08d-1111-1111-1111-111111111111", i);
+    }
+
+    public static SCIMEMUUser user(int i) {
+        SCIMEMUUser user = new SCIMEMUUser();
+        user.schemas = new String[]{"urn:ietf:params:scim:schemas:core:2.0:User"};
+        user.id = userId(i);
+        user.userName = "user" + i + "_bench";
+        user.externalId = "ext-user" + i;
+        user.displayName = "User " + i;
+        user.active = true;
+
+        user.name = new SCIMName();
+        user.name.givenName = "Given" + i;
+        user.name.familyName = "Family" + i;
+        user.name.formatted = "Given" + i + " Family" + i;
+
+        SCIMEmail email = new SCIMEmail();
+        email.value = "user" + i + "@example.com";
+        email.primary = true;
+        email.type = "work";
+        user.emails = Collections.singletonList(email);
+
+        SCIMRole role = new SCIMRole();
+        role.value = "user";
+        role.primary = false;
+        user.roles = Collections.singletonList(role);
+
+        user.meta = meta();
+        return user;
+    }
+
+    /**
+     * Builds a group whose members are taken round-robin from a population of users.
+     *
+     * @param i           the index of the group
+     * @param memberCount the number of members
+     * @param population  the number of distinct users to choose members from
+     * @return the group
+     */
+    public static SCIMEMUGroup group(int i, int memberCount, int population) {
+        SCIMEMUGroup group = new SCIMEMUGroup();
+        group.schemas = new String[]{"urn:ietf:params:scim:schemas:core:2.0:Group"};
+        group.id = groupId(i);
+        group.displayName = "group" + i;
+        group.externalId = "ext-group" + i;
+        group.members = new ArrayList<>(memberCount);
+        int size = Math.max(population, memberCount);
+        for (int j = 0; j < memberCount; j++) {
+            SCIMMember member = new SCIMMember();
+            member.value = userId((i + j) % size);
+            member.ref = "https://api.github.com/scim/v2/enterprises/bench/Users/" + member.value;
+            group.members.add(member);
+        }
+        group.meta = meta();
+        return group;
+    }
+
+    private static SCIMMeta meta() {
+        SCIMMeta meta = new SCIMMeta();
+        meta.created = "2024-01-01T00:00:00.000Z";
+        meta.lastModified = "2024-06-01T12:34:56.789Z";
+        return meta;
+    }
+}
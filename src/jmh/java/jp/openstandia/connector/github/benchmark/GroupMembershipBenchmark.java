@@ -0,0 +1,118 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github.benchmark;
+
+import jp.openstandia.connector.github.GitHubClient;
+import jp.openstandia.connector.github.GitHubEMUSchema;
+import jp.openstandia.connector.util.QueryHandler;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.kohsuke.github.SCIMEMUGroup;
+import org.kohsuke.github.SCIMEMUGroupMembershipIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the group-by-member search: a scan over all groups versus the reverse membership index.
+ * <p>
+ * Groups are served from memory so that only the matching cost is measured.
+ *
+ * @author Hiroyuki Wada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupMembershipBenchmark {
+
+    @Param({"100", "1000"})
+    int objectCount;
+
+    @Param({"10", "1000"})
+    int memberCount;
+
+    private InMemoryClient client;
+    private SCIMEMUGroupMembershipIndex index;
+    private Set<String> memberIds;
+
+    @Setup
+    public void setup() throws IOException {
+        List<SCIMEMUGroup> groups = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            groups.add(BenchmarkResources.group(i, memberCount, objectCount));
+        }
+        client = new InMemoryClient(groups);
+
+        index = SCIMEMUGroupMembershipIndex.forEnterprise("benchmark|" + objectCount + "|" + memberCount);
+        index.rebuild(groups);
+
+        memberIds = Collections.singleton(BenchmarkResources.userId(objectCount / 2));
+    }
+
+    @Benchmark
+    public void scan(Blackhole bh) {
+        client.getEMUGroupsByMembers(memberIds, g -> {
+            bh.consume(g);
+            return true;
+        }, null, Collections.singleton("members"), 0, 0);
+    }
+
+    @Benchmark
+    public List<SCIMEMUGroup> index() throws IOException {
+        return index.findByMembers(memberIds, Long.MAX_VALUE, () -> {
+            throw new IllegalStateException("The index must not expire during the benchmark");
+        });
+    }
+
+    static class InMemoryClient implements GitHubClient<GitHubEMUSchema> {
+        private final List<SCIMEMUGroup> groups;
+
+        InMemoryClient(List<SCIMEMUGroup> groups) {
+            this.groups = groups;
+        }
+
+        @Override
+        public void setInstanceName(String instanceName) {
+        }
+
+        @Override
+        public void test() {
+        }
+
+        @Override
+        public void auth() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public int getEMUGroups(QueryHandler<SCIMEMUGroup> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+            for (SCIMEMUGroup group : groups) {
+                if (!handler.handle(group)) {
+                    break;
+                }
+            }
+            return groups.size();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github.benchmark;
+
+import jp.openstandia.connector.github.GitHubEMUConfiguration;
+import jp.openstandia.connector.github.GitHubEMUGroupHandler;
+import jp.openstandia.connector.github.GitHubEMUUserHandler;
+import jp.openstandia.connector.util.SchemaDefinition;
+import org.identityconnectors.framework.common.objects.AttributeDelta;
+import org.identityconnectors.framework.common.objects.AttributeDeltaBuilder;
+import org.identityconnectors.framework.common.objects.AttributeInfo;
+import org.kohsuke.github.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks the mapping between SCIM resources and connector objects.
+ * <p>
+ * Measures both directions: SCIM resource to ConnectorObject (search) and attribute delta to SCIM patch
+ * operations (update).
+ *
+ * @author Hiroyuki Wada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaDefinitionBenchmark {
+
+    @Param({"100", "1000"})
+    int objectCount;
+
+    @Param({"10", "1000"})
+    int memberCount;
+
+    private SchemaDefinition userSchema;
+    private SchemaDefinition groupSchema;
+    private Set<String> userAttributes;
+    private Set<String> groupAttributes;
+    private List<SCIMEMUUser> users;
+    private List<SCIMEMUGroup> groups;
+    private Set<AttributeDelta> memberDelta;
+
+    @Setup
+    public void setup() {
+        GitHubEMUConfiguration configuration = new GitHubEMUConfiguration();
+        userSchema = GitHubEMUUserHandler.createSchema(configuration, null).build();
+        groupSchema = GitHubEMUGroupHandler.createSchema(configuration, null).build();
+        userAttributes = attributeNames(userSchema);
+        groupAttributes = attributeNames(groupSchema);
+
+        users = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            users.add(BenchmarkResources.user(i));
+        }
+
+        groups = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            groups.add(BenchmarkResources.group(i, memberCount, objectCount));
+        }
+
+        List<String> added = new ArrayList<>(memberCount);
+        List<String> removed = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            added.add(BenchmarkResources.userId(i));
+            removed.add(BenchmarkResources.userId(memberCount + i));
+        }
+        memberDelta = Collections.singleton(AttributeDeltaBuilder.build("members.User.value", added, removed));
+    }
+
+    private static Set<String> attributeNames(SchemaDefinition schema) {
+        return schema.getObjectClassInfo().getAttributeInfo().stream()
+                .map(AttributeInfo::getName)
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public void userToConnectorObject(Blackhole bh) {
+        for (SCIMEMUUser user : users) {
+            bh.consume(userSchema.toConnectorObjectBuilder(user, userAttributes, false).build());
+        }
+    }
+
+    @Benchmark
+    public void userToConnectorObjectWithPlan(Blackhole bh) {
+        SchemaDefinition.ProjectionPlan plan = userSchema.compileProjectionPlan(userAttributes, false);
+        for (SCIMEMUUser user : users) {
+            bh.consume(plan.toConnectorObject(user));
+        }
+    }
+
+    @Benchmark
+    public void groupToConnectorObject(Blackhole bh) {
+        for (SCIMEMUGroup group : groups) {
+            bh.consume(groupSchema.toConnectorObjectBuilder(group, groupAttributes, false).build());
+        }
+    }
+
+    @Benchmark
+    public SCIMPatchOperations groupMemberDeltaToPatch() {
+        SCIMPatchOperations dest = new SCIMPatchOperations();
+        groupSchema.applyDelta(memberDelta, dest);
+        return dest;
+    }
+}
@@ -0,0 +1,127 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jp.openstandia.connector.github.benchmark.BenchmarkResources;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the (de)serialization of SCIM payloads.
+ * <p>
+ * Parses one canned list response page the way the paged iterators do, either materialized
+ * (the default) or streamed, and serializes group member patches.
+ *
+ * @author Hiroyuki Wada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SCIMPageParsingBenchmark {
+
+    @Param({"100", "1000"})
+    int objectCount;
+
+    @Param({"10", "1000"})
+    int memberCount;
+
+    private GitHubRequest request;
+    private byte[] groupPage;
+    private JavaType groupType;
+    private Set<String> groupFieldsWithoutMembers;
+    private SCIMPatchOperations memberPatch;
+
+    private static class GroupResult extends SCIMSearchResult<SCIMEMUGroup> {
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        request = GitHubRequest.newBuilder()
+                .withApiUrl("https://api.github.com")
+                .withUrlPath("/scim/v2/enterprises/bench/Groups")
+                .build();
+
+        List<SCIMEMUGroup> groups = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            groups.add(BenchmarkResources.group(i, memberCount, objectCount));
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("schemas", Collections.singletonList("urn:ietf:params:scim:api:messages:2.0:ListResponse"));
+        page.put("totalResults", objectCount);
+        page.put("itemsPerPage", objectCount);
+        page.put("startIndex", 1);
+        page.put("Resources", groups);
+        groupPage = new ObjectMapper().writeValueAsBytes(page);
+
+        groupType = SCIMStreamingParser.resolveElementType(GroupResult.class);
+        groupFieldsWithoutMembers = new HashSet<>(Arrays.asList("id", "displayName", "externalId", "meta"));
+
+        List<String> memberIds = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            memberIds.add(BenchmarkResources.userId(i));
+        }
+        memberPatch = new SCIMPatchOperations();
+        memberPatch.addMembers(memberIds);
+    }
+
+    @Benchmark
+    public void parseMaterialized(Blackhole bh) throws IOException {
+        GroupResult result = GitHubResponse.parseBody(new CannedResponseInfo(request, groupPage), GroupResult.class);
+        for (SCIMEMUGroup group : result.Resources) {
+            bh.consume(group);
+        }
+    }
+
+    @Benchmark
+    public void parseStreaming(Blackhole bh) throws IOException {
+        SCIMStreamingParser.parse(new CannedResponseInfo(request, groupPage), groupType, null, new HashSet<>(), (SCIMEMUGroup g) -> {
+            bh.consume(g);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void parseStreamingWithoutMembers(Blackhole bh) throws IOException {
+        SCIMStreamingParser.parse(new CannedResponseInfo(request, groupPage), groupType, groupFieldsWithoutMembers, new HashSet<>(), (SCIMEMUGroup g) -> {
+            bh.consume(g);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public byte[] serializeMemberPatch() throws IOException {
+        return GHEnterpriseExt.toJsonBytes(memberPatch);
+    }
+
+    static class CannedResponseInfo extends GitHubResponse.ResponseInfo {
+        private final byte[] body;
+
+        CannedResponseInfo(GitHubRequest request, byte[] body) {
+            super(request, 200, Collections.emptyMap());
+            this.body = body;
+        }
+
+        @Override
+        InputStream bodyStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        String errorMessage() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -28,6 +28,8 @@ public abstract class AbstractGitHubConfiguration extends AbstractConfiguration
     private int connectionTimeoutInMilliseconds = 10000; // 10s
     private int readTimeoutInMilliseconds = 10000; // 10s
     private int writeTimeoutInMilliseconds = 10000; // 10s
+    private int httpMaxIdleConnections = 5;
+    private int httpKeepAliveDurationInSeconds = 300; // 5min
 
     @ConfigurationProperty(
             order = 5,
@@ -141,4 +143,32 @@ public abstract class AbstractGitHubConfiguration extends AbstractConfiguration
     public void setHttpProxyPassword(GuardedString httpProxyPassword) {
         this.httpProxyPassword = httpProxyPassword;
     }
+
+    @ConfigurationProperty(
+            order = 13,
+            displayMessageKey = "HTTP Max Idle Connections",
+            helpMessageKey = "Maximum number of idle connections kept in the connection pool shared by the connector instances with the same HTTP settings. (Default: 5)",
+            required = false,
+            confidential = false)
+    public int getHttpMaxIdleConnections() {
+        return httpMaxIdleConnections;
+    }
+
+    public void setHttpMaxIdleConnections(int httpMaxIdleConnections) {
+        this.httpMaxIdleConnections = httpMaxIdleConnections;
+    }
+
+    @ConfigurationProperty(
+            order = 14,
+            displayMessageKey = "HTTP Keep Alive Duration",
+            helpMessageKey = "Time in seconds to keep idle connections in the shared connection pool. (Default: 300)",
+            required = false,
+            confidential = false)
+    public int getHttpKeepAliveDurationInSeconds() {
+        return httpKeepAliveDurationInSeconds;
+    }
+
+    public void setHttpKeepAliveDurationInSeconds(int httpKeepAliveDurationInSeconds) {
+        this.httpKeepAliveDurationInSeconds = httpKeepAliveDurationInSeconds;
+    }
 }
@@ -39,7 +39,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * @author Hiroyuki Wada
  */
-public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfiguration, U extends AbstractGitHubSchema<T>> implements PoolableConnector, CreateOp, UpdateDeltaOp, DeleteOp, SchemaOp, TestOp, SearchOp<GitHubFilter>, InstanceNameAware {
+public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfiguration, U extends AbstractGitHubSchema<T>> implements PoolableConnector, CreateOp, UpdateDeltaOp, DeleteOp, SchemaOp, TestOp, SearchOp<GitHubFilter>, SyncOp, InstanceNameAware {
 
     private static final Log LOG = Log.getLog(AbstractGitHubConnector.class);
 
@@ -57,13 +57,7 @@ public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfigurat
     public void init(Configuration configuration) {
         this.configuration = (T) configuration;
 
-        try {
-            this.client = newClient(this.configuration);
-            getSchema();
-        } catch (RuntimeException e) {
-            throw processRuntimeException(e);
-        }
-
+        // The client and the schema are created on first use. Pooled instances are often used for one operation only.
         LOG.ok("Connector {0} successfully initialized", getClass().getName());
     }
 
@@ -74,7 +68,7 @@ public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfigurat
     @Override
     public Schema schema() {
         try {
-            schema = newGitHubSchema(configuration, client);
+            schema = newGitHubSchema(configuration, getClient());
             return schema.getSchema();
 
         } catch (RuntimeException e) {
@@ -82,6 +76,16 @@ public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfigurat
         }
     }
 
+    protected GitHubClient<U> getClient() {
+        if (client == null) {
+            client = newClient(configuration);
+            if (instanceName != null) {
+                client.setInstanceName(instanceName);
+            }
+        }
+        return client;
+    }
+
     private U getSchema() {
         // Load schema map if it's not loaded yet
         if (schema == null) {
@@ -211,6 +215,10 @@ public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfigurat
                     total = schemaHandler.getByMembers(filter.attributeValue, countableResultHandler, options,
                             returnAttributesSet, fetchFieldSet,
                             allowPartialAttributeValues, pageSize, pageOffset);
+                } else if (filter.isByAttributes()) {
+                    total = schemaHandler.getByAttributes(filter, countableResultHandler, options,
+                            returnAttributesSet, fetchFieldSet,
+                            allowPartialAttributeValues, pageSize, pageOffset);
                 }
                 // No result
             } else {
@@ -234,15 +242,40 @@ public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfigurat
         }
     }
 
+    @Override
+    public void sync(ObjectClass objectClass, SyncToken token, SyncResultsHandler handler, OperationOptions options) {
+        try {
+            ObjectHandler schemaHandler = getSchemaHandler(objectClass);
+            SchemaDefinition schema = schemaHandler.getSchemaDefinition();
+
+            Map<String, String> attributesToGet = Utils.createFullAttributesToGet(schema, options);
+            Set<String> returnAttributesSet = attributesToGet.keySet();
+            Set<String> fetchFieldSet = new HashSet<>(attributesToGet.values());
+
+            boolean allowPartialAttributeValues = Utils.shouldAllowPartialAttributeValues(options);
+
+            schemaHandler.sync(token, handler, options, returnAttributesSet, fetchFieldSet, allowPartialAttributeValues);
+
+        } catch (RuntimeException e) {
+            throw processRuntimeException(e);
+        }
+    }
+
+    @Override
+    public SyncToken getLatestSyncToken(ObjectClass objectClass) {
+        try {
+            return getSchemaHandler(objectClass).getLatestSyncToken();
+
+        } catch (RuntimeException e) {
+            throw processRuntimeException(e);
+        }
+    }
+
     @Override
     public void test() {
         try {
             dispose();
-            client = newClient(this.configuration);
-            if (instanceName != null) {
-                client.setInstanceName(instanceName);
-            }
-            client.test();
+            getClient().test();
         } catch (RuntimeException e) {
             throw processRuntimeException(e);
         }
@@ -254,18 +287,30 @@ public abstract class AbstractGitHubConnector<T extends AbstractGitHubConfigurat
             client.close();
             this.client = null;
         }
+        // The handlers hold the client
+        this.schema = null;
     }
 
     @Override
     public void checkAlive() {
-        // Do nothing
+        if (client == null) {
+            // Nothing to check until the client is created on first use
+            return;
+        }
+        try {
+            client.checkAlive();
+        } catch (RuntimeException e) {
+            throw processRuntimeException(e);
+        }
     }
 
     @Override
     public void setInstanceName(String instanceName) {
-        // Called after initialized
+        // Called after initialized. The client may not be created yet.
         this.instanceName = instanceName;
-        this.client.setInstanceName(instanceName);
+        if (client != null) {
+            client.setInstanceName(instanceName);
+        }
     }
 
     protected ConnectorException processRuntimeException(RuntimeException e) {
@@ -22,9 +22,13 @@ import org.identityconnectors.framework.common.objects.ObjectClassInfo;
 import org.identityconnectors.framework.common.objects.Schema;
 import org.identityconnectors.framework.common.objects.SchemaBuilder;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Base class for GitHub schema.
@@ -33,9 +37,14 @@ import java.util.function.Function;
  */
 public abstract class AbstractGitHubSchema<T extends AbstractGitHubConfiguration> {
 
+    // Key: connector class and the configuration key
+    private static final ConcurrentMap<Object, Object> SHARED_DEFINITIONS = new ConcurrentHashMap<>();
+
     protected final T configuration;
     protected final GitHubClient<? extends AbstractGitHubSchema<T>> client;
     protected Map<String, ObjectHandler> schemaHandlerMap;
+    // Creates the handler of the object class on first use
+    private final Map<String, Supplier<ObjectHandler>> schemaHandlerFactoryMap = new HashMap<>();
 
     public AbstractGitHubSchema(T configuration, GitHubClient<? extends AbstractGitHubSchema<T>> client) {
         this.configuration = configuration;
@@ -45,6 +54,22 @@ public abstract class AbstractGitHubSchema<T extends AbstractGitHubConfiguration
 
     public abstract Schema getSchema();
 
+    /**
+     * Returns the schema definitions shared by the connector instances which have the same configuration key.
+     * The definitions are built once and must be immutable, so they must not depend on the client or other state
+     * of the connector instance.
+     *
+     * @param connectorClass   the connector class
+     * @param configurationKey the values of the configuration properties which change the schema
+     * @param builder          builds the definitions when they aren't built yet
+     * @param <D>              the type of the definitions
+     * @return the shared definitions
+     */
+    @SuppressWarnings("unchecked")
+    protected static <D> D getSharedDefinitions(Class<?> connectorClass, Object configurationKey, Supplier<D> builder) {
+        return (D) SHARED_DEFINITIONS.computeIfAbsent(Arrays.asList(connectorClass, configurationKey), k -> builder.get());
+    }
+
     protected void buildSchema(SchemaBuilder builder, SchemaDefinition schemaDefinition, Function<SchemaDefinition, ObjectHandler> callback) {
         builder.defineObjectClass(schemaDefinition.getObjectClassInfo());
         ObjectHandler handler = callback.apply(schemaDefinition);
@@ -57,7 +82,20 @@ public abstract class AbstractGitHubSchema<T extends AbstractGitHubConfiguration
         this.schemaHandlerMap.put(objectClassInfo.getType(), handler);
     }
 
+    protected void addSchemaHandler(SchemaDefinition schemaDefinition, Supplier<ObjectHandler> factory) {
+        this.schemaHandlerFactoryMap.put(schemaDefinition.getType(), factory);
+    }
+
     public ObjectHandler getSchemaHandler(ObjectClass objectClass) {
-        return schemaHandlerMap.get(objectClass.getObjectClassValue());
+        String type = objectClass.getObjectClassValue();
+        ObjectHandler handler = schemaHandlerMap.get(type);
+        if (handler == null) {
+            Supplier<ObjectHandler> factory = schemaHandlerFactoryMap.get(type);
+            if (factory != null) {
+                handler = factory.get();
+                schemaHandlerMap.put(type, handler);
+            }
+        }
+        return handler;
     }
 }
@@ -0,0 +1,293 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.identityconnectors.common.logging.Log;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Fails the calls to a degraded GitHub endpoint group fast instead of letting every thread wait for the timeout.
+ * <p>
+ * Each endpoint group (SCIM Users, SCIM Groups and Copilot) has its own circuit:
+ * <ul>
+ *     <li>CLOSED: calls are sent. When the failure rate of the recent calls (5xx, timeouts, connection errors and
+ *     slow calls) reaches the threshold, the circuit opens</li>
+ *     <li>OPEN: calls fail with {@link OpenException} without being sent</li>
+ *     <li>HALF_OPEN: after the open duration, one caller probes GitHub (the connector test) and the circuit closes
+ *     if it succeeds or opens again if not. Other callers still fail fast while probing</li>
+ * </ul>
+ * The circuits are shared by the connector instances of the same enterprise.
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubCircuitBreaker {
+
+    private static final Log LOGGER = Log.getLog(GitHubCircuitBreaker.class);
+
+    // Keyed by enterprise and settings
+    private static final ConcurrentMap<Map.Entry<String, Settings>, GitHubCircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    public enum Group {
+        SCIM_USERS,
+        SCIM_GROUPS,
+        COPILOT
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of sending the request while the circuit is open.
+     */
+    public static class OpenException extends IOException {
+        public OpenException(Group group) {
+            super("GitHub API circuit for " + group + " is open because of recent failures");
+        }
+    }
+
+    static class Settings {
+        final int failureRateThreshold;
+        final long slowCallThresholdMillis;
+        final int windowSize;
+        final long openDurationMillis;
+
+        Settings(int failureRateThreshold, long slowCallThresholdMillis, int windowSize, long openDurationMillis) {
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallThresholdMillis = slowCallThresholdMillis;
+            this.windowSize = Math.max(1, windowSize);
+            this.openDurationMillis = openDurationMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Settings)) {
+                return false;
+            }
+            Settings s = (Settings) o;
+            return failureRateThreshold == s.failureRateThreshold && slowCallThresholdMillis == s.slowCallThresholdMillis
+                    && windowSize == s.windowSize && openDurationMillis == s.openDurationMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(failureRateThreshold, slowCallThresholdMillis, windowSize, openDurationMillis);
+        }
+    }
+
+    private class Circuit {
+        final Group group;
+        // Ring buffer of the recent calls, true: failed
+        final boolean[] window = new boolean[settings.windowSize];
+        int calls;
+        int failures;
+        int next;
+        State state = State.CLOSED;
+        long openedAt;
+
+        Circuit(Group group) {
+            this.group = group;
+        }
+
+        void record(boolean failed) {
+            if (calls == window.length) {
+                if (window[next]) {
+                    failures--;
+                }
+            } else {
+                calls++;
+            }
+            window[next] = failed;
+            if (failed) {
+                failures++;
+            }
+            next = (next + 1) % window.length;
+
+            if (state == State.CLOSED && calls == window.length
+                    && failures * 100 >= settings.failureRateThreshold * calls) {
+                open();
+            }
+        }
+
+        void open() {
+            LOGGER.warn("Opening GitHub API circuit for {0}, failures: {1}/{2}", group, failures, calls);
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+
+        void close() {
+            LOGGER.info("Closing GitHub API circuit for {0}", group);
+            state = State.CLOSED;
+            calls = 0;
+            failures = 0;
+            next = 0;
+        }
+    }
+
+    private final Settings settings;
+    private final LongSupplier clock;
+    // Guarded by this
+    private final Map<Group, Circuit> circuits = new EnumMap<>(Group.class);
+
+    GitHubCircuitBreaker(Settings settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+        for (Group group : Group.values()) {
+            circuits.put(group, new Circuit(group));
+        }
+    }
+
+    /**
+     * Returns the circuit breaker shared for the given enterprise and settings.
+     * Connector instances configured with other settings get their own circuit breaker, so they never reset
+     * the state of the circuit breaker in use.
+     *
+     * @param enterpriseKey the key which identifies the enterprise (e.g. endpoint URL and enterprise slug)
+     * @param configuration the configuration
+     * @return the circuit breaker
+     */
+    public static GitHubCircuitBreaker forEnterprise(String enterpriseKey, GitHubEMUConfiguration configuration) {
+        Settings settings = new Settings(configuration.getCircuitBreakerFailureRateThreshold(),
+                configuration.getCircuitBreakerSlowCallThresholdInMilliseconds(),
+                configuration.getCircuitBreakerWindowSize(),
+                configuration.getCircuitBreakerOpenDurationInSeconds() * 1000L);
+        return BREAKERS.computeIfAbsent(new AbstractMap.SimpleImmutableEntry<>(enterpriseKey, settings),
+                k -> new GitHubCircuitBreaker(settings, System::currentTimeMillis));
+    }
+
+    /**
+     * Returns the endpoint group of the request URL.
+     *
+     * @param url the request URL
+     * @return the group, or null if the endpoint isn't guarded
+     */
+    static Group groupOf(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        for (String segment : segments) {
+            switch (segment) {
+                case "Users":
+                    return Group.SCIM_USERS;
+                case "Groups":
+                    return Group.SCIM_GROUPS;
+                case "copilot":
+                    return Group.COPILOT;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a call to the group can be sent. Once the open duration elapsed, the first caller runs the probe.
+     *
+     * @param group the endpoint group
+     * @param probe checks the connection to GitHub, throws a runtime exception if it fails
+     * @throws OpenException if the circuit is open
+     */
+    public void acquire(Group group, Runnable probe) throws OpenException {
+        Circuit circuit;
+        synchronized (this) {
+            circuit = circuits.get(group);
+            if (circuit.state == State.CLOSED) {
+                return;
+            }
+            if (circuit.state == State.HALF_OPEN || clock.getAsLong() - circuit.openedAt < settings.openDurationMillis) {
+                throw new OpenException(group);
+            }
+            circuit.state = State.HALF_OPEN;
+        }
+
+        boolean healthy;
+        try {
+            probe.run();
+            healthy = true;
+        } catch (RuntimeException e) {
+            LOGGER.info("Probing GitHub API for {0} failed: {1}", group, e.toString());
+            healthy = false;
+        }
+
+        synchronized (this) {
+            if (healthy) {
+                circuit.close();
+            } else {
+                circuit.open();
+                throw new OpenException(group);
+            }
+        }
+    }
+
+    /**
+     * Records the result of a call.
+     *
+     * @param group         the endpoint group
+     * @param failed        true if the call failed by a server or connection error
+     * @param latencyMillis the time the call took
+     */
+    public synchronized void record(Group group, boolean failed, long latencyMillis) {
+        if (settings.slowCallThresholdMillis > 0 && latencyMillis > settings.slowCallThresholdMillis) {
+            failed = true;
+        }
+        circuits.get(group).record(failed);
+    }
+
+    public synchronized State getState(Group group) {
+        return circuits.get(group).state;
+    }
+
+    /**
+     * Creates an interceptor which guards the calls to the endpoint groups.
+     *
+     * @param probe checks the connection to GitHub, throws a runtime exception if it fails
+     * @return the interceptor
+     */
+    public Interceptor newInterceptor(Runnable probe) {
+        return chain -> {
+            Request request = chain.request();
+            Group group = groupOf(request.url());
+            if (group == null) {
+                return chain.proceed(request);
+            }
+            acquire(group, probe);
+
+            long start = System.currentTimeMillis();
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                record(group, true, System.currentTimeMillis() - start);
+                throw e;
+            }
+            record(group, response.code() >= 500, System.currentTimeMillis() - start);
+            return response;
+        };
+    }
+}
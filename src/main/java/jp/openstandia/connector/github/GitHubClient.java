@@ -15,13 +15,17 @@
  */
 package jp.openstandia.connector.github;
 
+import jp.openstandia.connector.util.FilteredQueryHandler;
 import jp.openstandia.connector.util.QueryHandler;
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Response;
 import okhttp3.Route;
 import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.framework.common.exceptions.AlreadyExistsException;
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
 import org.identityconnectors.framework.common.exceptions.UnknownUidException;
 import org.identityconnectors.framework.common.objects.Name;
 import org.identityconnectors.framework.common.objects.OperationOptions;
@@ -31,10 +35,15 @@ import org.kohsuke.github.*;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * GitHubClient interface.
@@ -49,6 +58,12 @@ public interface GitHubClient<T extends AbstractGitHubSchema<? extends AbstractG
         okHttpBuilder.readTimeout(configuration.getReadTimeoutInMilliseconds(), TimeUnit.MILLISECONDS);
         okHttpBuilder.writeTimeout(configuration.getWriteTimeoutInMilliseconds(), TimeUnit.MILLISECONDS);
 
+        // Bounded connection pool and HTTP/2 multiplexing (negotiated by ALPN, falling back to HTTP/1.1)
+        int maxIdleConnections = configuration.getHttpMaxIdleConnections() > 0 ? configuration.getHttpMaxIdleConnections() : 5;
+        int keepAliveDuration = configuration.getHttpKeepAliveDurationInSeconds() > 0 ? configuration.getHttpKeepAliveDurationInSeconds() : 300;
+        okHttpBuilder.connectionPool(new ConnectionPool(maxIdleConnections, keepAliveDuration, TimeUnit.SECONDS));
+        okHttpBuilder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
         // Setup http proxy aware httpClient
         if (StringUtil.isNotEmpty(configuration.getHttpProxyHost())) {
             okHttpBuilder.proxy(new Proxy(Proxy.Type.HTTP,
@@ -75,6 +90,13 @@ public interface GitHubClient<T extends AbstractGitHubSchema<? extends AbstractG
 
     void test();
 
+    /**
+     * Checks whether the client can still be used, e.g. before the connector pool hands it out.
+     * Unlike {@link #test()}, it should be cheap enough to be called frequently.
+     */
+    default void checkAlive() {
+    }
+
     void auth();
 
     void close();
@@ -98,6 +120,19 @@ public interface GitHubClient<T extends AbstractGitHubSchema<? extends AbstractG
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Fetch the users which match the filter. The default implementation evaluates the filter in the connector
+     * while scanning all users.
+     *
+     * @return the number of the matched users
+     */
+    default int getEMUUsers(GitHubFilter filter, QueryHandler<SCIMEMUUser> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        Predicate<SCIMEMUUser> predicate = filter.toPredicate(GitHubClient::getSCIMValues);
+        FilteredQueryHandler<SCIMEMUUser> filtered = new FilteredQueryHandler<>(predicate, handler, pageSize, pageOffset);
+        getEMUUsers(filtered, options, fetchFieldsSet, pageSize, 0);
+        return filtered.getMatched();
+    }
+
     default SCIMEMUUser getEMUUser(Uid uid, OperationOptions options, Set<String> attributesToGet) {
         throw new UnsupportedOperationException();
     }
@@ -124,6 +159,45 @@ public interface GitHubClient<T extends AbstractGitHubSchema<? extends AbstractG
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Fetch the groups which match the filter. The default implementation evaluates the filter in the connector
+     * while scanning all groups.
+     *
+     * @return the number of the matched groups
+     */
+    default int getEMUGroups(GitHubFilter filter, QueryHandler<SCIMEMUGroup> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        Predicate<SCIMEMUGroup> predicate = filter.toPredicate(GitHubClient::getSCIMValues);
+        FilteredQueryHandler<SCIMEMUGroup> filtered = new FilteredQueryHandler<>(predicate, handler, pageSize, pageOffset);
+        getEMUGroups(filtered, options, fetchFieldsSet, pageSize, 0);
+        return filtered.getMatched();
+    }
+
+    /**
+     * Fetch the groups which contain all the given members.
+     * GitHub EMU doesn't support filtering groups by members.value, so the default implementation scans all groups.
+     */
+    default int getEMUGroupsByMembers(Set<String> memberIds, QueryHandler<SCIMEMUGroup> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        // Members are needed for filtering even if they aren't requested
+        Set<String> fields = fetchFieldsSet;
+        if (fields != null && !fields.isEmpty() && !fields.contains("members")) {
+            fields = new HashSet<>(fetchFieldsSet);
+            fields.add("members");
+        }
+        return getEMUGroups((g) -> {
+            if (g.members == null) {
+                return memberIds.isEmpty() ? handler.handle(g) : true;
+            }
+            Set<String> groupMemberIds = new HashSet<>(g.members.size());
+            for (SCIMMember m : g.members) {
+                groupMemberIds.add(m.value);
+            }
+            if (groupMemberIds.containsAll(memberIds)) {
+                return handler.handle(g);
+            }
+            return true;
+        }, options, fields, pageSize, pageOffset);
+    }
+
     default SCIMEMUGroup getEMUGroup(Uid uid, OperationOptions options, Set<String> attributesToGet) {
         throw new UnsupportedOperationException();
     }
@@ -145,5 +219,52 @@ public interface GitHubClient<T extends AbstractGitHubSchema<? extends AbstractG
     default int getCopilotSeats(QueryHandler<GitHubCopilotSeat> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
         throw new UnsupportedOperationException();
     }
-}
 
+    /**
+     * Returns the seats which match the filter. GitHub can't filter seats, so the filter is evaluated in the connector
+     * during one full sweep, and the page is taken from the matched seats.
+     *
+     * @return the number of the matched seats
+     */
+    default int getCopilotSeats(Predicate<GitHubCopilotSeat> filter, QueryHandler<GitHubCopilotSeat> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        FilteredQueryHandler<GitHubCopilotSeat> filtered = new FilteredQueryHandler<>(filter, handler, pageSize, pageOffset);
+        getCopilotSeats(filtered, options, fetchFieldsSet, pageSize, 0);
+        return filtered.getMatched();
+    }
+
+    /**
+     * Returns the values of the SCIM attribute used in {@link GitHubFilter} conditions.
+     */
+    static Collection<String> getSCIMValues(SCIMEMUUser user, String scimAttribute) {
+        switch (scimAttribute) {
+            case "id":
+                return Collections.singletonList(user.id);
+            case "userName":
+                return Collections.singletonList(user.userName);
+            case "externalId":
+                return Collections.singletonList(user.externalId);
+            case "displayName":
+                return Collections.singletonList(user.displayName);
+            case "emails":
+                if (user.emails == null) {
+                    return Collections.emptyList();
+                }
+                return user.emails.stream().map(e -> e.value).collect(Collectors.toList());
+            default:
+                throw new InvalidAttributeValueException("Unsupported filter for GitHub EMU user: " + scimAttribute);
+        }
+    }
+
+    static Collection<String> getSCIMValues(SCIMEMUGroup group, String scimAttribute) {
+        switch (scimAttribute) {
+            case "id":
+                return Collections.singletonList(group.id);
+            case "displayName":
+                return Collections.singletonList(group.displayName);
+            case "externalId":
+                return Collections.singletonList(group.externalId);
+            default:
+                throw new InvalidAttributeValueException("Unsupported filter for GitHub EMU group: " + scimAttribute);
+        }
+    }
+}
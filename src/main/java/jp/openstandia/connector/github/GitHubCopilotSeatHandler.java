@@ -2,11 +2,14 @@ package jp.openstandia.connector.github;
 
 import jp.openstandia.connector.util.SchemaDefinition;
 import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
 import org.identityconnectors.framework.common.objects.*;
 import org.kohsuke.github.GitHubCopilotSeat;
 import org.kohsuke.github.SCIMPatchOperations;
 
+import java.time.ZonedDateTime;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import static jp.openstandia.connector.util.Utils.toZoneDateTime;
 import static jp.openstandia.connector.util.Utils.toZoneDateTimeForISO8601OffsetDateTime;
@@ -179,10 +182,78 @@ public class GitHubCopilotSeatHandler extends AbstractGitHubEMUHandler {
 
     @Override
     public int getAll(ResultsHandler resultsHandler, OperationOptions options, Set<String> returnAttributesSet, Set<String> fetchFieldsSet, boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
-        return client.getCopilotSeats((s) -> resultsHandler.handle(toConnectorObject(schemaDefinition, s, returnAttributesSet, allowPartialAttributeValues)),
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        return client.getCopilotSeats((s) -> resultsHandler.handle(plan.toConnectorObject(s)),
                 options, fetchFieldsSet, pageSize, pageOffset);
     }
 
+    @Override
+    public int getByAttributes(GitHubFilter filter, ResultsHandler resultsHandler, OperationOptions options, Set<String> returnAttributesSet, Set<String> fetchFieldsSet, boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        return client.getCopilotSeats(toPredicate(filter), (s) -> resultsHandler.handle(plan.toConnectorObject(s)),
+                options, fetchFieldsSet, pageSize, pageOffset);
+    }
+
+    /**
+     * Converts the attribute conditions into a predicate for the seats. GitHub can't filter seats,
+     * so the conditions are evaluated in the connector.
+     *
+     * @param filter the filter by attributes
+     * @return the predicate which matches when all the conditions match
+     */
+    static Predicate<GitHubCopilotSeat> toPredicate(GitHubFilter filter) {
+        Predicate<GitHubCopilotSeat> predicate = (s) -> true;
+        for (GitHubFilter condition : filter.conditions) {
+            predicate = predicate.and(toPredicate(condition.attributeName, condition.filterType,
+                    AttributeUtil.getSingleValue(condition.attributeValue)));
+        }
+        return predicate;
+    }
+
+    private static Predicate<GitHubCopilotSeat> toPredicate(String attrName, GitHubFilter.FilterType filterType, Object value) {
+        switch (attrName) {
+            case "assigning_team.slug":
+                return (s) -> value != null && s.assigning_team != null && value.equals(s.assigning_team.slug);
+            case "plan_type":
+                return (s) -> value != null && value.equals(s.plan_type);
+            case "assignee.type":
+                return (s) -> value != null && s.assignee != null && value.equals(s.assignee.type);
+            case "last_activity_at":
+                if (value == null) {
+                    return (s) -> false;
+                }
+                long expected = toDateTime(value).toInstant().toEpochMilli();
+                return (s) -> {
+                    // Never active seats don't match any condition
+                    if (s.last_activity_at == null) {
+                        return false;
+                    }
+                    long actual = toZoneDateTimeForISO8601OffsetDateTime(s.last_activity_at).toInstant().toEpochMilli();
+                    switch (filterType) {
+                        case GREATER_THAN:
+                            return actual > expected;
+                        case GREATER_THAN_OR_EQUAL:
+                            return actual >= expected;
+                        case LESS_THAN:
+                            return actual < expected;
+                        case LESS_THAN_OR_EQUAL:
+                            return actual <= expected;
+                        default:
+                            return actual == expected;
+                    }
+                };
+            default:
+                throw new InvalidAttributeValueException("Unsupported filter for GitHub Copilot seat: " + attrName);
+        }
+    }
+
+    private static ZonedDateTime toDateTime(Object value) {
+        if (value instanceof ZonedDateTime) {
+            return (ZonedDateTime) value;
+        }
+        return toZoneDateTimeForISO8601OffsetDateTime(value.toString());
+    }
+
     @Override
     public void query(GitHubFilter filter, ResultsHandler resultsHandler, OperationOptions options) {
         super.query(filter, resultsHandler, options);
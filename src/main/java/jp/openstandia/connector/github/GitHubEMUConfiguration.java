@@ -29,6 +29,27 @@ public class GitHubEMUConfiguration extends AbstractGitHubConfiguration {
     private String enterpriseSlug;
     private GuardedString accessToken;
     private String endpointURL;
+    private int authTokenTTLInSeconds = 0; // no expiration
+    private int queryPrefetchPages = 0; // sequential
+    private int copilotSeatIndexTTLInSeconds = 0; // no index
+    private int groupMembershipIndexTTLInSeconds = 0; // no index
+    private boolean streamingQuery = false;
+    private boolean rateLimitScheduling = false;
+    private int rateLimitReservePercent = 10;
+    private String metricsExporter = "none";
+    private int writeConcurrency = 0; // no limit
+    private int groupPatchCoalesceWindowInMilliseconds = 0; // no coalescing
+    private int memberPatchChunkSize = 1000;
+    private int retryMaxAttempts = 0; // no retry
+    private int retryBaseDelayInMilliseconds = 1000;
+    private int retryMaxDelayInMilliseconds = 60000;
+    private int retryBudgetPerMinute = 60;
+    private int circuitBreakerFailureRateThreshold = 0; // disabled
+    private int circuitBreakerSlowCallThresholdInMilliseconds = 0; // slow calls aren't failures
+    private int circuitBreakerWindowSize = 20;
+    private int circuitBreakerOpenDurationInSeconds = 30;
+    private int copilotSeatIndexMissRefreshIntervalInSeconds = 0; // misses are cached until the TTL expires
+    private int aliveCheckIntervalInSeconds = 60;
 
     @ConfigurationProperty(
             order = 1,
@@ -72,6 +93,300 @@ public class GitHubEMUConfiguration extends AbstractGitHubConfiguration {
         this.endpointURL = endpointURL;
     }
 
+    @ConfigurationProperty(
+            order = 4,
+            displayMessageKey = "Auth Token TTL",
+            helpMessageKey = "Time to live of the authenticated client in seconds. The connector re-authenticates when it expires or when GitHub returns 401. 0 means no expiration. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getAuthTokenTTLInSeconds() {
+        return authTokenTTLInSeconds;
+    }
+
+    public void setAuthTokenTTLInSeconds(int authTokenTTLInSeconds) {
+        this.authTokenTTLInSeconds = authTokenTTLInSeconds;
+    }
+
+    @ConfigurationProperty(
+            order = 15,
+            displayMessageKey = "Query Prefetch Pages",
+            helpMessageKey = "Number of the following SCIM pages fetched in parallel when listing all users or groups. 0 means fetching pages one by one. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getQueryPrefetchPages() {
+        return queryPrefetchPages;
+    }
+
+    public void setQueryPrefetchPages(int queryPrefetchPages) {
+        this.queryPrefetchPages = queryPrefetchPages;
+    }
+
+    @ConfigurationProperty(
+            order = 16,
+            displayMessageKey = "Copilot Seat Index TTL",
+            helpMessageKey = "Time to live of the in-memory Copilot seat index used for fetching one seat by id or login, in seconds. 0 disables the index and sweeps all seats for each lookup. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getCopilotSeatIndexTTLInSeconds() {
+        return copilotSeatIndexTTLInSeconds;
+    }
+
+    public void setCopilotSeatIndexTTLInSeconds(int copilotSeatIndexTTLInSeconds) {
+        this.copilotSeatIndexTTLInSeconds = copilotSeatIndexTTLInSeconds;
+    }
+
+    @ConfigurationProperty(
+            order = 17,
+            displayMessageKey = "Group Membership Index TTL",
+            helpMessageKey = "Time to live of the in-memory user to groups index used for searching groups by members, in seconds. Memberships changed outside this connector may be seen late up to the TTL. 0 disables the index and scans all groups for each search. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getGroupMembershipIndexTTLInSeconds() {
+        return groupMembershipIndexTTLInSeconds;
+    }
+
+    public void setGroupMembershipIndexTTLInSeconds(int groupMembershipIndexTTLInSeconds) {
+        this.groupMembershipIndexTTLInSeconds = groupMembershipIndexTTLInSeconds;
+    }
+
+    @ConfigurationProperty(
+            order = 18,
+            displayMessageKey = "Streaming Query",
+            helpMessageKey = "Parse SCIM list responses as a stream and pass each user or group to IDM as soon as it's parsed. Attributes which aren't requested are skipped. (Default: false)",
+            required = false,
+            confidential = false)
+    public boolean isStreamingQuery() {
+        return streamingQuery;
+    }
+
+    public void setStreamingQuery(boolean streamingQuery) {
+        this.streamingQuery = streamingQuery;
+    }
+
+    @ConfigurationProperty(
+            order = 19,
+            displayMessageKey = "Rate Limit Scheduling",
+            helpMessageKey = "Pace the requests by the rate limit budget reported by GitHub, shared by all connector instances for the enterprise, instead of waiting until the reset after hitting the limit. (Default: false)",
+            required = false,
+            confidential = false)
+    public boolean isRateLimitScheduling() {
+        return rateLimitScheduling;
+    }
+
+    public void setRateLimitScheduling(boolean rateLimitScheduling) {
+        this.rateLimitScheduling = rateLimitScheduling;
+    }
+
+    @ConfigurationProperty(
+            order = 20,
+            displayMessageKey = "Rate Limit Reserve Percent",
+            helpMessageKey = "Percentage of the rate limit budget reserved for fetching or updating one object. Listing pages for reconciliation doesn't use it. (Default: 10)",
+            required = false,
+            confidential = false)
+    public int getRateLimitReservePercent() {
+        return rateLimitReservePercent;
+    }
+
+    public void setRateLimitReservePercent(int rateLimitReservePercent) {
+        this.rateLimitReservePercent = rateLimitReservePercent;
+    }
+
+    @ConfigurationProperty(
+            order = 21,
+            displayMessageKey = "Metrics Exporter",
+            helpMessageKey = "Exporter of the GitHub API call metrics (latency, status codes, bytes, retries, rate limit and pages). \"none\", \"jmx\" or a class name implementing jp.openstandia.connector.github.GitHubMetrics. (Default: none)",
+            required = false,
+            confidential = false)
+    public String getMetricsExporter() {
+        return metricsExporter;
+    }
+
+    public void setMetricsExporter(String metricsExporter) {
+        this.metricsExporter = metricsExporter;
+    }
+
+    @ConfigurationProperty(
+            order = 22,
+            displayMessageKey = "Write Concurrency",
+            helpMessageKey = "Maximum number of create, update and delete requests sent to GitHub at the same time for the enterprise. It's reduced automatically while GitHub throttles the requests. 0 means no limit. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getWriteConcurrency() {
+        return writeConcurrency;
+    }
+
+    public void setWriteConcurrency(int writeConcurrency) {
+        this.writeConcurrency = writeConcurrency;
+    }
+
+    @ConfigurationProperty(
+            order = 23,
+            displayMessageKey = "Group Patch Coalesce Window (ms)",
+            helpMessageKey = "Merge the member additions and removals to the same group which arrive within this window into one PATCH request. Each update of group members waits for the window. 0 means no merging. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getGroupPatchCoalesceWindowInMilliseconds() {
+        return groupPatchCoalesceWindowInMilliseconds;
+    }
+
+    public void setGroupPatchCoalesceWindowInMilliseconds(int groupPatchCoalesceWindowInMilliseconds) {
+        this.groupPatchCoalesceWindowInMilliseconds = groupPatchCoalesceWindowInMilliseconds;
+    }
+
+    @ConfigurationProperty(
+            order = 24,
+            displayMessageKey = "Member Patch Chunk Size",
+            helpMessageKey = "Maximum number of members added or removed by one PATCH request for a group. Larger changes are sent as sequential PATCH requests. 0 means no splitting. (Default: 1000)",
+            required = false,
+            confidential = false)
+    public int getMemberPatchChunkSize() {
+        return memberPatchChunkSize;
+    }
+
+    public void setMemberPatchChunkSize(int memberPatchChunkSize) {
+        this.memberPatchChunkSize = memberPatchChunkSize;
+    }
+
+    @ConfigurationProperty(
+            order = 25,
+            displayMessageKey = "Retry Max Attempts",
+            helpMessageKey = "Maximum number of retries for a request which failed with 429, a rate limit 403, 5xx or a connection error. Creating a user or group is retried only when it was throttled. 0 means no retry. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    public void setRetryMaxAttempts(int retryMaxAttempts) {
+        this.retryMaxAttempts = retryMaxAttempts;
+    }
+
+    @ConfigurationProperty(
+            order = 26,
+            displayMessageKey = "Retry Base Delay (ms)",
+            helpMessageKey = "Minimum delay before a retry. The delay grows with a random jitter unless GitHub tells the time by Retry-After. (Default: 1000)",
+            required = false,
+            confidential = false)
+    public int getRetryBaseDelayInMilliseconds() {
+        return retryBaseDelayInMilliseconds;
+    }
+
+    public void setRetryBaseDelayInMilliseconds(int retryBaseDelayInMilliseconds) {
+        this.retryBaseDelayInMilliseconds = retryBaseDelayInMilliseconds;
+    }
+
+    @ConfigurationProperty(
+            order = 27,
+            displayMessageKey = "Retry Max Delay (ms)",
+            helpMessageKey = "Maximum delay before a retry. A request isn't retried when Retry-After asks to wait longer. (Default: 60000)",
+            required = false,
+            confidential = false)
+    public int getRetryMaxDelayInMilliseconds() {
+        return retryMaxDelayInMilliseconds;
+    }
+
+    public void setRetryMaxDelayInMilliseconds(int retryMaxDelayInMilliseconds) {
+        this.retryMaxDelayInMilliseconds = retryMaxDelayInMilliseconds;
+    }
+
+    @ConfigurationProperty(
+            order = 28,
+            displayMessageKey = "Retry Budget Per Minute",
+            helpMessageKey = "Maximum number of retries per minute for the connector instance. Failures beyond the budget are returned without retry. (Default: 60)",
+            required = false,
+            confidential = false)
+    public int getRetryBudgetPerMinute() {
+        return retryBudgetPerMinute;
+    }
+
+    public void setRetryBudgetPerMinute(int retryBudgetPerMinute) {
+        this.retryBudgetPerMinute = retryBudgetPerMinute;
+    }
+
+    @ConfigurationProperty(
+            order = 29,
+            displayMessageKey = "Circuit Breaker Failure Rate Threshold (%)",
+            helpMessageKey = "Stop calling an endpoint group (SCIM Users, SCIM Groups or Copilot) for a while when this percentage of the recent calls failed with 5xx, a timeout or a connection error, or were slow. While stopped, the operations fail fast with a connection error. 0 disables the circuit breaker. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    public void setCircuitBreakerFailureRateThreshold(int circuitBreakerFailureRateThreshold) {
+        this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+    }
+
+    @ConfigurationProperty(
+            order = 30,
+            displayMessageKey = "Circuit Breaker Slow Call Threshold (ms)",
+            helpMessageKey = "A call which takes longer than this counts as a failure for the circuit breaker. 0 means that slow calls aren't failures. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getCircuitBreakerSlowCallThresholdInMilliseconds() {
+        return circuitBreakerSlowCallThresholdInMilliseconds;
+    }
+
+    public void setCircuitBreakerSlowCallThresholdInMilliseconds(int circuitBreakerSlowCallThresholdInMilliseconds) {
+        this.circuitBreakerSlowCallThresholdInMilliseconds = circuitBreakerSlowCallThresholdInMilliseconds;
+    }
+
+    @ConfigurationProperty(
+            order = 31,
+            displayMessageKey = "Circuit Breaker Window Size",
+            helpMessageKey = "Number of the recent calls per endpoint group used to compute the failure rate. (Default: 20)",
+            required = false,
+            confidential = false)
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+    }
+
+    @ConfigurationProperty(
+            order = 32,
+            displayMessageKey = "Circuit Breaker Open Duration (sec)",
+            helpMessageKey = "How long the calls fail fast before the connection to GitHub is probed again. (Default: 30)",
+            required = false,
+            confidential = false)
+    public int getCircuitBreakerOpenDurationInSeconds() {
+        return circuitBreakerOpenDurationInSeconds;
+    }
+
+    public void setCircuitBreakerOpenDurationInSeconds(int circuitBreakerOpenDurationInSeconds) {
+        this.circuitBreakerOpenDurationInSeconds = circuitBreakerOpenDurationInSeconds;
+    }
+
+    @ConfigurationProperty(
+            order = 33,
+            displayMessageKey = "Alive Check Interval (sec)",
+            helpMessageKey = "When a pooled connector hasn't called GitHub successfully within this interval, the alive check calls the rate limit API, which doesn't count against the rate limit. 0 disables the check. (Default: 60)",
+            required = false,
+            confidential = false)
+    public int getAliveCheckIntervalInSeconds() {
+        return aliveCheckIntervalInSeconds;
+    }
+
+    public void setAliveCheckIntervalInSeconds(int aliveCheckIntervalInSeconds) {
+        this.aliveCheckIntervalInSeconds = aliveCheckIntervalInSeconds;
+    }
+
+    @ConfigurationProperty(
+            order = 34,
+            displayMessageKey = "Copilot Seat Index Miss Refresh Interval (sec)",
+            helpMessageKey = "When a lookup by id or login misses the Copilot seat index and the index is older than this, the index is rebuilt to find a seat assigned after the last sweep. Each rebuild sweeps all seats of the enterprise. 0 caches the misses until the TTL expires. (Default: 0)",
+            required = false,
+            confidential = false)
+    public int getCopilotSeatIndexMissRefreshIntervalInSeconds() {
+        return copilotSeatIndexMissRefreshIntervalInSeconds;
+    }
+
+    public void setCopilotSeatIndexMissRefreshIntervalInSeconds(int copilotSeatIndexMissRefreshIntervalInSeconds) {
+        this.copilotSeatIndexMissRefreshIntervalInSeconds = copilotSeatIndexMissRefreshIntervalInSeconds;
+    }
+
     @Override
     public void validate() {
     }
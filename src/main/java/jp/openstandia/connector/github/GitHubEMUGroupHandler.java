@@ -22,7 +22,7 @@ import org.kohsuke.github.SCIMEMUGroup;
 import org.kohsuke.github.SCIMMember;
 import org.kohsuke.github.SCIMPatchOperations;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -97,8 +97,8 @@ public class GitHubEMUGroupHandler extends AbstractGitHubEMUHandler {
                 },
                 (add, dest) -> dest.addMembers(add),
                 (remove, dest) -> dest.removeMembers(remove),
-                (source) -> source.members != null ? source.members.stream().filter(x -> x.ref.contains("/Users/")).map(x -> x.value) : Stream.empty(),
-                null
+                (source) -> source.members != null ? source.members.stream().filter(x -> x.ref == null || x.ref.contains("/Users/")).map(x -> x.value) : Stream.empty(),
+                "members"
         );
 
         // Metadata (readonly)
@@ -180,26 +180,49 @@ public class GitHubEMUGroupHandler extends AbstractGitHubEMUHandler {
     public int getAll(ResultsHandler resultsHandler, OperationOptions options,
                       Set<String> returnAttributesSet, Set<String> fetchFieldsSet,
                       boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
-        return client.getEMUGroups((g) -> resultsHandler.handle(toConnectorObject(schemaDefinition, g, returnAttributesSet, allowPartialAttributeValues)),
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        return client.getEMUGroups((g) -> resultsHandler.handle(plan.toConnectorObject(g)),
+                options, fetchFieldsSet, pageSize, pageOffset);
+    }
+
+    @Override
+    public int getByAttributes(GitHubFilter filter, ResultsHandler resultsHandler, OperationOptions options,
+                               Set<String> returnAttributesSet, Set<String> fetchFieldsSet,
+                               boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        return client.getEMUGroups(filter, (g) -> resultsHandler.handle(plan.toConnectorObject(g)),
                 options, fetchFieldsSet, pageSize, pageOffset);
     }
 
     @Override
     public int getByMembers(Attribute attribute, ResultsHandler resultsHandler, OperationOptions options, Set<String> returnAttributesSet, Set<String> fetchFieldSet, boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
         // Unfortunately, GitHub EMU doesn't support filter by members.value (It supports displayName, id and displayName filter).
-        // So, we need to fetch all groups.
-        Set<Object> memberIds = new HashSet<>(attribute.getValue());
-        return client.getEMUGroups((g) -> {
-            // Filter by member's value
-            boolean contains = g.members.stream()
-                    .map(m -> m.value)
-                    .collect(Collectors.toSet())
-                    .containsAll(memberIds);
-            if (contains) {
-                return resultsHandler.handle(toConnectorObject(schemaDefinition, g, returnAttributesSet, allowPartialAttributeValues));
-            }
-
-            return true;
+        // So, the client fetches all groups or uses its membership index.
+        Set<String> memberIds = attribute.getValue().stream()
+                .map(Object::toString)
+                .collect(Collectors.toSet());
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        return client.getEMUGroupsByMembers(memberIds, (g) -> {
+            return resultsHandler.handle(plan.toConnectorObject(g));
         }, options, fetchFieldSet, pageSize, pageOffset);
     }
+
+    @Override
+    public void sync(SyncToken token, SyncResultsHandler resultsHandler, OperationOptions options,
+                     Set<String> returnAttributesSet, Set<String> fetchFieldsSet, boolean allowPartialAttributeValues) {
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        newSync(options, fetchFieldsSet).sync(token, resultsHandler, plan::toConnectorObject);
+    }
+
+    @Override
+    public SyncToken getLatestSyncToken() {
+        return newSync(null, Collections.emptySet()).getLatestSyncToken();
+    }
+
+    private GitHubLastModifiedSync<SCIMEMUGroup> newSync(OperationOptions options, Set<String> fetchFieldsSet) {
+        return new GitHubLastModifiedSync<>(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug(), GROUP_OBJECT_CLASS,
+                handler -> client.getEMUGroups(handler, options, fetchFieldsSet, configuration.getQueryPageSize(), 0),
+                r -> r.id,
+                r -> r.meta != null ? r.meta.lastModified : null);
+    }
 }
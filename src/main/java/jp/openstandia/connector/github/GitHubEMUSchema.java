@@ -15,13 +15,20 @@
  */
 package jp.openstandia.connector.github;
 
+import jp.openstandia.connector.util.SchemaDefinition;
 import org.identityconnectors.framework.common.objects.OperationOptionInfoBuilder;
 import org.identityconnectors.framework.common.objects.Schema;
 import org.identityconnectors.framework.common.objects.SchemaBuilder;
 import org.identityconnectors.framework.spi.operations.SearchOp;
+import org.identityconnectors.framework.spi.operations.SyncOp;
+
+import java.util.Collections;
 
 /**
  * Schema for GitHub objects.
+ * <p>
+ * The schema definitions and the connector schema are built once and shared by the connector instances.
+ * Only the handlers, which hold the client, are created per instance on first use.
  *
  * @author Hiroyuki Wada
  */
@@ -29,25 +36,59 @@ public class GitHubEMUSchema extends AbstractGitHubSchema<GitHubEMUConfiguration
 
     public final Schema schema;
 
+    static class Definitions {
+        final SchemaDefinition user;
+        final SchemaDefinition group;
+        final SchemaDefinition copilotSeat;
+        final Schema schema;
+
+        Definitions(GitHubEMUConfiguration configuration) {
+            // Built without the client not to share it with other connector instances
+            user = GitHubEMUUserHandler.createSchema(configuration, null).build();
+            group = GitHubEMUGroupHandler.createSchema(configuration, null).build();
+            copilotSeat = GitHubCopilotSeatHandler.createSchema(configuration, null).build();
+
+            SchemaBuilder schemaBuilder = new SchemaBuilder(GitHubEMUConnector.class);
+
+            schemaBuilder.defineObjectClass(user.getObjectClassInfo());
+            schemaBuilder.defineObjectClass(group.getObjectClassInfo());
+            schemaBuilder.defineObjectClass(copilotSeat.getObjectClassInfo());
+            // Copilot seats have no meta.lastModified, so they don't support live sync
+            schemaBuilder.removeSupportedObjectClass(SyncOp.class, copilotSeat.getObjectClassInfo());
+
+            // Define operation options
+            schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildAttributesToGet(), SearchOp.class);
+            schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildReturnDefaultAttributes(), SearchOp.class);
+            schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildPageSize(), SearchOp.class);
+            schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildPagedResultsOffset(), SearchOp.class);
+
+            schema = schemaBuilder.build();
+        }
+    }
+
     public GitHubEMUSchema(GitHubEMUConfiguration configuration, GitHubClient<GitHubEMUSchema> client) {
         super(configuration, client);
 
-        SchemaBuilder schemaBuilder = new SchemaBuilder(GitHubEMUConnector.class);
+        Definitions definitions = getSharedDefinitions(GitHubEMUConnector.class, getDefinitionsKey(configuration),
+                () -> new Definitions(configuration));
 
-        buildSchema(schemaBuilder, GitHubEMUUserHandler.createSchema(configuration, client).build(),
-                (schema) -> new GitHubEMUUserHandler(configuration, client, this, schema));
-        buildSchema(schemaBuilder, GitHubEMUGroupHandler.createSchema(configuration, client).build(),
-                (schema) -> new GitHubEMUGroupHandler(configuration, client, this, schema));
-        buildSchema(schemaBuilder, GitHubCopilotSeatHandler.createSchema(configuration, client).build(),
-                (schema) -> new GitHubCopilotSeatHandler(configuration, client, this, schema));
+        addSchemaHandler(definitions.user, () -> new GitHubEMUUserHandler(configuration, client, this, definitions.user));
+        addSchemaHandler(definitions.group, () -> new GitHubEMUGroupHandler(configuration, client, this, definitions.group));
+        addSchemaHandler(definitions.copilotSeat,
+                () -> new GitHubCopilotSeatHandler(configuration, client, this, definitions.copilotSeat));
 
-        // Define operation options
-        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildAttributesToGet(), SearchOp.class);
-        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildReturnDefaultAttributes(), SearchOp.class);
-        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildPageSize(), SearchOp.class);
-        schemaBuilder.defineOperationOption(OperationOptionInfoBuilder.buildPagedResultsOffset(), SearchOp.class);
+        this.schema = definitions.schema;
+    }
 
-        this.schema = schemaBuilder.build();
+    /**
+     * Returns the values of the configuration properties which change the schema.
+     *
+     * @param configuration the configuration
+     * @return the key of the shared definitions
+     */
+    static Object getDefinitionsKey(GitHubEMUConfiguration configuration) {
+        // None of the configuration properties change the schema for now
+        return Collections.emptyList();
     }
 
     @Override
@@ -159,7 +159,7 @@ public class GitHubEMUUserHandler extends AbstractGitHubEMUHandler {
                     dest.replace(newEmail);
                 },
                 source -> source.emails != null && !source.emails.isEmpty() ? source.emails.get(0).value : null,
-                null,
+                "emails",
                 REQUIRED
         );
         // SCIM schema has "roles", but we define "primaryRole" as single value here for easy mapping in IDM
@@ -188,7 +188,7 @@ public class GitHubEMUUserHandler extends AbstractGitHubEMUHandler {
                     dest.replace(newRole);
                 },
                 source -> source.roles != null && !source.roles.isEmpty() ? source.roles.get(0).value : null,
-                null
+                "roles"
         );
 
         // Association
@@ -280,7 +280,36 @@ public class GitHubEMUUserHandler extends AbstractGitHubEMUHandler {
     public int getAll(ResultsHandler resultsHandler, OperationOptions options,
                       Set<String> returnAttributesSet, Set<String> fetchFieldsSet,
                       boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
-        return client.getEMUUsers(u -> resultsHandler.handle(toConnectorObject(schemaDefinition, u, returnAttributesSet, allowPartialAttributeValues)),
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        return client.getEMUUsers(u -> resultsHandler.handle(plan.toConnectorObject(u)),
                 options, fetchFieldsSet, pageSize, pageOffset);
     }
+
+    @Override
+    public int getByAttributes(GitHubFilter filter, ResultsHandler resultsHandler, OperationOptions options,
+                               Set<String> returnAttributesSet, Set<String> fetchFieldsSet,
+                               boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        return client.getEMUUsers(filter, u -> resultsHandler.handle(plan.toConnectorObject(u)),
+                options, fetchFieldsSet, pageSize, pageOffset);
+    }
+
+    @Override
+    public void sync(SyncToken token, SyncResultsHandler resultsHandler, OperationOptions options,
+                     Set<String> returnAttributesSet, Set<String> fetchFieldsSet, boolean allowPartialAttributeValues) {
+        SchemaDefinition.ProjectionPlan plan = schemaDefinition.compileProjectionPlan(returnAttributesSet, allowPartialAttributeValues);
+        newSync(options, fetchFieldsSet).sync(token, resultsHandler, plan::toConnectorObject);
+    }
+
+    @Override
+    public SyncToken getLatestSyncToken() {
+        return newSync(null, Collections.emptySet()).getLatestSyncToken();
+    }
+
+    private GitHubLastModifiedSync<SCIMEMUUser> newSync(OperationOptions options, Set<String> fetchFieldsSet) {
+        return new GitHubLastModifiedSync<>(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug(), USER_OBJECT_CLASS,
+                handler -> client.getEMUUsers(handler, options, fetchFieldsSet, configuration.getQueryPageSize(), 0),
+                r -> r.id,
+                r -> r.meta != null ? r.meta.lastModified : null);
+    }
 }
@@ -16,11 +16,24 @@
 package jp.openstandia.connector.github;
 
 import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeUtil;
 import org.identityconnectors.framework.common.objects.Name;
 import org.identityconnectors.framework.common.objects.Uid;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
 /**
  * Filter for GitHub query.
+ * <p>
+ * Besides the lookup by uid, name or members, it is a small filter tree for the attribute conditions:
+ * a node with {@link FilterType#AND} or {@link FilterType#OR} holds the conditions, and a leaf holds one attribute
+ * condition.
  *
  * @author Hiroyuki Wada
  */
@@ -30,6 +43,8 @@ public class GitHubFilter {
     public final FilterType filterType;
     public final String attributeName;
     public final Attribute attributeValue;
+    // Conditions of the AND/OR node
+    public final List<GitHubFilter> conditions;
 
     private GitHubFilter(Uid uid) {
         this.uid = uid;
@@ -37,6 +52,7 @@ public class GitHubFilter {
         this.filterType = FilterType.EXACT_MATCH;
         this.attributeName = null;
         this.attributeValue = null;
+        this.conditions = null;
     }
 
     private GitHubFilter(Name name) {
@@ -45,10 +61,18 @@ public class GitHubFilter {
         this.filterType = FilterType.EXACT_MATCH;
         this.attributeName = null;
         this.attributeValue = null;
+        this.conditions = null;
     }
 
     public enum FilterType {
-        EXACT_MATCH
+        EXACT_MATCH,
+        STARTS_WITH,
+        GREATER_THAN,
+        GREATER_THAN_OR_EQUAL,
+        LESS_THAN,
+        LESS_THAN_OR_EQUAL,
+        AND,
+        OR
     }
 
     private GitHubFilter(String attributeName, FilterType filterType, Attribute attributeValue) {
@@ -57,6 +81,16 @@ public class GitHubFilter {
         this.attributeName = attributeName;
         this.filterType = filterType;
         this.attributeValue = attributeValue;
+        this.conditions = null;
+    }
+
+    private GitHubFilter(FilterType filterType, List<GitHubFilter> conditions) {
+        this.uid = null;
+        this.name = null;
+        this.attributeName = null;
+        this.filterType = filterType;
+        this.attributeValue = null;
+        this.conditions = Collections.unmodifiableList(conditions);
     }
 
     public static GitHubFilter By(Uid uid) {
@@ -71,6 +105,50 @@ public class GitHubFilter {
         return new GitHubFilter(attributeName, filterType, attributeValue);
     }
 
+    public static GitHubFilter ByAttribute(String attributeName, FilterType filterType, Attribute attributeValue) {
+        return new GitHubFilter(FilterType.AND,
+                Collections.singletonList(new GitHubFilter(attributeName, filterType, attributeValue)));
+    }
+
+    /**
+     * Combines the attribute conditions of both filters.
+     *
+     * @param left  the filter by attributes
+     * @param right the filter by attributes
+     * @return the filter which matches when all the conditions match
+     */
+    public static GitHubFilter And(GitHubFilter left, GitHubFilter right) {
+        List<GitHubFilter> conditions = new ArrayList<>();
+        left.addOperands(FilterType.AND, conditions);
+        right.addOperands(FilterType.AND, conditions);
+        return new GitHubFilter(FilterType.AND, conditions);
+    }
+
+    /**
+     * Combines the attribute conditions of both filters.
+     *
+     * @param left  the filter by attributes
+     * @param right the filter by attributes
+     * @return the filter which matches when any of the conditions matches
+     */
+    public static GitHubFilter Or(GitHubFilter left, GitHubFilter right) {
+        List<GitHubFilter> conditions = new ArrayList<>();
+        left.addOperands(FilterType.OR, conditions);
+        right.addOperands(FilterType.OR, conditions);
+        return new GitHubFilter(FilterType.OR, conditions);
+    }
+
+    private void addOperands(FilterType operator, List<GitHubFilter> operands) {
+        if (filterType == operator) {
+            operands.addAll(conditions);
+        } else if (filterType == FilterType.AND && conditions.size() == 1) {
+            // Unwrap the single condition made by ByAttribute
+            operands.add(conditions.get(0));
+        } else {
+            operands.add(this);
+        }
+    }
+
     public boolean isByUid() {
         return uid != null;
     }
@@ -80,6 +158,112 @@ public class GitHubFilter {
     }
 
     public boolean isByMembers() {
-        return attributeName.equals("members.User.value") && filterType == FilterType.EXACT_MATCH;
+        return "members.User.value".equals(attributeName) && filterType == FilterType.EXACT_MATCH;
+    }
+
+    public boolean isByAttributes() {
+        return conditions != null;
+    }
+
+    /**
+     * Returns the branches of the filter, which is the conditions of OR or this filter itself.
+     *
+     * @return the filters which are combined with OR
+     */
+    public List<GitHubFilter> disjuncts() {
+        if (filterType == FilterType.OR) {
+            return conditions;
+        }
+        return Collections.singletonList(this);
+    }
+
+    /**
+     * Renders the filter as a SCIM filter expression (RFC 7644 section 3.4.2.2).
+     * The attribute names of the conditions must be the SCIM attribute names.
+     *
+     * @return the SCIM filter expression
+     */
+    public String toSCIMFilter() {
+        if (conditions != null) {
+            if (conditions.size() == 1) {
+                return conditions.get(0).toSCIMFilter();
+            }
+            String operator = filterType == FilterType.OR ? " or " : " and ";
+            return conditions.stream()
+                    .map(c -> c.filterType == FilterType.OR && c.conditions.size() > 1 ? "(" + c.toSCIMFilter() + ")" : c.toSCIMFilter())
+                    .collect(Collectors.joining(operator));
+        }
+        return attributeName + " " + toSCIMOperator(filterType) + " \"" + escape(getValue()) + "\"";
+    }
+
+    private static String toSCIMOperator(FilterType filterType) {
+        switch (filterType) {
+            case EXACT_MATCH:
+                return "eq";
+            case STARTS_WITH:
+                return "sw";
+            case GREATER_THAN:
+                return "gt";
+            case GREATER_THAN_OR_EQUAL:
+                return "ge";
+            case LESS_THAN:
+                return "lt";
+            case LESS_THAN_OR_EQUAL:
+                return "le";
+            default:
+                throw new IllegalStateException("Not a condition: " + filterType);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private String getValue() {
+        Object value = AttributeUtil.getSingleValue(attributeValue);
+        return value != null ? value.toString() : "";
+    }
+
+    /**
+     * Converts the string conditions (equals and starts with) into a predicate to evaluate them in the connector.
+     * Values are compared ignoring case as SCIM does for the attributes used in the filters, except "id" and
+     * "externalId".
+     *
+     * @param values returns the values of the SCIM attribute of the resource
+     * @param <T>    the type of the resource
+     * @return the predicate
+     */
+    public <T> Predicate<T> toPredicate(BiFunction<T, String, Collection<String>> values) {
+        if (conditions != null) {
+            List<Predicate<T>> predicates = conditions.stream()
+                    .map(c -> c.toPredicate(values))
+                    .collect(Collectors.toList());
+            if (filterType == FilterType.OR) {
+                return (t) -> predicates.stream().anyMatch(p -> p.test(t));
+            }
+            return (t) -> predicates.stream().allMatch(p -> p.test(t));
+        }
+
+        String expected = getValue();
+        boolean caseExact = attributeName.equals("id") || attributeName.equals("externalId");
+        return (t) -> {
+            for (String actual : values.apply(t, attributeName)) {
+                if (actual == null) {
+                    continue;
+                }
+                if (filterType == FilterType.STARTS_WITH) {
+                    if (actual.regionMatches(!caseExact, 0, expected, 0, expected.length())) {
+                        return true;
+                    }
+                } else if (filterType == FilterType.EXACT_MATCH) {
+                    if (caseExact ? actual.equals(expected) : actual.equalsIgnoreCase(expected)) {
+                        return true;
+                    }
+                } else {
+                    throw new IllegalStateException("Unsupported condition: " + filterType);
+                }
+            }
+            return false;
+        };
     }
 }
@@ -17,9 +17,13 @@ package jp.openstandia.connector.github;
 
 import org.identityconnectors.common.logging.Log;
 import org.identityconnectors.framework.common.objects.*;
-import org.identityconnectors.framework.common.objects.filter.AbstractFilterTranslator;
-import org.identityconnectors.framework.common.objects.filter.ContainsAllValuesFilter;
-import org.identityconnectors.framework.common.objects.filter.EqualsFilter;
+import org.identityconnectors.framework.common.objects.filter.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Filter translator for GitHub query.
@@ -31,6 +35,28 @@ public class GitHubFilterTranslator extends AbstractFilterTranslator<GitHubFilte
 
     private static final Log LOG = Log.getLog(GitHubFilterTranslator.class);
 
+    // Copilot seats can't be filtered by the API. These filters are evaluated in the connector during one seat sweep.
+    static final Set<String> SEAT_EQUALS_ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "assigning_team.slug", "plan_type", "assignee.type", "last_activity_at"));
+    static final Set<String> SEAT_RANGE_ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "last_activity_at"));
+
+    // Connector attribute -> SCIM attribute which can be used in the SCIM filter
+    static final Map<String, String> USER_SCIM_ATTRIBUTES = new HashMap<>();
+    static final Map<String, String> GROUP_SCIM_ATTRIBUTES = new HashMap<>();
+
+    static {
+        USER_SCIM_ATTRIBUTES.put(Uid.NAME, "id");
+        USER_SCIM_ATTRIBUTES.put(Name.NAME, "userName");
+        USER_SCIM_ATTRIBUTES.put("externalId", "externalId");
+        USER_SCIM_ATTRIBUTES.put("displayName", "displayName");
+        USER_SCIM_ATTRIBUTES.put("primaryEmail", "emails");
+
+        GROUP_SCIM_ATTRIBUTES.put(Uid.NAME, "id");
+        GROUP_SCIM_ATTRIBUTES.put(Name.NAME, "displayName");
+        GROUP_SCIM_ATTRIBUTES.put("externalId", "externalId");
+    }
+
     private final OperationOptions options;
     private final ObjectClass objectClass;
 
@@ -53,9 +79,121 @@ public class GitHubFilterTranslator extends AbstractFilterTranslator<GitHubFilte
             return GitHubFilter.By((Name) attr);
         }
 
+        if (isSeat() && SEAT_EQUALS_ATTRIBUTES.contains(attr.getName())) {
+            return GitHubFilter.ByAttribute(attr.getName(), GitHubFilter.FilterType.EXACT_MATCH, attr);
+        }
+
+        String scimAttr = toSCIMAttribute(attr.getName());
+        if (scimAttr != null) {
+            return GitHubFilter.ByAttribute(scimAttr, GitHubFilter.FilterType.EXACT_MATCH, attr);
+        }
+
+        return null;
+    }
+
+    @Override
+    protected GitHubFilter createStartsWithExpression(StartsWithFilter filter, boolean not) {
+        if (not) {
+            return null;
+        }
+        Attribute attr = filter.getAttribute();
+
+        String scimAttr = toSCIMAttribute(attr.getName());
+        if (scimAttr != null && !attr.is(Uid.NAME)) {
+            return GitHubFilter.ByAttribute(scimAttr, GitHubFilter.FilterType.STARTS_WITH, attr);
+        }
         return null;
     }
 
+    @Override
+    protected GitHubFilter createGreaterThanExpression(GreaterThanFilter filter, boolean not) {
+        return createRangeExpression(filter, GitHubFilter.FilterType.GREATER_THAN, not);
+    }
+
+    @Override
+    protected GitHubFilter createGreaterThanOrEqualExpression(GreaterThanOrEqualFilter filter, boolean not) {
+        return createRangeExpression(filter, GitHubFilter.FilterType.GREATER_THAN_OR_EQUAL, not);
+    }
+
+    @Override
+    protected GitHubFilter createLessThanExpression(LessThanFilter filter, boolean not) {
+        return createRangeExpression(filter, GitHubFilter.FilterType.LESS_THAN, not);
+    }
+
+    @Override
+    protected GitHubFilter createLessThanOrEqualExpression(LessThanOrEqualFilter filter, boolean not) {
+        return createRangeExpression(filter, GitHubFilter.FilterType.LESS_THAN_OR_EQUAL, not);
+    }
+
+    private GitHubFilter createRangeExpression(AttributeFilter filter, GitHubFilter.FilterType filterType, boolean not) {
+        // NOT also matches the seats which have no value, so leave it to the framework
+        if (not) {
+            return null;
+        }
+        Attribute attr = filter.getAttribute();
+        if (isSeat() && SEAT_RANGE_ATTRIBUTES.contains(attr.getName())) {
+            return GitHubFilter.ByAttribute(attr.getName(), filterType, attr);
+        }
+        return null;
+    }
+
+    @Override
+    protected GitHubFilter createAndExpression(GitHubFilter leftExpression, GitHubFilter rightExpression) {
+        // Fetching by uid or name is the cheapest. The framework filters the result by the whole filter.
+        if (leftExpression.isByUid() || leftExpression.isByName()) {
+            return leftExpression;
+        }
+        if (rightExpression.isByUid() || rightExpression.isByName()) {
+            return rightExpression;
+        }
+        if (leftExpression.isByAttributes() && rightExpression.isByAttributes()) {
+            return GitHubFilter.And(leftExpression, rightExpression);
+        }
+        // The framework uses either one and filters the results by the whole filter
+        return null;
+    }
+
+    @Override
+    protected GitHubFilter createOrExpression(GitHubFilter leftExpression, GitHubFilter rightExpression) {
+        if (isSeat()) {
+            return null;
+        }
+        GitHubFilter left = toAttributes(leftExpression);
+        GitHubFilter right = toAttributes(rightExpression);
+        if (left == null || right == null) {
+            // The framework queries each side and merges the results
+            return null;
+        }
+        return GitHubFilter.Or(left, right);
+    }
+
+    private GitHubFilter toAttributes(GitHubFilter filter) {
+        if (filter.isByUid()) {
+            return GitHubFilter.ByAttribute(toSCIMAttribute(Uid.NAME), GitHubFilter.FilterType.EXACT_MATCH, filter.uid);
+        }
+        if (filter.isByName()) {
+            return GitHubFilter.ByAttribute(toSCIMAttribute(Name.NAME), GitHubFilter.FilterType.EXACT_MATCH, filter.name);
+        }
+        if (filter.isByAttributes()) {
+            return filter;
+        }
+        return null;
+    }
+
+    private String toSCIMAttribute(String attrName) {
+        if (objectClass.equals(GitHubEMUUserHandler.USER_OBJECT_CLASS)) {
+            return USER_SCIM_ATTRIBUTES.get(attrName);
+        }
+        if (objectClass.equals(GitHubEMUGroupHandler.GROUP_OBJECT_CLASS)) {
+            return GROUP_SCIM_ATTRIBUTES.get(attrName);
+        }
+        return null;
+    }
+
+    private boolean isSeat() {
+        return objectClass.equals(GitHubCopilotSeatHandler.SEAT_OBJECT_CLASS);
+    }
+
     @Override
     protected GitHubFilter createContainsAllValuesExpression(ContainsAllValuesFilter filter, boolean not) {
         if (not) {
@@ -0,0 +1,214 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
+import org.kohsuke.github.SCIMPatchOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Merges the member patches to the same group which arrive within a short window into one PATCH request.
+ * <p>
+ * Assigning many users to a group calls updateDelta once per user, each with one "add members" operation.
+ * The first caller for a group becomes the leader. It waits for the window, then sends the merged operations for all
+ * callers of the window and hands the result to each of them. When the same member is added and removed within the
+ * window, the later operation wins. Patches which change other attributes are sent as they are.
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubGroupPatchCoalescer {
+
+    private static final ConcurrentMap<String, GitHubGroupPatchCoalescer> COALESCERS = new ConcurrentHashMap<>();
+
+    // group id -> the batch which is still accepting operations. Guarded by this.
+    private final Map<String, Batch> pending = new HashMap<>();
+
+    static class Batch {
+        // member id -> true: add, false: remove
+        final Map<String, Boolean> members = new LinkedHashMap<>();
+        int callers;
+        private boolean done;
+        private RuntimeException failure;
+
+        void add(SCIMPatchOperations operations) {
+            for (SCIMPatchOperations.Operation op : operations.operations) {
+                boolean add = op.op.equals("add");
+                for (Object member : (List<?>) op.value) {
+                    String id = ((SCIMPatchOperations.Member) member).value;
+                    // Keep the order of the latest operation
+                    members.remove(id);
+                    members.put(id, add);
+                }
+            }
+            callers++;
+        }
+
+        SCIMPatchOperations toOperations() {
+            List<String> adds = new ArrayList<>();
+            List<String> removes = new ArrayList<>();
+            members.forEach((id, add) -> (add ? adds : removes).add(id));
+
+            SCIMPatchOperations merged = new SCIMPatchOperations();
+            if (!adds.isEmpty()) {
+                merged.addMembers(adds);
+            }
+            if (!removes.isEmpty()) {
+                merged.removeMembers(removes);
+            }
+            return merged;
+        }
+
+        synchronized void complete(RuntimeException failure) {
+            this.failure = failure;
+            this.done = true;
+            notifyAll();
+        }
+
+        synchronized RuntimeException await() {
+            boolean interrupted = false;
+            // The leader may already have sent our operations, so wait for the result even if interrupted
+            while (!done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return failure;
+        }
+    }
+
+    GitHubGroupPatchCoalescer() {
+    }
+
+    /**
+     * Returns the coalescer shared for the given enterprise.
+     *
+     * @param enterpriseKey the key which identifies the enterprise (e.g. endpoint URL and enterprise slug)
+     * @return the coalescer
+     */
+    public static GitHubGroupPatchCoalescer forEnterprise(String enterpriseKey) {
+        return COALESCERS.computeIfAbsent(enterpriseKey, k -> new GitHubGroupPatchCoalescer());
+    }
+
+    /**
+     * Returns whether the operations only add or remove members.
+     *
+     * @param operations the patch operations
+     * @return true if they can be merged with other member patches
+     */
+    static boolean isMembersOnly(SCIMPatchOperations operations) {
+        if (operations.operations.isEmpty()) {
+            return false;
+        }
+        for (SCIMPatchOperations.Operation op : operations.operations) {
+            if (!"members".equals(op.path) || !("add".equals(op.op) || "remove".equals(op.op))
+                    || !(op.value instanceof List)) {
+                return false;
+            }
+            for (Object member : (List<?>) op.value) {
+                if (!(member instanceof SCIMPatchOperations.Member)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Patches the group, merged with the member patches of other callers within the window.
+     *
+     * @param groupId      the id of the group
+     * @param operations   the patch operations of this caller
+     * @param windowMillis how long the first caller waits for other callers
+     * @param sender       sends a PATCH request for the group
+     */
+    public void patch(String groupId, SCIMPatchOperations operations, long windowMillis,
+                      Consumer<SCIMPatchOperations> sender) {
+        if (windowMillis <= 0 || !isMembersOnly(operations)) {
+            sender.accept(operations);
+            return;
+        }
+
+        Batch batch;
+        boolean leader = false;
+        synchronized (this) {
+            batch = pending.get(groupId);
+            if (batch == null) {
+                batch = new Batch();
+                pending.put(groupId, batch);
+                leader = true;
+            }
+            batch.add(operations);
+        }
+
+        boolean interrupted = false;
+        try {
+            RuntimeException failure;
+            if (leader) {
+                try {
+                    Thread.sleep(windowMillis);
+                } catch (InterruptedException e) {
+                    // Send what we have now. The interrupt flag is restored after sending,
+                    // otherwise the request fails with InterruptedIOException.
+                    interrupted = true;
+                }
+                synchronized (this) {
+                    pending.remove(groupId);
+                }
+
+                failure = null;
+                try {
+                    SCIMPatchOperations merged = batch.toOperations();
+                    // Empty if the operations had no member values
+                    if (merged.hasAttributesChange()) {
+                        sender.accept(merged);
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                batch.complete(failure);
+            } else {
+                failure = batch.await();
+            }
+
+            if (failure == null) {
+                return;
+            }
+            if (batch.callers > 1 && failure instanceof InvalidAttributeValueException) {
+                // One of the merged members may be invalid. Send our own operations to report the result for this caller.
+                sender.accept(operations);
+                return;
+            }
+            throw failure;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import okhttp3.OkHttpClient;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.common.security.SecurityUtil;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Process-wide registry of HTTP clients keyed by the HTTP related configuration.
+ * Pooled connector instances with the same settings share one {@link OkHttpClient},
+ * so they share its connection pool (and the HTTP/2 connections) to GitHub.
+ * Releasing a client only drops the reference; idle sockets are closed by the connection pool.
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubHttpClientRegistry {
+
+    private static final Log LOGGER = Log.getLog(GitHubHttpClientRegistry.class);
+
+    private static final GitHubHttpClientRegistry INSTANCE = new GitHubHttpClientRegistry();
+
+    private final Map<String, Entry> clients = new HashMap<>();
+
+    GitHubHttpClientRegistry() {
+    }
+
+    public static GitHubHttpClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private static class Entry {
+        final OkHttpClient client;
+        int references;
+
+        Entry(OkHttpClient client) {
+            this.client = client;
+        }
+    }
+
+    public synchronized OkHttpClient acquire(AbstractGitHubConfiguration configuration,
+                                             Function<AbstractGitHubConfiguration, OkHttpClient> factory) {
+        String key = createKey(configuration);
+
+        Entry entry = clients.get(key);
+        if (entry == null) {
+            purgeUnused();
+
+            entry = new Entry(factory.apply(configuration));
+            clients.put(key, entry);
+
+            LOGGER.ok("Created shared HTTP client, registered clients: {0}", clients.size());
+        }
+        entry.references++;
+
+        return entry.client;
+    }
+
+    public synchronized void release(OkHttpClient client) {
+        for (Entry entry : clients.values()) {
+            if (entry.client == client) {
+                if (entry.references > 0) {
+                    entry.references--;
+                }
+                return;
+            }
+        }
+    }
+
+    synchronized int getReferenceCount(OkHttpClient client) {
+        for (Entry entry : clients.values()) {
+            if (entry.client == client) {
+                return entry.references;
+            }
+        }
+        return 0;
+    }
+
+    private void purgeUnused() {
+        // Drop the clients which nobody refers and whose sockets were already closed by the keep-alive eviction
+        Iterator<Entry> it = clients.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.references == 0 && entry.client.connectionPool().connectionCount() == 0) {
+                it.remove();
+            }
+        }
+    }
+
+    static String createKey(AbstractGitHubConfiguration configuration) {
+        AtomicReference<String> proxyPasswordHash = new AtomicReference<>("");
+        if (configuration.getHttpProxyPassword() != null) {
+            configuration.getHttpProxyPassword().access(c -> {
+                proxyPasswordHash.set(SecurityUtil.computeBase64SHA1Hash(c));
+            });
+        }
+
+        return String.join("|",
+                configuration.getClass().getName(),
+                String.valueOf(configuration.getConnectionTimeoutInMilliseconds()),
+                String.valueOf(configuration.getReadTimeoutInMilliseconds()),
+                String.valueOf(configuration.getWriteTimeoutInMilliseconds()),
+                String.valueOf(configuration.getHttpMaxIdleConnections()),
+                String.valueOf(configuration.getHttpKeepAliveDurationInSeconds()),
+                String.valueOf(configuration.getHttpProxyHost()),
+                String.valueOf(configuration.getHttpProxyPort()),
+                String.valueOf(configuration.getHttpProxyUser()),
+                proxyPasswordHash.get());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.common.logging.Log;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics exported as an MXBean named "jp.openstandia.connector.github:type=GitHubMetrics,enterprise=...".
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubJmxMetrics implements GitHubMetrics, GitHubMetricsMXBean {
+
+    private static final Log LOGGER = Log.getLog(GitHubJmxMetrics.class);
+
+    private static final ConcurrentMap<String, GitHubJmxMetrics> METRICS = new ConcurrentHashMap<>();
+
+    // Upper bounds of the latency buckets in milliseconds. The last bucket is unbounded.
+    static final long[] BUCKETS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final ConcurrentMap<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Latency> latencies = new ConcurrentHashMap<>();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> retryCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger rateLimitRemaining = new AtomicInteger(-1);
+    private final ConcurrentMap<String, LongAdder> searchCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> pageCounts = new ConcurrentHashMap<>();
+
+    static class Latency {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS.length + 1);
+        final LongAdder count = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int i = 0;
+            while (i < BUCKETS.length && millis > BUCKETS[i]) {
+                i++;
+            }
+            buckets.incrementAndGet(i);
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        long percentileMillis(double percentile) {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return BUCKETS[i];
+                }
+            }
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+    }
+
+    GitHubJmxMetrics() {
+    }
+
+    /**
+     * Returns the metrics shared for the given enterprise, registering the MXBean on the first call.
+     *
+     * @param enterpriseKey the key which identifies the enterprise (e.g. endpoint URL and enterprise slug)
+     * @return the metrics
+     */
+    public static GitHubJmxMetrics forEnterprise(String enterpriseKey) {
+        return METRICS.computeIfAbsent(enterpriseKey, k -> {
+            GitHubJmxMetrics metrics = new GitHubJmxMetrics();
+            register(k, metrics);
+            return metrics;
+        });
+    }
+
+    private static void register(String enterpriseKey, GitHubJmxMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("jp.openstandia.connector.github:type=GitHubMetrics,enterprise="
+                    + ObjectName.quote(enterpriseKey));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (JMException e) {
+            // Metrics must not break provisioning
+            LOGGER.warn(e, "Failed to register GitHub metrics MXBean for {0}", enterpriseKey);
+        }
+    }
+
+    private static void increment(ConcurrentMap<String, LongAdder> counters, String key) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private static Map<String, Long> snapshot(ConcurrentMap<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+
+    @Override
+    public void recordRequest(String method, String endpoint, int statusCode, long latencyNanos,
+                              long requestBytes, long responseBytes) {
+        String key = method + " " + endpoint;
+        increment(requestCounts, key + " " + statusCode);
+        latencies.computeIfAbsent(key, k -> new Latency()).record(latencyNanos);
+        if (requestBytes > 0) {
+            bytesSent.add(requestBytes);
+        }
+        if (responseBytes > 0) {
+            bytesReceived.add(responseBytes);
+        }
+    }
+
+    @Override
+    public void recordRetry(String reason) {
+        increment(retryCounts, reason);
+    }
+
+    @Override
+    public void recordRateLimitRemaining(int remaining) {
+        rateLimitRemaining.set(remaining);
+    }
+
+    @Override
+    public void recordPages(String objectType, int pages) {
+        increment(searchCounts, objectType);
+        pageCounts.computeIfAbsent(objectType, k -> new LongAdder()).add(pages);
+    }
+
+    @Override
+    public Map<String, Long> getRequestCounts() {
+        return snapshot(requestCounts);
+    }
+
+    @Override
+    public Map<String, Long> getLatencyHistogram() {
+        Map<String, Long> result = new TreeMap<>();
+        latencies.forEach((k, v) -> {
+            long cumulative = 0;
+            for (int i = 0; i < v.buckets.length(); i++) {
+                cumulative += v.buckets.get(i);
+                String le = i < BUCKETS.length ? String.valueOf(BUCKETS[i]) : "+Inf";
+                result.put(k + " le=" + le, cumulative);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyMeanMillis() {
+        Map<String, Double> result = new TreeMap<>();
+        latencies.forEach((k, v) -> {
+            long count = v.count.sum();
+            result.put(k, count == 0 ? 0.0 : v.sumNanos.sum() / 1_000_000.0 / count);
+        });
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyMaxMillis() {
+        Map<String, Long> result = new TreeMap<>();
+        latencies.forEach((k, v) -> result.put(k, TimeUnit.NANOSECONDS.toMillis(v.maxNanos.get())));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP99Millis() {
+        Map<String, Long> result = new TreeMap<>();
+        latencies.forEach((k, v) -> result.put(k, v.percentileMillis(0.99)));
+        return result;
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public Map<String, Long> getRetryCounts() {
+        return snapshot(retryCounts);
+    }
+
+    @Override
+    public int getRateLimitRemaining() {
+        return rateLimitRemaining.get();
+    }
+
+    @Override
+    public Map<String, Long> getSearchCounts() {
+        return snapshot(searchCounts);
+    }
+
+    @Override
+    public Map<String, Long> getPageCounts() {
+        return snapshot(pageCounts);
+    }
+
+    @Override
+    public void reset() {
+        requestCounts.clear();
+        latencies.clear();
+        bytesSent.reset();
+        bytesReceived.reset();
+        retryCounts.clear();
+        rateLimitRemaining.set(-1);
+        searchCounts.clear();
+        pageCounts.clear();
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import jp.openstandia.connector.util.QueryHandler;
+import jp.openstandia.connector.util.Utils;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
+import org.identityconnectors.framework.common.objects.*;
+import org.identityconnectors.framework.spi.SyncTokenResultsHandler;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Live synchronization support based on meta.lastModified of the SCIM resources.
+ * <p>
+ * The sync token is "lastModified(epoch millis)|tie-breaking ids": the highest meta.lastModified seen and the ids
+ * which have exactly that timestamp. GitHub SCIM API doesn't support filtering by meta.lastModified, so each cycle
+ * still sweeps all the resources, but only the resources changed since the token are emitted.
+ * <p>
+ * The changes are emitted in the sweep order as they arrive, so even the first cycle doesn't hold the resources in
+ * memory. Because the sweep isn't ordered by meta.lastModified, the deltas carry the token the cycle started from,
+ * except the last one which carries the latest token. The deletions are emitted after the changes and before the
+ * last delta, so a cycle stopped halfway resumes from its start and may emit some changes or deletions again, but
+ * never skips one.
+ * <p>
+ * Deletions are detected by diffing the sorted id set of the previous cycle, kept in memory per enterprise and object class.
+ * The id set is used only when it was recorded with the same token, so deletions can't be detected in the first cycle
+ * after the connector is (re)loaded or after an interrupted cycle.
+ *
+ * @param <T> the type of the resource
+ * @author Hiroyuki Wada
+ */
+public class GitHubLastModifiedSync<T> {
+
+    private static final Log LOGGER = Log.getLog(GitHubLastModifiedSync.class);
+
+    private static final ConcurrentMap<String, IdSet> ID_SETS = new ConcurrentHashMap<>();
+
+    private static class IdSet {
+        final String token;
+        final String[] sortedIds;
+
+        IdSet(String token, String[] sortedIds) {
+            this.token = token;
+            this.sortedIds = sortedIds;
+        }
+    }
+
+    /**
+     * Sweeps all the resources with the given handler.
+     */
+    @FunctionalInterface
+    public interface Sweeper<T> {
+        void sweep(QueryHandler<T> handler);
+    }
+
+    private final String storeKey;
+    private final ObjectClass objectClass;
+    private final Sweeper<T> sweeper;
+    private final Function<T, String> idOf;
+    private final Function<T, String> lastModifiedOf;
+
+    public GitHubLastModifiedSync(String storeKey, ObjectClass objectClass, Sweeper<T> sweeper,
+                                  Function<T, String> idOf, Function<T, String> lastModifiedOf) {
+        this.storeKey = storeKey + "|" + objectClass.getObjectClassValue();
+        this.objectClass = objectClass;
+        this.sweeper = sweeper;
+        this.idOf = idOf;
+        this.lastModifiedOf = lastModifiedOf;
+    }
+
+    public SyncToken getLatestSyncToken() {
+        Position latest = new Position(0, new TreeSet<>());
+        List<String> ids = new ArrayList<>();
+
+        sweeper.sweep(r -> {
+            String id = idOf.apply(r);
+            ids.add(id);
+            latest.advance(toEpochMilli(lastModifiedOf.apply(r)), id);
+            return true;
+        });
+
+        String token = latest.toToken();
+        record(token, ids);
+        return new SyncToken(token);
+    }
+
+    public void sync(SyncToken token, SyncResultsHandler handler, Function<T, ConnectorObject> toConnectorObject) {
+        Position from = Position.parse(token);
+        Position latest = from.copy();
+        List<String> ids = new ArrayList<>();
+        ChangeEmitter emitter = new ChangeEmitter(handler, new SyncToken(from.toToken()));
+
+        sweeper.sweep(r -> {
+            String id = idOf.apply(r);
+            long lastModified = toEpochMilli(lastModifiedOf.apply(r));
+            ids.add(id);
+            latest.advance(lastModified, id);
+            if (from.isBefore(lastModified, id)) {
+                return emitter.emit(new SyncDeltaBuilder()
+                        .setDeltaType(SyncDeltaType.CREATE_OR_UPDATE)
+                        .setObject(toConnectorObject.apply(r)));
+            }
+            return true;
+        });
+
+        if (emitter.isStopped()) {
+            LOGGER.info("Sync for {0} was stopped by the handler", objectClass);
+            return;
+        }
+
+        String[] currentIds = toSortedArray(ids);
+
+        IdSet previous = token != null ? ID_SETS.get(storeKey) : null;
+        if (previous != null && previous.token.equals(token.getValue().toString())) {
+            for (String id : previous.sortedIds) {
+                if (Arrays.binarySearch(currentIds, id) < 0) {
+                    boolean next = emitter.emit(new SyncDeltaBuilder()
+                            .setDeltaType(SyncDeltaType.DELETE)
+                            .setUid(new Uid(id)));
+                    if (!next) {
+                        LOGGER.info("Sync for {0} was stopped by the handler", objectClass);
+                        return;
+                    }
+                }
+            }
+        } else if (token != null) {
+            LOGGER.info("No id set recorded for the sync token of {0}, skipping deletion detection in this cycle", objectClass);
+        }
+
+        // Only the last delta carries the latest token, after all the deletions are handed over
+        String latestToken = latest.toToken();
+        if (!emitter.flush(new SyncToken(latestToken))) {
+            LOGGER.info("Sync for {0} was stopped by the handler", objectClass);
+            return;
+        }
+
+        ID_SETS.put(storeKey, new IdSet(latestToken, currentIds));
+
+        if (handler instanceof SyncTokenResultsHandler) {
+            ((SyncTokenResultsHandler) handler).handleResult(new SyncToken(latestToken));
+        }
+    }
+
+    private void record(String token, List<String> ids) {
+        ID_SETS.put(storeKey, new IdSet(token, toSortedArray(ids)));
+    }
+
+    private static String[] toSortedArray(List<String> ids) {
+        String[] array = ids.toArray(new String[0]);
+        Arrays.sort(array);
+        return array;
+    }
+
+    static long toEpochMilli(String lastModified) {
+        if (lastModified == null) {
+            return 0;
+        }
+        return Utils.toZoneDateTimeForISO8601OffsetDateTime(lastModified).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Emits the deltas in the given order without buffering them.
+     * Each delta is held back until the next one arrives, so only the last delta gets the latest token.
+     */
+    private class ChangeEmitter {
+        final SyncResultsHandler handler;
+        final SyncToken fromToken;
+        SyncDeltaBuilder pending;
+        boolean stopped;
+
+        ChangeEmitter(SyncResultsHandler handler, SyncToken fromToken) {
+            this.handler = handler;
+            this.fromToken = fromToken;
+        }
+
+        boolean emit(SyncDeltaBuilder delta) {
+            if (pending != null && !handle(pending, fromToken)) {
+                stopped = true;
+                return false;
+            }
+            pending = delta;
+            return true;
+        }
+
+        boolean flush(SyncToken latestToken) {
+            return pending == null || handle(pending, latestToken);
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        private boolean handle(SyncDeltaBuilder delta, SyncToken token) {
+            delta.setObjectClass(objectClass)
+                    .setToken(token);
+            return handler.handle(delta.build());
+        }
+    }
+
+    /**
+     * The highest lastModified and the ids which have exactly that timestamp.
+     */
+    static class Position {
+        long lastModified;
+        final SortedSet<String> ids;
+
+        Position(long lastModified, SortedSet<String> ids) {
+            this.lastModified = lastModified;
+            this.ids = ids;
+        }
+
+        static Position parse(SyncToken token) {
+            if (token == null || token.getValue() == null) {
+                // Start from the beginning
+                return new Position(-1, new TreeSet<>());
+            }
+            String value = token.getValue().toString();
+            int sep = value.indexOf('|');
+            try {
+                if (sep < 0) {
+                    return new Position(Long.parseLong(value), new TreeSet<>());
+                }
+                SortedSet<String> ids = new TreeSet<>();
+                String tail = value.substring(sep + 1);
+                if (!tail.isEmpty()) {
+                    ids.addAll(Arrays.asList(tail.split(",")));
+                }
+                return new Position(Long.parseLong(value.substring(0, sep)), ids);
+            } catch (NumberFormatException e) {
+                throw new InvalidAttributeValueException("Invalid sync token: " + value, e);
+            }
+        }
+
+        boolean isBefore(long lastModified, String id) {
+            return lastModified > this.lastModified || (lastModified == this.lastModified && !ids.contains(id));
+        }
+
+        void advance(long lastModified, String id) {
+            if (lastModified > this.lastModified) {
+                this.lastModified = lastModified;
+                ids.clear();
+                ids.add(id);
+            } else if (lastModified == this.lastModified) {
+                ids.add(id);
+            }
+        }
+
+        Position copy() {
+            return new Position(lastModified, new TreeSet<>(ids));
+        }
+
+        String toToken() {
+            return lastModified + "|" + String.join(",", ids);
+        }
+    }
+}
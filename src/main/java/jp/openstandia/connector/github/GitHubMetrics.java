@@ -0,0 +1,88 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.common.StringUtil;
+
+/**
+ * Receives the measurements of GitHub API calls.
+ * <p>
+ * Implementations must be thread-safe. They are shared by all connector instances for the same enterprise.
+ * "none" (default) and "jmx" are built in. Any other exporter name is loaded as a class name of an implementation
+ * which has a public constructor taking the enterprise key, created once per enterprise.
+ *
+ * @author Hiroyuki Wada
+ */
+public interface GitHubMetrics {
+
+    GitHubMetrics NOOP = new GitHubMetrics() {
+    };
+
+    /**
+     * Records one HTTP exchange.
+     *
+     * @param method        the HTTP method
+     * @param endpoint      the endpoint path with ids replaced by placeholders
+     * @param statusCode    the status code, or -1 if no response was received
+     * @param latencyNanos  the latency until the response headers were received
+     * @param requestBytes  the size of the request body, or -1 if unknown
+     * @param responseBytes the size of the response body as read by the client (decompressed if GitHub compressed it),
+     *                      or -1 if unknown. When GitHub doesn't send Content-Length (chunked or compressed responses),
+     *                      the exchange is recorded once the body has been read or closed.
+     */
+    default void recordRequest(String method, String endpoint, int statusCode, long latencyNanos,
+                               long requestBytes, long responseBytes) {
+    }
+
+    /**
+     * Records a retry.
+     *
+     * @param reason the reason such as "unauthorized" or "rate_limit"
+     */
+    default void recordRetry(String reason) {
+    }
+
+    /**
+     * Records the remaining rate limit budget reported by GitHub.
+     *
+     * @param remaining X-RateLimit-Remaining
+     */
+    default void recordRateLimitRemaining(int remaining) {
+    }
+
+    /**
+     * Records the number of pages fetched for one search.
+     *
+     * @param objectType the object type which was searched
+     * @param pages      the number of pages
+     */
+    default void recordPages(String objectType, int pages) {
+    }
+
+    static GitHubMetrics forConfiguration(GitHubEMUConfiguration configuration) {
+        String exporter = configuration.getMetricsExporter();
+        if (StringUtil.isEmpty(exporter) || exporter.equalsIgnoreCase("none")) {
+            return NOOP;
+        }
+
+        String enterpriseKey = configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug();
+        if (exporter.equalsIgnoreCase("jmx")) {
+            return GitHubJmxMetrics.forEnterprise(enterpriseKey);
+        }
+
+        return GitHubMetricsExporters.forEnterprise(exporter, enterpriseKey);
+    }
+}
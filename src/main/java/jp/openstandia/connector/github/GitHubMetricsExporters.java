@@ -0,0 +1,54 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.framework.common.exceptions.ConfigurationException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Custom metrics exporters loaded by class name, shared for the same enterprise like {@link GitHubJmxMetrics}.
+ *
+ * @author Hiroyuki Wada
+ */
+final class GitHubMetricsExporters {
+
+    // Keyed by class name and enterprise key
+    private static final ConcurrentMap<String, GitHubMetrics> EXPORTERS = new ConcurrentHashMap<>();
+
+    private GitHubMetricsExporters() {
+    }
+
+    /**
+     * Returns the exporter of the given class shared for the given enterprise, creating it on the first call.
+     *
+     * @param className     the class name of the {@link GitHubMetrics} implementation
+     * @param enterpriseKey the key which identifies the enterprise (e.g. endpoint URL and enterprise slug)
+     * @return the exporter
+     */
+    static GitHubMetrics forEnterprise(String className, String enterpriseKey) {
+        return EXPORTERS.computeIfAbsent(className + "|" + enterpriseKey, k -> {
+            try {
+                return (GitHubMetrics) Class.forName(className)
+                        .getConstructor(String.class)
+                        .newInstance(enterpriseKey);
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new ConfigurationException("Invalid metrics exporter: " + className, e);
+            }
+        });
+    }
+}
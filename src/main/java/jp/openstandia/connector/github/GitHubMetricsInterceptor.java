@@ -0,0 +1,175 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Records every HTTP exchange with GitHub to {@link GitHubMetrics}.
+ * It's added after the rate limit scheduler, so the latency doesn't include the time waiting for the budget.
+ * The retries are recorded by {@link GitHubRetryInterceptor}, which decides them.
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubMetricsInterceptor implements Interceptor {
+
+    private final GitHubMetrics metrics;
+
+    public GitHubMetricsInterceptor(GitHubMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = endpointOf(request.url());
+        long requestBytes = request.body() != null ? request.body().contentLength() : 0;
+
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            metrics.recordRequest(request.method(), endpoint, -1, System.nanoTime() - start, requestBytes, -1);
+            throw e;
+        }
+        long latency = System.nanoTime() - start;
+
+        ResponseBody body = response.body();
+        if (body != null && body.contentLength() < 0) {
+            // Chunked or compressed, so the size is known only after the body is read
+            int code = response.code();
+            response = response.newBuilder()
+                    .body(new CountingResponseBody(body, bytes ->
+                            metrics.recordRequest(request.method(), endpoint, code, latency, requestBytes, bytes)))
+                    .build();
+        } else {
+            long responseBytes = body != null ? body.contentLength() : -1;
+            metrics.recordRequest(request.method(), endpoint, response.code(), latency, requestBytes, responseBytes);
+        }
+
+        String remaining = response.header("X-RateLimit-Remaining");
+        if (remaining != null) {
+            try {
+                metrics.recordRateLimitRemaining(Integer.parseInt(remaining));
+            } catch (NumberFormatException ignore) {
+                // Not a metric
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Counts the bytes of the response body as they are read, and reports the count once when the body is
+     * exhausted or closed.
+     */
+    static class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final LongConsumer onComplete;
+        private BufferedSource source;
+        private long bytes;
+        private boolean reported;
+
+        CountingResponseBody(ResponseBody delegate, LongConsumer onComplete) {
+            this.delegate = delegate;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read < 0) {
+                            report();
+                        } else {
+                            bytes += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        report();
+                        super.close();
+                    }
+                });
+            }
+            return source;
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                onComplete.accept(bytes);
+            }
+        }
+    }
+
+    /**
+     * Replaces the enterprise slug and resource ids in the path with placeholders to keep the number of endpoints small.
+     *
+     * @param url the request URL
+     * @return the endpoint such as "/scim/v2/enterprises/{enterprise}/Users/{id}"
+     */
+    static String endpointOf(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        StringBuilder sb = new StringBuilder();
+        String previous = "";
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            sb.append('/');
+            if (previous.equals("enterprises")) {
+                sb.append("{enterprise}");
+            } else if (previous.equals("Users") || previous.equals("Groups")) {
+                sb.append("{id}");
+            } else {
+                sb.append(segment);
+            }
+            previous = segment;
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import java.util.Map;
+
+/**
+ * JMX view of the GitHub API metrics of one enterprise.
+ * Keys of the request related maps are "METHOD endpoint".
+ *
+ * @author Hiroyuki Wada
+ */
+public interface GitHubMetricsMXBean {
+
+    /**
+     * @return the number of requests by "METHOD endpoint status"
+     */
+    Map<String, Long> getRequestCounts();
+
+    /**
+     * @return the cumulative latency histogram by "METHOD endpoint le=upper bound in milliseconds"
+     */
+    Map<String, Long> getLatencyHistogram();
+
+    Map<String, Double> getLatencyMeanMillis();
+
+    Map<String, Long> getLatencyMaxMillis();
+
+    /**
+     * @return the approximate 99th percentile latency from the histogram
+     */
+    Map<String, Long> getLatencyP99Millis();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    Map<String, Long> getRetryCounts();
+
+    int getRateLimitRemaining();
+
+    /**
+     * @return the number of searches by object type
+     */
+    Map<String, Long> getSearchCounts();
+
+    /**
+     * @return the number of pages fetched by searches by object type
+     */
+    Map<String, Long> getPageCounts();
+
+    void reset();
+}
@@ -0,0 +1,311 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.identityconnectors.common.logging.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Paces the requests to GitHub by the rate limit budget reported in the X-RateLimit-* response headers.
+ * <p>
+ * One scheduler is shared by all connector instances for the same enterprise and access token, so that parallel
+ * tasks drain one budget together instead of hitting the limit at once and sleeping until the reset.
+ * <ul>
+ *     <li>Interactive requests (fetching or updating one object) may use the whole budget</li>
+ *     <li>Bulk requests (listing pages) leave a reserve for interactive requests, yield to waiting interactive
+ *     requests and, once less than half of the limit remains, are spread evenly until the reset</li>
+ *     <li>A Retry-After of a secondary rate limit response pauses every request</li>
+ *     <li>After the reset, a single probe request is sent until its response tells the new budget</li>
+ * </ul>
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubRateLimitScheduler {
+
+    private static final Log LOGGER = Log.getLog(GitHubRateLimitScheduler.class);
+
+    private static final ConcurrentMap<String, GitHubRateLimitScheduler> SCHEDULERS = new ConcurrentHashMap<>();
+
+    // Bulk requests re-check after this while interactive requests are waiting
+    private static final long YIELD_MILLIS = 10;
+    private static final long LOG_WAIT_THRESHOLD_MILLIS = 1000;
+    // Requests waiting for the probe re-check after this in case its response is lost
+    private static final long PROBE_WAIT_MILLIS = 1000;
+
+    public enum Priority {
+        INTERACTIVE,
+        BULK
+    }
+
+    // -1 means unknown until the first response which has the rate limit headers
+    private int limit = -1;
+    private int remaining = -1;
+    private long resetAtMillis;
+    private long pausedUntilMillis;
+    private long nextBulkAtMillis;
+    private int waitingInteractive;
+    // Set at the reset until a response tells the new budget
+    private boolean awaitingBudget;
+    private boolean probing;
+
+    GitHubRateLimitScheduler() {
+    }
+
+    /**
+     * Returns the scheduler shared for the given enterprise.
+     *
+     * @param enterpriseKey the key which identifies the enterprise and the budget (e.g. endpoint URL, enterprise slug
+     *                      and a hash of the access token)
+     * @return the scheduler
+     */
+    public static GitHubRateLimitScheduler forEnterprise(String enterpriseKey) {
+        return SCHEDULERS.computeIfAbsent(enterpriseKey, k -> new GitHubRateLimitScheduler());
+    }
+
+    /**
+     * Listing SCIM users/groups or Copilot seats is bulk. Everything else, including a search by filter, is interactive.
+     *
+     * @param request the request
+     * @return the priority of the request
+     */
+    static Priority priorityOf(Request request) {
+        if (!"GET".equals(request.method()) || request.url().queryParameter("filter") != null) {
+            return Priority.INTERACTIVE;
+        }
+        String path = request.url().encodedPath();
+        if (path.endsWith("/Users") || path.endsWith("/Groups") || path.endsWith("/copilot/billing/seats")) {
+            return Priority.BULK;
+        }
+        return Priority.INTERACTIVE;
+    }
+
+    /**
+     * Returns an interceptor which waits for the budget before each request and reads the budget from each response.
+     *
+     * @param reservePercent the percentage of the limit reserved for interactive requests
+     * @return the interceptor
+     */
+    public Interceptor newInterceptor(int reservePercent) {
+        return chain -> {
+            Request request = chain.request();
+            boolean probe;
+            try {
+                probe = acquire(priorityOf(request), reservePercent);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for GitHub API rate limit budget");
+            }
+
+            try {
+                Response response = chain.proceed(request);
+                onResponse(response);
+                return response;
+            } finally {
+                if (probe) {
+                    probeCompleted();
+                }
+            }
+        };
+    }
+
+    /**
+     * Waits until the request can be sent.
+     *
+     * @param priority       the priority of the request
+     * @param reservePercent the percentage of the limit reserved for interactive requests
+     * @return true if the request is the probe after the reset, whose completion must be told by {@link #probeCompleted()}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean acquire(Priority priority, int reservePercent) throws InterruptedException {
+        boolean interactive = priority == Priority.INTERACTIVE;
+        if (interactive) {
+            waitingInteractive++;
+        }
+        try {
+            boolean logged = false;
+            while (true) {
+                long now = System.currentTimeMillis();
+                long waitMillis = computeWait(priority, reservePercent, now);
+                if (waitMillis <= 0) {
+                    return grant(priority, reservePercent, now);
+                }
+                if (!logged && waitMillis >= LOG_WAIT_THRESHOLD_MILLIS) {
+                    LOGGER.info("Waiting {0} ms for GitHub API rate limit budget, priority: {1}, remaining: {2}/{3}",
+                            waitMillis, priority, remaining, limit);
+                    logged = true;
+                }
+                wait(waitMillis);
+            }
+        } finally {
+            if (interactive) {
+                waitingInteractive--;
+                notifyAll();
+            }
+        }
+    }
+
+    private long computeWait(Priority priority, int reservePercent, long now) {
+        if (pausedUntilMillis > now) {
+            return pausedUntilMillis - now;
+        }
+        if (remaining >= 0 && resetAtMillis <= now) {
+            // The budget has been refilled. It becomes known again with the next response.
+            remaining = -1;
+            nextBulkAtMillis = 0;
+            awaitingBudget = true;
+        }
+        if (remaining < 0) {
+            // Only one request goes after the reset, instead of every waiting request at once
+            return awaitingBudget && probing ? PROBE_WAIT_MILLIS : 0;
+        }
+
+        if (priority == Priority.INTERACTIVE) {
+            return remaining > 0 ? 0 : resetAtMillis - now;
+        }
+
+        if (waitingInteractive > 0) {
+            return YIELD_MILLIS;
+        }
+        if (available(reservePercent) <= 0) {
+            return resetAtMillis - now;
+        }
+        if (nextBulkAtMillis > now) {
+            return nextBulkAtMillis - now;
+        }
+        return 0;
+    }
+
+    private boolean grant(Priority priority, int reservePercent, long now) {
+        if (remaining < 0 && awaitingBudget) {
+            probing = true;
+            return true;
+        }
+        if (remaining <= 0) {
+            return false;
+        }
+        remaining--;
+
+        if (priority == Priority.BULK && remaining < limit / 2) {
+            // Spread the rest of the budget evenly until the reset
+            nextBulkAtMillis = now + (resetAtMillis - now) / Math.max(1, available(reservePercent));
+        }
+        return false;
+    }
+
+    /**
+     * Tells that the probe after the reset has completed. If its response didn't tell the budget
+     * (e.g. it failed), the next waiting request becomes the probe.
+     */
+    synchronized void probeCompleted() {
+        probing = false;
+        notifyAll();
+    }
+
+    private int available(int reservePercent) {
+        int percent = Math.max(0, Math.min(100, reservePercent));
+        return remaining - limit * percent / 100;
+    }
+
+    void onResponse(Response response) {
+        String limitHeader = response.header("X-RateLimit-Limit");
+        String remainingHeader = response.header("X-RateLimit-Remaining");
+        String resetHeader = response.header("X-RateLimit-Reset");
+        String resource = response.header("X-RateLimit-Resource");
+
+        // Other resources (e.g. search) have their own budget
+        if (limitHeader != null && remainingHeader != null && resetHeader != null
+                && (resource == null || resource.equals("core"))) {
+            try {
+                update(Integer.parseInt(limitHeader), Integer.parseInt(remainingHeader), Long.parseLong(resetHeader));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignored invalid rate limit headers: {0}, {1}, {2}", limitHeader, remainingHeader, resetHeader);
+            }
+        }
+
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null && (response.code() == 403 || response.code() == 429)) {
+            try {
+                pause(System.currentTimeMillis() + Long.parseLong(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignored invalid Retry-After header: {0}", retryAfter);
+            }
+        }
+    }
+
+    /**
+     * Updates the budget.
+     *
+     * @param limit              X-RateLimit-Limit
+     * @param remaining          X-RateLimit-Remaining
+     * @param resetEpochSeconds  X-RateLimit-Reset
+     */
+    synchronized void update(int limit, int remaining, long resetEpochSeconds) {
+        long resetAt = resetEpochSeconds * 1000;
+        if (this.remaining < 0 || resetAt > resetAtMillis) {
+            // New window
+            this.resetAtMillis = resetAt;
+            this.remaining = remaining;
+            this.nextBulkAtMillis = 0;
+        } else if (resetAt == resetAtMillis) {
+            // Responses can arrive out of order. Other clients may consume the same budget.
+            this.remaining = Math.min(this.remaining, remaining);
+        }
+        this.limit = limit;
+        this.awaitingBudget = false;
+        notifyAll();
+    }
+
+    synchronized void pause(long untilMillis) {
+        if (untilMillis > pausedUntilMillis) {
+            pausedUntilMillis = untilMillis;
+            LOGGER.info("Pausing GitHub API requests for {0} ms by Retry-After", untilMillis - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns the remaining budget known by the latest response.
+     *
+     * @return the remaining budget, or -1 if unknown
+     */
+    public synchronized int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Returns the limit known by the latest response.
+     *
+     * @return the limit, or -1 if unknown
+     */
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns when the budget is refilled.
+     *
+     * @return the epoch millis of the reset, or 0 if unknown
+     */
+    public synchronized long getResetAtMillis() {
+        return resetAtMillis;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.identityconnectors.common.logging.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+/**
+ * Retries the transient failures of each HTTP exchange with GitHub by {@link GitHubRetryPolicy}.
+ * <p>
+ * It retries each request (e.g. one page of a listing) instead of the whole connector operation, so a listing doesn't
+ * return the same resources twice after a retry. It's added before the rate limit scheduler, so a retry waits for the
+ * budget again.
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubRetryInterceptor implements Interceptor {
+
+    private static final Log LOGGER = Log.getLog(GitHubRetryInterceptor.class);
+
+    // Enough to find the rate limit message of a 403
+    private static final long PEEK_BODY_BYTES = 4096;
+
+    private final GitHubRetryPolicy policy;
+    private final GitHubMetrics metrics;
+
+    public GitHubRetryInterceptor(GitHubRetryPolicy policy, GitHubMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        GitHubRetryPolicy.Operation operation = GitHubRetryPolicy.operationOf(request.method());
+
+        long previousDelay = 0;
+        for (int attempt = 1; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (SocketTimeoutException | ConnectException e) {
+                long delay = policy.nextDelay(operation, GitHubRetryPolicy.Failure.CONNECTION_ERROR, attempt, previousDelay, -1);
+                if (delay < 0) {
+                    throw e;
+                }
+                LOGGER.info("Retrying {0} {1} in {2} ms after connection error: {3}",
+                        request.method(), request.url().encodedPath(), delay, e.toString());
+                sleep(delay, "connection_error");
+                previousDelay = delay;
+                continue;
+            }
+
+            if (response.isSuccessful()) {
+                return response;
+            }
+
+            String body = response.code() == 403 ? response.peekBody(PEEK_BODY_BYTES).string() : null;
+            GitHubRetryPolicy.Failure failure = GitHubRetryPolicy.failureOf(response.code(), response::header, body);
+            if (failure == null) {
+                return response;
+            }
+            long delay = policy.nextDelay(operation, failure, attempt, previousDelay,
+                    GitHubRetryPolicy.retryAfterOf(response::header, System.currentTimeMillis()));
+            if (delay < 0) {
+                return response;
+            }
+
+            LOGGER.info("Retrying {0} {1} in {2} ms after {3} response",
+                    request.method(), request.url().encodedPath(), delay, response.code());
+            response.close();
+            sleep(delay, failure == GitHubRetryPolicy.Failure.THROTTLED ? "throttled" : "server_error");
+            previousDelay = delay;
+        }
+    }
+
+    private void sleep(long delay, String reason) throws InterruptedIOException {
+        metrics.recordRetry(reason);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry the GitHub API request");
+        }
+    }
+}
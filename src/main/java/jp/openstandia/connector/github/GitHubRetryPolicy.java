@@ -0,0 +1,246 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether and when a failed GitHub API request is retried.
+ * <ul>
+ *     <li>The delay honors Retry-After (or the rate limit reset) when GitHub tells it, otherwise it is a decorrelated
+ *     jittered backoff between the base delay and three times the previous delay</li>
+ *     <li>Whether a failure is retried depends on the operation: a create (POST) is retried only when it was
+ *     throttled, because a server or connection error may have created the resource already</li>
+ *     <li>The retries are limited by a budget per minute, so a persistent outage doesn't multiply the requests</li>
+ * </ul>
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubRetryPolicy {
+
+    public enum Operation {
+        READ,
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    public enum Failure {
+        // 429, or 403 of the primary/secondary rate limit. GitHub didn't process the request.
+        THROTTLED,
+        // 5xx
+        SERVER_ERROR,
+        // Timeout or connection failure
+        CONNECTION_ERROR
+    }
+
+    static final long BUDGET_WINDOW_MILLIS = 60000;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int budgetPerMinute;
+    private final LongSupplier clock;
+
+    private long budgetWindowStart;
+    private int budgetUsed;
+
+    public GitHubRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, int budgetPerMinute) {
+        this(maxAttempts, baseDelayMillis, maxDelayMillis, budgetPerMinute, System::currentTimeMillis);
+    }
+
+    GitHubRetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, int budgetPerMinute, LongSupplier clock) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.budgetPerMinute = budgetPerMinute;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns whether the failure of the operation can be retried without a side effect.
+     *
+     * @param operation the operation
+     * @param failure   the failure
+     * @return true if it can be retried
+     */
+    public static boolean isRetryable(Operation operation, Failure failure) {
+        if (failure == null) {
+            return false;
+        }
+        if (operation == Operation.CREATE) {
+            return failure == Failure.THROTTLED;
+        }
+        // Reads, SCIM PATCH and DELETE have the same result when they are sent again
+        return true;
+    }
+
+    /**
+     * Returns the delay before the next attempt.
+     *
+     * @param operation        the operation
+     * @param failure          the failure of the last attempt, or null if it isn't a transient failure
+     * @param attempt          the number of the attempts so far (1 for the first failure)
+     * @param previousDelay    the delay before the last attempt, 0 for the first failure
+     * @param retryAfterMillis the delay told by GitHub, or a negative value if not told
+     * @return the delay in milliseconds, or -1 if the request must not be retried
+     */
+    public long nextDelay(Operation operation, Failure failure, int attempt, long previousDelay, long retryAfterMillis) {
+        if (attempt > maxAttempts || !isRetryable(operation, failure)) {
+            return -1;
+        }
+
+        long delay;
+        if (retryAfterMillis >= 0) {
+            // Waiting longer than the max delay would block the IDM task, return the failure instead
+            if (retryAfterMillis > maxDelayMillis) {
+                return -1;
+            }
+            delay = retryAfterMillis;
+        } else {
+            long upper = Math.max(baseDelayMillis, previousDelay * 3);
+            delay = Math.min(maxDelayMillis, ThreadLocalRandom.current().nextLong(baseDelayMillis, upper + 1));
+        }
+
+        if (!acquireBudget()) {
+            return -1;
+        }
+        return delay;
+    }
+
+    private synchronized boolean acquireBudget() {
+        long now = clock.getAsLong();
+        if (now - budgetWindowStart >= BUDGET_WINDOW_MILLIS) {
+            budgetWindowStart = now;
+            budgetUsed = 0;
+        }
+        if (budgetUsed >= budgetPerMinute) {
+            return false;
+        }
+        budgetUsed++;
+        return true;
+    }
+
+    /**
+     * Returns the operation of the HTTP method to decide whether it's idempotent.
+     *
+     * @param method the HTTP method
+     * @return the operation
+     */
+    public static Operation operationOf(String method) {
+        switch (method) {
+            case "POST":
+                return Operation.CREATE;
+            case "PATCH":
+            case "PUT":
+                return Operation.UPDATE;
+            case "DELETE":
+                return Operation.DELETE;
+            default:
+                return Operation.READ;
+        }
+    }
+
+    /**
+     * Classifies the error response.
+     * A 403 is a rate limit only when GitHub tells so. Other 403s are permission errors and never retried.
+     *
+     * @param statusCode the HTTP status code
+     * @param headers    returns the response header of the name, or null
+     * @param body       the beginning of the response body, or null
+     * @return the transient failure, or null if the response isn't a transient failure
+     */
+    public static Failure failureOf(int statusCode, Function<String, String> headers, String body) {
+        if (statusCode == 429) {
+            return Failure.THROTTLED;
+        }
+        if (statusCode == 403 && isRateLimited(headers, body)) {
+            return Failure.THROTTLED;
+        }
+        if (statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504) {
+            return Failure.SERVER_ERROR;
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the 403 response is caused by the primary or secondary rate limit.
+     *
+     * @param headers returns the response header of the name, or null
+     * @param body    the beginning of the response body, or null
+     * @return true if it's a rate limit
+     */
+    public static boolean isRateLimited(Function<String, String> headers, String body) {
+        if (headers.apply("Retry-After") != null || "0".equals(headers.apply("X-RateLimit-Remaining"))) {
+            return true;
+        }
+        return body != null && body.toLowerCase(Locale.ROOT).contains("rate limit");
+    }
+
+    /**
+     * Returns the delay which GitHub tells by Retry-After, or by X-RateLimit-Reset when the primary rate limit
+     * is exhausted.
+     *
+     * @param headers   returns the response header of the name, or null
+     * @param nowMillis the current time
+     * @return the delay in milliseconds, or -1 if not told
+     */
+    public static long retryAfterOf(Function<String, String> headers, long nowMillis) {
+        long retryAfter = parseRetryAfter(headers.apply("Retry-After"), nowMillis);
+        if (retryAfter >= 0) {
+            return retryAfter;
+        }
+        String reset = headers.apply("X-RateLimit-Reset");
+        if (reset != null && "0".equals(headers.apply("X-RateLimit-Remaining"))) {
+            try {
+                return Math.max(0, Long.parseLong(reset.trim()) * 1000 - nowMillis);
+            } catch (NumberFormatException ignore) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the Retry-After header, which is either seconds or an HTTP date.
+     *
+     * @param value     the header value
+     * @param nowMillis the current time
+     * @return the delay in milliseconds, or -1 if the value is missing or invalid
+     */
+    public static long parseRetryAfter(String value, long nowMillis) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        String v = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(v) * 1000);
+        } catch (NumberFormatException ignore) {
+        }
+        try {
+            long at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - nowMillis);
+        } catch (DateTimeParseException ignore) {
+            return -1;
+        }
+    }
+}
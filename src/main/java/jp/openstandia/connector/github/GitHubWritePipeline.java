@@ -0,0 +1,160 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.exceptions.RetryableException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Caps the write operations (create, patch and delete) in flight for one enterprise with adaptive concurrency.
+ * <p>
+ * GitHub EMU doesn't provide the SCIM /Bulk endpoint, so each operation is still one request. The operations from
+ * concurrent connector calls wait here and are sent with up to the configured concurrency, which is adjusted by
+ * AIMD (additive increase, multiplicative decrease):
+ * <ul>
+ *     <li>Each round of successful responses raises the concurrency by one up to the maximum</li>
+ *     <li>A throttled response (429) halves the concurrency and holds the queue for an exponential backoff</li>
+ * </ul>
+ * Each operation runs on the caller's thread, so the caller gets its own result or exception.
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubWritePipeline {
+
+    private static final Log LOGGER = Log.getLog(GitHubWritePipeline.class);
+
+    private static final ConcurrentMap<String, GitHubWritePipeline> PIPELINES = new ConcurrentHashMap<>();
+
+    static final long INITIAL_BACKOFF_MILLIS = 1000;
+    static final long MAX_BACKOFF_MILLIS = 60000;
+
+    private final int maxConcurrency;
+    private final long initialBackoffMillis;
+
+    private int concurrency;
+    private int inFlight;
+    private int successes;
+    private long backoffMillis;
+    private long resumeAtMillis;
+
+    GitHubWritePipeline(int maxConcurrency, long initialBackoffMillis) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.concurrency = this.maxConcurrency;
+    }
+
+    /**
+     * Returns the pipeline shared for the given enterprise and maximum concurrency.
+     * Connector instances configured with another maximum concurrency get their own pipeline, so they never take
+     * over the permits of the pipeline in use.
+     *
+     * @param enterpriseKey  the key which identifies the enterprise (e.g. endpoint URL and enterprise slug)
+     * @param maxConcurrency the maximum number of write requests in flight
+     * @return the pipeline
+     */
+    public static GitHubWritePipeline forEnterprise(String enterpriseKey, int maxConcurrency) {
+        int max = Math.max(1, maxConcurrency);
+        return PIPELINES.computeIfAbsent(enterpriseKey + "|" + max, k -> new GitHubWritePipeline(max, INITIAL_BACKOFF_MILLIS));
+    }
+
+    /**
+     * Runs the operation once the pipeline has room for it.
+     *
+     * @param operation the write operation, which throws {@link RetryableException} only when GitHub throttles it.
+     *                  Other failures, e.g. an open circuit breaker, neither decrease the concurrency nor back off.
+     * @param <T>       the type of the result
+     * @return the result of the operation
+     */
+    public <T> T execute(Supplier<T> operation) {
+        try {
+            acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Interrupted while waiting for the GitHub write pipeline", e);
+        }
+
+        boolean throttled = false;
+        try {
+            return operation.get();
+        } catch (RetryableException e) {
+            throttled = true;
+            throw e;
+        } finally {
+            release(throttled);
+        }
+    }
+
+    synchronized void acquire() throws InterruptedException {
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (resumeAtMillis > now) {
+                wait(resumeAtMillis - now);
+                continue;
+            }
+            if (inFlight < concurrency) {
+                inFlight++;
+                return;
+            }
+            wait();
+        }
+    }
+
+    synchronized void release(boolean throttled) {
+        inFlight--;
+
+        if (throttled) {
+            long now = System.currentTimeMillis();
+            // The other requests of the same burst are throttled too. Decrease once per backoff.
+            if (resumeAtMillis <= now) {
+                concurrency = Math.max(1, concurrency / 2);
+                successes = 0;
+                backoffMillis = backoffMillis == 0 ? initialBackoffMillis : Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+                resumeAtMillis = now + backoffMillis;
+                LOGGER.info("GitHub throttled write requests, concurrency: {0}, backing off {1} ms", concurrency, backoffMillis);
+            }
+        } else {
+            backoffMillis = 0;
+            if (concurrency < maxConcurrency && ++successes >= concurrency) {
+                concurrency++;
+                successes = 0;
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return the number of write requests which may be in flight
+     */
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Returns the number of write requests in flight.
+     *
+     * @return the number of write requests in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -15,12 +15,26 @@
  */
 package jp.openstandia.connector.github.rest;
 
+import jp.openstandia.connector.github.GitHubCircuitBreaker;
 import jp.openstandia.connector.github.GitHubClient;
 import jp.openstandia.connector.github.GitHubEMUConfiguration;
 import jp.openstandia.connector.github.GitHubEMUSchema;
+import jp.openstandia.connector.github.GitHubFilter;
+import jp.openstandia.connector.github.GitHubGroupPatchCoalescer;
+import jp.openstandia.connector.github.GitHubHttpClientRegistry;
+import jp.openstandia.connector.github.GitHubMetrics;
+import jp.openstandia.connector.github.GitHubMetricsInterceptor;
+import jp.openstandia.connector.github.GitHubRateLimitScheduler;
+import jp.openstandia.connector.github.GitHubRetryInterceptor;
+import jp.openstandia.connector.github.GitHubRetryPolicy;
+import jp.openstandia.connector.github.GitHubWritePipeline;
+import jp.openstandia.connector.util.FilteredQueryHandler;
 import jp.openstandia.connector.util.QueryHandler;
+import jp.openstandia.connector.util.TrackingQueryHandler;
+import okhttp3.OkHttpClient;
 import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.common.security.SecurityUtil;
 import org.identityconnectors.framework.common.exceptions.*;
 import org.identityconnectors.framework.common.objects.Name;
 import org.identityconnectors.framework.common.objects.OperationOptions;
@@ -29,10 +43,21 @@ import org.kohsuke.github.*;
 import org.kohsuke.github.extras.okhttp3.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * GitHub EMU client implementation which uses Java API for GitHub.
@@ -44,15 +69,31 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
 
     private static final Log LOGGER = Log.getLog(GitHubEMURESTClient.class);
 
+    private static final BooleanSupplier NOT_RETRYABLE = () -> false;
+
+    // The attributes which GitHub EMU supports in the SCIM "eq" filter
+    static final Set<String> USER_FILTERABLE_ATTRIBUTES = new HashSet<>(Arrays.asList("id", "userName", "externalId", "displayName"));
+    static final Set<String> GROUP_FILTERABLE_ATTRIBUTES = new HashSet<>(Arrays.asList("id", "externalId", "displayName"));
+
     private final GitHubEMUConfiguration configuration;
     private String instanceName;
     private GitHubExt apiClient;
     private long lastAuthenticated;
+    // The last time GitHub answered a call successfully, which proves the client is alive
+    private volatile long lastSucceeded;
+    private boolean closed;
+    // Long-lived HTTP client shared with other connector instances which have the same HTTP settings
+    private OkHttpClient httpClient;
+    // Created on demand for prefetching the following SCIM pages
+    private ExecutorService prefetchExecutor;
+    private GitHubMetrics metrics;
+    // The retry budget is per connector instance, so it survives re-authentication
+    private GitHubRetryPolicy retryPolicy;
     GHEnterpriseExt enterpriseApiClient;
 
     public GitHubEMURESTClient(GitHubEMUConfiguration configuration) {
         this.configuration = configuration;
-        auth();
+        // The HTTP client and the API client are created on first use
     }
 
     @Override
@@ -69,11 +110,39 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
                 apiClient.checkApiUrlValidity();
                 return null;
             });
+
+            GitHubRateLimitScheduler scheduler = getRateLimitScheduler();
+            if (scheduler != null) {
+                LOGGER.info("[{0}] GitHub API rate limit budget: {1}/{2}", instanceName, scheduler.getRemaining(), scheduler.getLimit());
+            }
         } catch (RuntimeException e) {
             throw new ConnectorException("This GitHub EMU connector isn't active.", e);
         }
     }
 
+    @Override
+    public void checkAlive() {
+        if (closed) {
+            throw new ConnectorException("This GitHub EMU connector is already closed.");
+        }
+        if (apiClient == null) {
+            // Not used yet, nothing to check
+            return;
+        }
+        long interval = configuration.getAliveCheckIntervalInSeconds() * 1000L;
+        if (interval <= 0 || System.currentTimeMillis() - lastSucceeded < interval) {
+            // Reuse the result of the recent calls
+            return;
+        }
+
+        LOGGER.ok("[{0}] Checking GitHub EMU API connection", instanceName);
+        withAuth(() -> {
+            // Doesn't count against the rate limit
+            apiClient.checkRateLimitApi();
+            return null;
+        });
+    }
+
     private static class UnauthorizedException extends ConnectionFailedException {
         public UnauthorizedException(Exception e) {
             super(e);
@@ -87,16 +156,51 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
             accessToken.set(String.valueOf(val));
         });
 
+        if (httpClient == null) {
+            httpClient = GitHubHttpClientRegistry.getInstance().acquire(configuration, this::createClient);
+        }
+
         try {
+            // The shared HTTP client is decorated per enterprise. It still shares the connection pool.
+            OkHttpClient client = httpClient;
+            GitHubRateLimitScheduler scheduler = getRateLimitScheduler();
+            GitHubMetrics apiMetrics = getMetrics();
+            GitHubRetryPolicy retry = getRetryPolicy();
+            GitHubCircuitBreaker circuitBreaker = getCircuitBreaker();
+            if (scheduler != null || apiMetrics != GitHubMetrics.NOOP || retry != null || circuitBreaker != null) {
+                OkHttpClient.Builder clientBuilder = httpClient.newBuilder();
+                if (retry != null) {
+                    // Outside of the scheduler, so a retry waits for the budget again
+                    clientBuilder.addInterceptor(new GitHubRetryInterceptor(retry, apiMetrics));
+                }
+                if (circuitBreaker != null) {
+                    // Inside of the retry to count each attempt, and the probe requests the API root which isn't guarded
+                    clientBuilder.addInterceptor(circuitBreaker.newInterceptor(this::test));
+                }
+                if (scheduler != null) {
+                    clientBuilder.addInterceptor(scheduler.newInterceptor(configuration.getRateLimitReservePercent()));
+                }
+                if (apiMetrics != GitHubMetrics.NOOP) {
+                    // Inside of the scheduler not to measure the time waiting for the budget
+                    clientBuilder.addInterceptor(new GitHubMetricsInterceptor(apiMetrics));
+                }
+                client = clientBuilder.build();
+            }
+
             GitHubBuilder builder = new GitHubBuilder()
-                    .withConnector(new OkHttpConnector(createClient(configuration)))
+                    .withConnector(new OkHttpConnector(client))
                     .withOAuthToken(accessToken.get());
 
             if (!StringUtil.isEmpty(configuration.getEndpointURL())) {
                 builder = builder.withEndpoint(configuration.getEndpointURL());
             }
 
-            apiClient = GitHubExt.build(builder);
+            if (scheduler != null) {
+                // The scheduler waits for the budget before retrying, so the handlers don't block
+                apiClient = GitHubExt.build(builder, GitHubExt.RATE_LIMIT_RETRY, GitHubExt.ABUSE_LIMIT_RETRY);
+            } else {
+                apiClient = GitHubExt.build(builder);
+            }
             lastAuthenticated = System.currentTimeMillis();
 
             enterpriseApiClient = apiClient.getEnterprise(configuration.getEnterpriseSlug());
@@ -109,6 +213,13 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
     protected ConnectorException handleApiException(Exception e) {
         String statusCode = "";
 
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof GitHubCircuitBreaker.OpenException) {
+                // Not RetryableException, which is reserved for throttling (the write pipeline backs off on it)
+                return new ConnectionFailedException("GitHub API is unavailable, failing fast", e);
+            }
+        }
+
         if (e instanceof GHFileNotFoundException) {
             GHFileNotFoundException gfe = (GHFileNotFoundException) e;
             List<String> status = gfe.getResponseHeaderFields().get(null);
@@ -126,7 +237,9 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
             }
 
             if (statusCode.contains("403")) {
-                // Including Rate limit error
+                if (GitHubRetryPolicy.isRateLimited(name -> getHeader(gfe, name), gfe.getMessage())) {
+                    return RetryableException.wrap("Rate limit exceeded", e);
+                }
                 return new PermissionDeniedException(e);
             }
 
@@ -152,44 +265,111 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
         return new ConnectorIOException("Failed to call GitHub EMU API", e);
     }
 
+    private static String getHeader(GHFileNotFoundException e, String name) {
+        Map<String, List<String>> headers = e.getResponseHeaderFields();
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
     protected <T> T withAuth(Callable<T> callable) {
+        return withAuth(() -> true, callable);
+    }
+
+    /**
+     * Calls the API, re-authenticating once when GitHub returns 401.
+     *
+     * @param retryable tells whether the call can be sent again after a 401 response. The queries can't once they have
+     *                  passed resources to the caller, and the creations aren't idempotent.
+     * @param callable  the API call
+     * @param <T>       the type of the result
+     * @return the result of the call
+     */
+    protected <T> T withAuth(BooleanSupplier retryable, Callable<T> callable) {
         // Currently, the access token for EMU must have no expiration
         // https://docs.github.com/en/enterprise-cloud@latest/admin/managing-iam/understanding-iam-for-enterprises/getting-started-with-enterprise-managed-users#create-a-personal-access-token
-        if (lastAuthenticated != 0) {
+        // So we reuse the authenticated client and re-authenticate only when the configured TTL expires or 401 is returned.
+        if (apiClient == null || isAuthExpired()) {
             auth();
         }
 
         try {
-            return callable.call();
+            T result = callable.call();
+            lastSucceeded = System.currentTimeMillis();
+            return result;
+
+        } catch (Exception e) {
+            ConnectorException ce = handleApiException(e);
+            if (!(ce instanceof UnauthorizedException)) {
+                throw ce;
+            }
+            if (!retryable.getAsBoolean()) {
+                // Re-authenticate for the following calls, but let the caller decide about this one
+                LOGGER.info("[{0}] Re-authenticating GitHub EMU API because of 401 response, the call isn't retried", instanceName);
+                auth();
+                throw ce;
+            }
+        }
+
+        LOGGER.info("[{0}] Re-authenticating GitHub EMU API because of 401 response", instanceName);
+        getMetrics().recordRetry("unauthorized");
+        auth();
+
+        try {
+            T result = callable.call();
+            lastSucceeded = System.currentTimeMillis();
+            return result;
 
         } catch (Exception e) {
             throw handleApiException(e);
         }
     }
 
+    private boolean isAuthExpired() {
+        if (lastAuthenticated == 0) {
+            return false;
+        }
+        int ttl = configuration.getAuthTokenTTLInSeconds();
+        if (ttl <= 0) {
+            return false;
+        }
+        return System.currentTimeMillis() - lastAuthenticated >= ttl * 1000L;
+    }
+
     @Override
     public Uid createEMUUser(SCIMEMUUser newUser) throws AlreadyExistsException {
-        return withAuth(() -> {
+        return write(() -> withAuth(NOT_RETRYABLE, () -> {
             SCIMEMUUser created = enterpriseApiClient.createSCIMEMUUser(newUser);
 
             return new Uid(created.id, new Name(created.userName));
-        });
+        }));
     }
 
     @Override
     public void patchEMUUser(Uid uid, SCIMPatchOperations operations) throws UnknownUidException {
-        withAuth(() -> {
+        write(() -> withAuth(() -> {
             SCIMEMUUser updated = enterpriseApiClient.updateSCIMEMUUser(uid.getUidValue(), operations);
             return updated;
-        });
+        }));
     }
 
     @Override
     public void deleteEMUUser(Uid uid, OperationOptions options) throws UnknownUidException {
-        withAuth(() -> {
+        write(() -> withAuth(() -> {
             enterpriseApiClient.deleteSCIMUser(uid.getUidValue());
+
+            SCIMEMUGroupMembershipIndex index = getGroupMembershipIndex();
+            if (index != null) {
+                index.removeMember(uid.getUidValue());
+            }
             return null;
-        });
+        }));
     }
 
     @Override
@@ -209,17 +389,31 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
     }
 
     @Override
-    public int getEMUUsers(QueryHandler<SCIMEMUUser> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
-        return withAuth(() -> {
+    public int getEMUUsers(QueryHandler<SCIMEMUUser> resultsHandler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        TrackingQueryHandler<SCIMEMUUser> handler = new TrackingQueryHandler<>(resultsHandler);
+        return withAuth(handler::isNothingHandled, () -> {
             SCIMPagedSearchIterable<SCIMEMUUser> iterable = enterpriseApiClient.listSCIMUsers(pageSize, pageOffset);
 
+            if (configuration.isStreamingQuery()) {
+                int total = iterable.stream(toTopLevelAttributes(fetchFieldsSet), handler::handle);
+                getMetrics().recordPages("EMUUser", iterable.getPageCount());
+                return total;
+            }
+
             // 0 means no offset (requested all data)
             if (pageOffset < 1) {
-                for (SCIMEMUUser next : iterable) {
-                    if (!handler.handle(next)) {
-                        break;
+                withPrefetch(iterable);
+                try {
+                    for (SCIMEMUUser next : iterable) {
+                        if (!handler.handle(next)) {
+                            break;
+                        }
                     }
+                } finally {
+                    // Cancel the pages still being prefetched when stopped early
+                    iterable.close();
                 }
+                getMetrics().recordPages("EMUUser", iterable.getPageCount());
                 return iterable.getTotalCount();
             }
 
@@ -240,35 +434,159 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
         });
     }
 
+    @Override
+    public int getEMUUsers(GitHubFilter filter, QueryHandler<SCIMEMUUser> resultsHandler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        TrackingQueryHandler<SCIMEMUUser> handler = new TrackingQueryHandler<>(resultsHandler);
+        List<String> expressions = toSCIMFilterExpressions(filter, USER_FILTERABLE_ATTRIBUTES);
+        if (expressions == null) {
+            return GitHubClient.super.getEMUUsers(filter, handler, options, fetchFieldsSet, pageSize, pageOffset);
+        }
+        return withAuth(handler::isNothingHandled, () -> {
+            Predicate<SCIMEMUUser> predicate = filter.toPredicate(GitHubClient::getSCIMValues);
+            FilteredQueryHandler<SCIMEMUUser> filtered = new FilteredQueryHandler<>(predicate, handler, pageSize, pageOffset);
+            Set<String> found = new HashSet<>();
+
+            for (String expression : expressions) {
+                SCIMPagedSearchIterable<SCIMEMUUser> iterable = enterpriseApiClient.listSCIMUsers(expression, configuration.getQueryPageSize(), 0);
+                for (SCIMEMUUser next : iterable) {
+                    // The branches of OR can find the same user
+                    if (found.add(next.id) && !filtered.handle(next)) {
+                        return filtered.getMatched();
+                    }
+                }
+                getMetrics().recordPages("EMUUser", iterable.getPageCount());
+            }
+            return filtered.getMatched();
+        });
+    }
+
     @Override
     public Uid createEMUGroup(GitHubEMUSchema schema, SCIMEMUGroup group) throws AlreadyExistsException {
-        return withAuth(() -> {
+        return write(() -> withAuth(NOT_RETRYABLE, () -> {
             SCIMEMUGroup created = enterpriseApiClient.createSCIMEMUGroup(group);
 
+            SCIMEMUGroupMembershipIndex index = getGroupMembershipIndex();
+            if (index != null) {
+                index.put(created);
+            }
+
             return new Uid(created.id, new Name(created.displayName));
-        });
+        }));
     }
 
     @Override
     public void patchEMUGroup(Uid uid, SCIMPatchOperations operations) throws UnknownUidException {
-        withAuth(() -> {
+        int window = configuration.getGroupPatchCoalesceWindowInMilliseconds();
+        if (window > 0) {
+            GitHubGroupPatchCoalescer.forEnterprise(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug())
+                    .patch(uid.getUidValue(), operations, window, merged -> sendEMUGroupPatch(uid, merged));
+            return;
+        }
+        sendEMUGroupPatch(uid, operations);
+    }
+
+    private void sendEMUGroupPatch(Uid uid, SCIMPatchOperations operations) {
+        List<SCIMPatchOperations> chunks = operations.chunkMembers(configuration.getMemberPatchChunkSize());
+        if (chunks.size() == 1) {
+            sendEMUGroupPatchRequest(uid, chunks.get(0));
+            return;
+        }
+
+        // Add and remove of members are idempotent, so the caller can retry the whole change if a chunk fails
+        int total = operations.countMembers();
+        int done = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            SCIMPatchOperations chunk = chunks.get(i);
+            sendEMUGroupPatchRequest(uid, chunk);
+            done += chunk.countMembers();
+            LOGGER.info("[{0}] Patched members of group {1}: {2}/{3} members, {4}/{5} requests",
+                    instanceName, uid.getUidValue(), done, total, i + 1, chunks.size());
+        }
+    }
+
+    private void sendEMUGroupPatchRequest(Uid uid, SCIMPatchOperations operations) {
+        write(() -> withAuth(() -> {
             SCIMEMUGroup updated = enterpriseApiClient.updateSCIMEMUGroup(uid.getUidValue(), operations);
+
+            SCIMEMUGroupMembershipIndex index = getGroupMembershipIndex();
+            if (index != null) {
+                if (updated != null && updated.id != null && updated.members != null) {
+                    index.put(updated);
+                } else {
+                    index.applyPatch(uid.getUidValue(), operations, getSCIMUsersURL());
+                }
+            }
             return updated;
-        });
+        }));
     }
 
     @Override
     public void deleteEMUGroup(Uid uid, OperationOptions options) throws UnknownUidException {
-        withAuth(() -> {
+        write(() -> withAuth(() -> {
             enterpriseApiClient.deleteSCIMGroup(uid.getUidValue());
+
+            SCIMEMUGroupMembershipIndex index = getGroupMembershipIndex();
+            if (index != null) {
+                index.remove(uid.getUidValue());
+            }
             return null;
+        }));
+    }
+
+    @Override
+    public int getEMUGroups(GitHubFilter filter, QueryHandler<SCIMEMUGroup> resultsHandler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        TrackingQueryHandler<SCIMEMUGroup> handler = new TrackingQueryHandler<>(resultsHandler);
+        List<String> expressions = toSCIMFilterExpressions(filter, GROUP_FILTERABLE_ATTRIBUTES);
+        if (expressions == null) {
+            return GitHubClient.super.getEMUGroups(filter, handler, options, fetchFieldsSet, pageSize, pageOffset);
+        }
+        return withAuth(handler::isNothingHandled, () -> {
+            Predicate<SCIMEMUGroup> predicate = filter.toPredicate(GitHubClient::getSCIMValues);
+            FilteredQueryHandler<SCIMEMUGroup> filtered = new FilteredQueryHandler<>(predicate, handler, pageSize, pageOffset);
+            Set<String> found = new HashSet<>();
+
+            for (String expression : expressions) {
+                SCIMPagedSearchIterable<SCIMEMUGroup> iterable = enterpriseApiClient.listSCIMGroups(expression,
+                        configuration.getQueryPageSize(), 0, toExcludedGroupAttributes(fetchFieldsSet));
+                for (SCIMEMUGroup next : iterable) {
+                    // The branches of OR can find the same group
+                    if (found.add(next.id) && !filtered.handle(next)) {
+                        return filtered.getMatched();
+                    }
+                }
+                getMetrics().recordPages("EMUGroup", iterable.getPageCount());
+            }
+            return filtered.getMatched();
+        });
+    }
+
+    @Override
+    public int getEMUGroupsByMembers(Set<String> memberIds, QueryHandler<SCIMEMUGroup> resultsHandler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        TrackingQueryHandler<SCIMEMUGroup> handler = new TrackingQueryHandler<>(resultsHandler);
+        SCIMEMUGroupMembershipIndex index = getGroupMembershipIndex();
+        if (index == null || pageOffset > 0) {
+            return GitHubClient.super.getEMUGroupsByMembers(memberIds, handler, options, fetchFieldsSet, pageSize, pageOffset);
+        }
+
+        return withAuth(handler::isNothingHandled, () -> {
+            List<SCIMEMUGroup> groups = index.findByMembers(memberIds,
+                    configuration.getGroupMembershipIndexTTLInSeconds() * 1000L, this::loadAllEMUGroups);
+            for (SCIMEMUGroup group : groups) {
+                if (!handler.handle(group)) {
+                    break;
+                }
+            }
+            return groups.size();
         });
     }
 
     @Override
     public SCIMEMUGroup getEMUGroup(Uid uid, OperationOptions options, Set<String> attributesToGet) {
         return withAuth(() -> {
-            SCIMEMUGroup scimEMUGroup = enterpriseApiClient.getSCIMEMUGroup(uid.getUidValue());
+            Set<String> excludedAttributes = toExcludedGroupAttributes(attributesToGet);
+            SCIMEMUGroup scimEMUGroup = excludedAttributes.isEmpty() ?
+                    enterpriseApiClient.getSCIMEMUGroup(uid.getUidValue()) :
+                    enterpriseApiClient.getSCIMEMUGroup(uid.getUidValue(), excludedAttributes);
             return scimEMUGroup;
         });
     }
@@ -276,7 +594,10 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
     @Override
     public SCIMEMUGroup getEMUGroup(Name name, OperationOptions options, Set<String> attributesToGet) {
         return withAuth(() -> {
-            SCIMEMUGroup scimEMUGroup = enterpriseApiClient.getSCIMEMUGroupByDisplayName(name.getNameValue());
+            Set<String> excludedAttributes = toExcludedGroupAttributes(attributesToGet);
+            SCIMEMUGroup scimEMUGroup = excludedAttributes.isEmpty() ?
+                    enterpriseApiClient.getSCIMEMUGroupByDisplayName(name.getNameValue()) :
+                    enterpriseApiClient.getSCIMEMUGroupByDisplayName(name.getNameValue(), excludedAttributes);
             return scimEMUGroup;
         });
     }
@@ -284,6 +605,10 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
     @Override
     public GitHubCopilotSeat getCopilotSeat(Uid uid, OperationOptions options, Set<String> attributesToGet) {
         return withAuth(() -> {
+            GitHubCopilotSeatIndex index = getCopilotSeatIndex();
+            if (index != null) {
+                return index.getById(uid.getUidValue(), getCopilotSeatIndexTTL(), getCopilotSeatIndexMissRefreshInterval(), this::loadAllCopilotSeats);
+            }
             GitHubCopilotSeat seat = enterpriseApiClient.getCopilotSeatByUid(uid.getUidValue());
             return seat;
         });
@@ -292,23 +617,40 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
     @Override
     public GitHubCopilotSeat getCopilotSeat(Name name, OperationOptions options, Set<String> attributesToGet) {
         return withAuth(() -> {
+            GitHubCopilotSeatIndex index = getCopilotSeatIndex();
+            if (index != null) {
+                return index.getByLogin(name.getNameValue(), getCopilotSeatIndexTTL(), getCopilotSeatIndexMissRefreshInterval(), this::loadAllCopilotSeats);
+            }
             GitHubCopilotSeat seat = enterpriseApiClient.getCopilotSeatByDisplayName(name.getNameValue());
             return seat;
         });
     }
 
     @Override
-    public int getCopilotSeats(QueryHandler<GitHubCopilotSeat> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
-        return withAuth(() -> {
+    public int getCopilotSeats(QueryHandler<GitHubCopilotSeat> resultsHandler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        TrackingQueryHandler<GitHubCopilotSeat> handler = new TrackingQueryHandler<>(resultsHandler);
+        return withAuth(handler::isNothingHandled, () -> {
             GitHubCopilotSeatPagedSearchIterable<GitHubCopilotSeat> iterable = enterpriseApiClient.listAllSeats(pageSize, pageOffset);
 
             // 0 means no offset (requested all data)
             if (pageOffset < 1) {
+                // A completed full sweep refreshes the seat index without extra API calls
+                GitHubCopilotSeatIndex index = getCopilotSeatIndex();
+                List<GitHubCopilotSeat> seats = index != null ? new ArrayList<>() : null;
+
                 for (GitHubCopilotSeat next : iterable) {
+                    if (seats != null) {
+                        seats.add(next);
+                    }
                     if (!handler.handle(next)) {
+                        seats = null;
                         break;
                     }
                 }
+                if (seats != null) {
+                    index.refresh(seats);
+                }
+                getMetrics().recordPages("GitHubCopilotSeat", iterable.getPageCount());
                 return iterable.getTotalSeats();
             }
 
@@ -329,17 +671,53 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
     }
 
     @Override
-    public int getEMUGroups(QueryHandler<SCIMEMUGroup> handler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
-        return withAuth(() -> {
-            SCIMPagedSearchIterable<SCIMEMUGroup> iterable = enterpriseApiClient.listSCIMGroups(pageSize, pageOffset);
+    public int getCopilotSeats(Predicate<GitHubCopilotSeat> filter, QueryHandler<GitHubCopilotSeat> resultsHandler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        TrackingQueryHandler<GitHubCopilotSeat> handler = new TrackingQueryHandler<>(resultsHandler);
+        GitHubCopilotSeatIndex index = getCopilotSeatIndex();
+        if (index == null) {
+            return GitHubClient.super.getCopilotSeats(filter, handler, options, fetchFieldsSet, pageSize, pageOffset);
+        }
+        return withAuth(handler::isNothingHandled, () -> {
+            // Served from the index without a sweep while it's fresh
+            FilteredQueryHandler<GitHubCopilotSeat> filtered = new FilteredQueryHandler<>(filter, handler, pageSize, pageOffset);
+            for (GitHubCopilotSeat seat : index.getAll(getCopilotSeatIndexTTL(), this::loadAllCopilotSeats)) {
+                if (!filtered.handle(seat)) {
+                    break;
+                }
+            }
+            return filtered.getMatched();
+        });
+    }
+
+    @Override
+    public int getEMUGroups(QueryHandler<SCIMEMUGroup> resultsHandler, OperationOptions options, Set<String> fetchFieldsSet, int pageSize, int pageOffset) {
+        TrackingQueryHandler<SCIMEMUGroup> handler = new TrackingQueryHandler<>(resultsHandler);
+        return withAuth(handler::isNothingHandled, () -> {
+            Set<String> excludedAttributes = toExcludedGroupAttributes(fetchFieldsSet);
+            SCIMPagedSearchIterable<SCIMEMUGroup> iterable = excludedAttributes.isEmpty() ?
+                    enterpriseApiClient.listSCIMGroups(pageSize, pageOffset) :
+                    enterpriseApiClient.listSCIMGroups(pageSize, pageOffset, excludedAttributes);
+
+            if (configuration.isStreamingQuery()) {
+                int total = iterable.stream(toTopLevelAttributes(fetchFieldsSet), handler::handle);
+                getMetrics().recordPages("EMUGroup", iterable.getPageCount());
+                return total;
+            }
 
             // 0 means no offset (requested all data)
             if (pageOffset < 1) {
-                for (SCIMEMUGroup next : iterable) {
-                    if (!handler.handle(next)) {
-                        break;
+                withPrefetch(iterable);
+                try {
+                    for (SCIMEMUGroup next : iterable) {
+                        if (!handler.handle(next)) {
+                            break;
+                        }
                     }
+                } finally {
+                    // Cancel the pages still being prefetched when stopped early
+                    iterable.close();
                 }
+                getMetrics().recordPages("EMUGroup", iterable.getPageCount());
                 return iterable.getTotalCount();
             }
 
@@ -360,7 +738,195 @@ public class GitHubEMURESTClient implements GitHubClient<GitHubEMUSchema> {
         });
     }
 
+    private <T> T write(Supplier<T> operation) {
+        GitHubWritePipeline pipeline = getWritePipeline();
+        if (pipeline == null) {
+            return operation.get();
+        }
+        return pipeline.execute(operation);
+    }
+
+    /**
+     * Returns the write pipeline shared for the enterprise.
+     *
+     * @return the pipeline, or null if the write concurrency isn't limited
+     */
+    public GitHubWritePipeline getWritePipeline() {
+        if (configuration.getWriteConcurrency() <= 0) {
+            return null;
+        }
+        return GitHubWritePipeline.forEnterprise(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug(),
+                configuration.getWriteConcurrency());
+    }
+
+    private GitHubRetryPolicy getRetryPolicy() {
+        if (configuration.getRetryMaxAttempts() <= 0) {
+            return null;
+        }
+        if (retryPolicy == null) {
+            retryPolicy = new GitHubRetryPolicy(configuration.getRetryMaxAttempts(),
+                    configuration.getRetryBaseDelayInMilliseconds(), configuration.getRetryMaxDelayInMilliseconds(),
+                    configuration.getRetryBudgetPerMinute());
+        }
+        return retryPolicy;
+    }
+
+    private GitHubCircuitBreaker getCircuitBreaker() {
+        if (configuration.getCircuitBreakerFailureRateThreshold() <= 0) {
+            return null;
+        }
+        return GitHubCircuitBreaker.forEnterprise(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug(),
+                configuration);
+    }
+
+    private GitHubMetrics getMetrics() {
+        if (metrics == null) {
+            metrics = GitHubMetrics.forConfiguration(configuration);
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the rate limit scheduler shared for the enterprise and the access token.
+     *
+     * @return the scheduler, or null if rate limit scheduling is disabled
+     */
+    public GitHubRateLimitScheduler getRateLimitScheduler() {
+        if (!configuration.isRateLimitScheduling()) {
+            return null;
+        }
+        // The rate limit is counted per access token
+        AtomicReference<String> accessTokenHash = new AtomicReference<>("");
+        if (configuration.getAccessToken() != null) {
+            configuration.getAccessToken().access(c -> {
+                accessTokenHash.set(SecurityUtil.computeBase64SHA1Hash(c));
+            });
+        }
+        return GitHubRateLimitScheduler.forEnterprise(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug()
+                + "|" + accessTokenHash.get());
+    }
+
+    private GitHubCopilotSeatIndex getCopilotSeatIndex() {
+        if (configuration.getCopilotSeatIndexTTLInSeconds() <= 0) {
+            return null;
+        }
+        return GitHubCopilotSeatIndex.forEnterprise(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug());
+    }
+
+    private long getCopilotSeatIndexTTL() {
+        return configuration.getCopilotSeatIndexTTLInSeconds() * 1000L;
+    }
+
+    private long getCopilotSeatIndexMissRefreshInterval() {
+        return configuration.getCopilotSeatIndexMissRefreshIntervalInSeconds() * 1000L;
+    }
+
+    private Iterable<GitHubCopilotSeat> loadAllCopilotSeats() throws IOException {
+        LOGGER.info("[{0}] Building Copilot seat index", instanceName);
+        return enterpriseApiClient.listAllSeats(configuration.getQueryPageSize(), 0).toList();
+    }
+
+    private String getSCIMUsersURL() {
+        // Same form as $ref of the members returned by GitHub
+        return apiClient.getApiUrl() + "/scim/v2/enterprises/" + configuration.getEnterpriseSlug() + "/Users/";
+    }
+
+    private SCIMEMUGroupMembershipIndex getGroupMembershipIndex() {
+        if (configuration.getGroupMembershipIndexTTLInSeconds() <= 0) {
+            return null;
+        }
+        return SCIMEMUGroupMembershipIndex.forEnterprise(configuration.getEndpointURL() + "|" + configuration.getEnterpriseSlug());
+    }
+
+    private Iterable<SCIMEMUGroup> loadAllEMUGroups() throws IOException {
+        LOGGER.info("[{0}] Building EMU group membership index", instanceName);
+        SCIMPagedSearchIterable<SCIMEMUGroup> iterable = enterpriseApiClient.listSCIMGroups(configuration.getQueryPageSize(), 0);
+        withPrefetch(iterable);
+        return iterable.toList();
+    }
+
+    /**
+     * Returns the SCIM filter expressions to send for the filter, one for each branch of OR.
+     * GitHub EMU supports only a single "eq" on some attributes. So for each branch, one "eq" condition on those
+     * attributes is sent, and the whole filter is evaluated in the connector on the results.
+     *
+     * @return the expressions, or null if any branch can't be sent and all resources must be scanned
+     */
+    static List<String> toSCIMFilterExpressions(GitHubFilter filter, Set<String> filterableAttributes) {
+        List<String> expressions = new ArrayList<>();
+        for (GitHubFilter branch : filter.disjuncts()) {
+            List<GitHubFilter> conditions = branch.conditions != null ? branch.conditions : Collections.singletonList(branch);
+            GitHubFilter supported = null;
+            for (GitHubFilter condition : conditions) {
+                if (condition.filterType == GitHubFilter.FilterType.EXACT_MATCH && condition.conditions == null
+                        && filterableAttributes.contains(condition.attributeName)) {
+                    supported = condition;
+                    break;
+                }
+            }
+            if (supported == null) {
+                return null;
+            }
+            expressions.add(supported.toSCIMFilter());
+        }
+        return expressions;
+    }
+
+    private static Set<String> toExcludedGroupAttributes(Set<String> fetchFieldsSet) {
+        // GitHub EMU supports excludedAttributes for groups. Members can be large, so drop them unless requested.
+        // An empty set means that the caller didn't tell the fields, so fetch the full resource.
+        // Users are always fetched in full because excludedAttributes isn't documented for them.
+        if (fetchFieldsSet == null || fetchFieldsSet.isEmpty()) {
+            return Collections.emptySet();
+        }
+        for (String field : fetchFieldsSet) {
+            if (field.equals("members") || field.startsWith("members.")) {
+                return Collections.emptySet();
+            }
+        }
+        return Collections.singleton("members");
+    }
+
+    private static Set<String> toTopLevelAttributes(Set<String> fetchFieldsSet) {
+        if (fetchFieldsSet == null) {
+            return null;
+        }
+        // e.g. "name.givenName" -> "name", "members.User.value" -> "members"
+        Set<String> attrs = new HashSet<>();
+        for (String field : fetchFieldsSet) {
+            int dot = field.indexOf('.');
+            attrs.add(dot > 0 ? field.substring(0, dot) : field);
+        }
+        return attrs;
+    }
+
+    private void withPrefetch(SCIMPagedSearchIterable<?> iterable) {
+        int pages = configuration.getQueryPrefetchPages();
+        if (pages <= 0) {
+            return;
+        }
+        if (prefetchExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            prefetchExecutor = Executors.newFixedThreadPool(pages, r -> {
+                Thread t = new Thread(r, "github-emu-prefetch-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        iterable.withPrefetch(pages, prefetchExecutor);
+    }
+
     @Override
     public void close() {
+        closed = true;
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+            prefetchExecutor = null;
+        }
+        if (httpClient != null) {
+            // Release the reference only, keep the warm connections for other connector instances
+            GitHubHttpClientRegistry.getInstance().release(httpClient);
+            httpClient = null;
+        }
     }
 }
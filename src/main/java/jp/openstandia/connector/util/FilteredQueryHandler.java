@@ -0,0 +1,78 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.util;
+
+import java.util.function.Predicate;
+
+/**
+ * Query handler which evaluates a filter in the connector for the resources the API can't filter.
+ * <p>
+ * The handler must see the whole sweep to count the matched resources. With paging, it passes only the matched
+ * resources of the requested page to the delegate, and continues the sweep after the page to count the rest.
+ *
+ * @param <T> the type of the resource
+ * @author Hiroyuki Wada
+ */
+public class FilteredQueryHandler<T> implements QueryHandler<T> {
+
+    private final Predicate<T> predicate;
+    private final QueryHandler<T> delegate;
+    private final int pageSize;
+    private final int pageOffset;
+
+    private int matched;
+    private boolean stopped;
+
+    /**
+     * @param predicate  the filter
+     * @param delegate   the handler which receives the matched resources
+     * @param pageSize   the page size, used only when paging
+     * @param pageOffset the 1-based offset of the page in the matched resources, 0 means no paging
+     */
+    public FilteredQueryHandler(Predicate<T> predicate, QueryHandler<T> delegate, int pageSize, int pageOffset) {
+        this.predicate = predicate;
+        this.delegate = delegate;
+        this.pageSize = pageSize;
+        this.pageOffset = pageOffset;
+    }
+
+    @Override
+    public boolean handle(T arg) {
+        if (!predicate.test(arg)) {
+            return true;
+        }
+        matched++;
+
+        if (pageOffset < 1) {
+            // No need to count the rest when the caller stopped
+            return delegate.handle(arg);
+        }
+
+        if (!stopped && matched >= pageOffset && matched < pageOffset + pageSize) {
+            stopped = !delegate.handle(arg);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of the matched resources so far.
+     *
+     * @return the number of the matched resources
+     */
+    public int getMatched() {
+        return matched;
+    }
+}
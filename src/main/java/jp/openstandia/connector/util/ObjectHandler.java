@@ -52,6 +52,12 @@ public interface ObjectHandler {
         return 0;
     }
 
+    default int getByAttributes(GitHubFilter filter, ResultsHandler resultsHandler, OperationOptions options,
+                                Set<String> returnAttributesSet, Set<String> fetchFieldsSet,
+                                boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
+        throw new UnsupportedOperationException();
+    }
+
     default int getAll(ResultsHandler resultsHandler, OperationOptions options,
                        Set<String> returnAttributesSet, Set<String> fetchFieldsSet,
                        boolean allowPartialAttributeValues, int pageSize, int pageOffset) {
@@ -62,6 +68,15 @@ public interface ObjectHandler {
         throw new UnsupportedOperationException();
     }
 
+    default void sync(SyncToken token, SyncResultsHandler resultsHandler, OperationOptions options,
+                      Set<String> returnAttributesSet, Set<String> fetchFieldsSet, boolean allowPartialAttributeValues) {
+        throw new UnsupportedOperationException();
+    }
+
+    default SyncToken getLatestSyncToken() {
+        throw new UnsupportedOperationException();
+    }
+
     default <T> ConnectorObject toConnectorObject(SchemaDefinition schema, T user,
                                                   Set<String> returnAttributesSet, boolean allowPartialAttributeValues) {
         ConnectorObjectBuilder builder = schema.toConnectorObjectBuilder(user, returnAttributesSet, allowPartialAttributeValues);
@@ -325,32 +325,94 @@ public class SchemaDefinition {
     }
 
     public <R> ConnectorObjectBuilder toConnectorObjectBuilder(R source, Set<String> attributesToGet, boolean allowPartialAttributeValues) {
-        final ConnectorObjectBuilder builder = new ConnectorObjectBuilder()
-                .setObjectClass(objectClass);
-
-        AttributeMapper uid = attributeMap.get(Uid.NAME);
-        addAttribute(builder, uid.apply(source));
+        return compileProjectionPlan(attributesToGet, allowPartialAttributeValues).toConnectorObjectBuilder(source);
+    }
 
-        // Need to set __NAME__ because it throws IllegalArgumentException
-        AttributeMapper name = attributeMap.get(Name.NAME);
-        addAttribute(builder, name.apply(source));
+    /**
+     * Compiles the mappers to apply for the given attributes to get.
+     * The plan doesn't depend on the source objects, so a query builds it once and reuses it for every object.
+     *
+     * @param attributesToGet             the attributes to return
+     * @param allowPartialAttributeValues whether incomplete attributes are returned instead of the values
+     *                                    which aren't returned by default
+     * @return the plan
+     */
+    public ProjectionPlan compileProjectionPlan(Set<String> attributesToGet, boolean allowPartialAttributeValues) {
+        List<AttributeMapper> mappers = new ArrayList<>();
+        List<Attribute> incompleteAttributes = new ArrayList<>();
 
         for (Map.Entry<String, AttributeMapper> entry : attributeMap.entrySet()) {
             // When requested partial attribute values, return incomplete attribute if the attribute is not returned by default and readable
             if (allowPartialAttributeValues) {
                 if (!isReturnedByDefaultAttribute(entry.getKey()) && isReadableAttributes(entry.getKey())
                         && attributesToGet.contains(entry.getKey())) {
-                    addAttribute(builder, createIncompleteAttribute(entry.getKey()));
+                    incompleteAttributes.add(createIncompleteAttribute(entry.getKey()));
                     continue;
                 }
             }
+            // __UID__ and __NAME__ are always set
+            if (entry.getKey().equals(Uid.NAME) || entry.getKey().equals(Name.NAME)) {
+                continue;
+            }
             if (shouldReturn(attributesToGet, entry.getKey())) {
-                Attribute value = entry.getValue().apply(source);
-                addAttribute(builder, value);
+                mappers.add(entry.getValue());
             }
         }
 
-        return builder;
+        return new ProjectionPlan(objectClass, attributeMap.get(Uid.NAME), attributeMap.get(Name.NAME),
+                mappers.toArray(new AttributeMapper[0]), incompleteAttributes.toArray(new Attribute[0]));
+    }
+
+    /**
+     * Attribute projection compiled from the attributes to get.
+     */
+    public static class ProjectionPlan {
+        private final ObjectClass objectClass;
+        private final AttributeMapper uid;
+        private final AttributeMapper name;
+        private final AttributeMapper[] mappers;
+        // Immutable, so they are shared by all objects
+        private final Attribute[] incompleteAttributes;
+
+        ProjectionPlan(ObjectClass objectClass, AttributeMapper uid, AttributeMapper name,
+                       AttributeMapper[] mappers, Attribute[] incompleteAttributes) {
+            this.objectClass = objectClass;
+            this.uid = uid;
+            this.name = name;
+            this.mappers = mappers;
+            this.incompleteAttributes = incompleteAttributes;
+        }
+
+        public <R> ConnectorObjectBuilder toConnectorObjectBuilder(R source) {
+            final ConnectorObjectBuilder builder = new ConnectorObjectBuilder()
+                    .setObjectClass(objectClass);
+
+            addAttribute(builder, uid.apply(source));
+
+            // Need to set __NAME__ because it throws IllegalArgumentException
+            addAttribute(builder, name.apply(source));
+
+            for (Attribute incomplete : incompleteAttributes) {
+                builder.addAttribute(incomplete);
+            }
+            for (AttributeMapper mapper : mappers) {
+                addAttribute(builder, mapper.apply(source));
+            }
+
+            return builder;
+        }
+
+        public <R> ConnectorObject toConnectorObject(R source) {
+            return toConnectorObjectBuilder(source).build();
+        }
+
+        private static void addAttribute(ConnectorObjectBuilder builder, Attribute attribute) {
+            if (attribute == null) {
+                return;
+            }
+            // Don't set null because it causes NPE
+            builder.addAttribute(attribute);
+        }
     }
 
     protected void addAttribute(ConnectorObjectBuilder builder, Attribute attribute) {
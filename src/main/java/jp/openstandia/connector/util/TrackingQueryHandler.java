@@ -0,0 +1,50 @@
+/*
+ *  Copyright Nomura Research Institute, Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package jp.openstandia.connector.util;
+
+/**
+ * Query handler which remembers whether any resource has been passed to the delegate.
+ * <p>
+ * A query can be sent again after an error only while nothing has been handed to the caller,
+ * otherwise the caller would receive the same resources twice.
+ *
+ * @param <T> the type of the resource
+ * @author Hiroyuki Wada
+ */
+public class TrackingQueryHandler<T> implements QueryHandler<T> {
+
+    private final QueryHandler<T> delegate;
+    private boolean handled;
+
+    public TrackingQueryHandler(QueryHandler<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean handle(T arg) {
+        handled = true;
+        return delegate.handle(arg);
+    }
+
+    /**
+     * Returns whether no resource has been passed to the delegate yet.
+     *
+     * @return true if the query can be sent again
+     */
+    public boolean isNothingHandled() {
+        return !handled;
+    }
+}
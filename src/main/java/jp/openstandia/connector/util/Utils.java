@@ -62,12 +62,117 @@ public class Utils {
         return ZonedDateTime.ofInstant(instant, zone);
     }
 
+    // Resolved once. ZoneId.systemDefault() clones the default TimeZone on every call.
+    private static final ZoneId SYSTEM_ZONE = ZoneId.systemDefault();
+
+    // Many objects share the same timestamps (e.g. Copilot seats assigned at once), so the recently converted
+    // values are kept in a small direct-mapped cache. Entries are immutable, so it needs no locking.
+    private static final int TIMESTAMP_CACHE_SIZE = 256;
+    private static final TimestampCacheEntry[] TIMESTAMP_CACHE = new TimestampCacheEntry[TIMESTAMP_CACHE_SIZE];
+
+    private static final class TimestampCacheEntry {
+        final String text;
+        final ZonedDateTime value;
+
+        TimestampCacheEntry(String text, ZonedDateTime value) {
+            this.text = text;
+            this.value = value;
+        }
+    }
+
     public static ZonedDateTime toZoneDateTimeForISO8601OffsetDateTime(String datetimeString) {
         if (datetimeString == null) {
             return null;
         }
-        return ZonedDateTime.parse(datetimeString, DateTimeFormatter.ISO_OFFSET_DATE_TIME)
-                .withZoneSameInstant(ZoneId.systemDefault());
+
+        int slot = datetimeString.hashCode() & (TIMESTAMP_CACHE_SIZE - 1);
+        TimestampCacheEntry entry = TIMESTAMP_CACHE[slot];
+        if (entry != null && entry.text.equals(datetimeString)) {
+            return entry.value;
+        }
+
+        ZonedDateTime value = parseISO8601OffsetDateTime(datetimeString);
+        TIMESTAMP_CACHE[slot] = new TimestampCacheEntry(datetimeString, value);
+        return value;
+    }
+
+    /**
+     * Parses GitHub's "yyyy-MM-ddTHH:mm:ss[.fraction](Z|+HH:mm)" format without the generic formatter.
+     * Anything else falls back to {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME}.
+     *
+     * @param s the timestamp
+     * @return the timestamp in the system zone
+     */
+    static ZonedDateTime parseISO8601OffsetDateTime(String s) {
+        int len = s.length();
+        if (len >= 20 && s.charAt(4) == '-' && s.charAt(7) == '-' && (s.charAt(10) == 'T' || s.charAt(10) == 't')
+                && s.charAt(13) == ':' && s.charAt(16) == ':') {
+            int year = digits(s, 0, 4);
+            int month = digits(s, 5, 7);
+            int day = digits(s, 8, 10);
+            int hour = digits(s, 11, 13);
+            int minute = digits(s, 14, 16);
+            int second = digits(s, 17, 19);
+
+            int pos = 19;
+            int nanos = 0;
+            if (s.charAt(pos) == '.') {
+                int start = ++pos;
+                while (pos < len && pos - start < 9 && isDigit(s.charAt(pos))) {
+                    nanos = nanos * 10 + (s.charAt(pos) - '0');
+                    pos++;
+                }
+                int fractionDigits = pos - start;
+                for (int i = fractionDigits; i < 9; i++) {
+                    nanos *= 10;
+                }
+                if (fractionDigits == 0) {
+                    pos = -1;
+                }
+            }
+
+            int offsetSeconds = Integer.MIN_VALUE;
+            if (pos > 0 && pos < len) {
+                char c = s.charAt(pos);
+                if ((c == 'Z' || c == 'z') && pos + 1 == len) {
+                    offsetSeconds = 0;
+                } else if ((c == '+' || c == '-') && pos + 6 == len && s.charAt(pos + 3) == ':') {
+                    int offsetHour = digits(s, pos + 1, pos + 3);
+                    int offsetMinute = digits(s, pos + 4, pos + 6);
+                    if (offsetHour >= 0 && offsetHour <= 18 && offsetMinute >= 0 && offsetMinute < 60) {
+                        offsetSeconds = (c == '-' ? -1 : 1) * (offsetHour * 3600 + offsetMinute * 60);
+                    }
+                }
+            }
+
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                    && hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60
+                    && offsetSeconds != Integer.MIN_VALUE && day <= LocalDate.of(year, month, 1).lengthOfMonth()) {
+                long epochSecond = LocalDate.of(year, month, day).toEpochDay() * 86400
+                        + hour * 3600 + minute * 60 + second - offsetSeconds;
+                return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nanos), SYSTEM_ZONE);
+            }
+        }
+
+        return ZonedDateTime.parse(s, DateTimeFormatter.ISO_OFFSET_DATE_TIME)
+                .withZoneSameInstant(SYSTEM_ZONE);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Returns -1 if the range has a non-digit character
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
     }
 
     public static ZonedDateTime toZoneDateTime(Date date) {
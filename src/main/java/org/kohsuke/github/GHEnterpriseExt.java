@@ -1,10 +1,12 @@
 package org.kohsuke.github;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,6 +16,28 @@ import java.util.List;
  */
 public class GHEnterpriseExt extends GHOrganization {
     private static final ObjectMapper mapper = new ObjectMapper();
+    // ObjectWriter is immutable and thread-safe, so the writers for the request bodies are built once
+    private static final ObjectWriter USER_WRITER = mapper.writerFor(SCIMEMUUser.class);
+    private static final ObjectWriter GROUP_WRITER = mapper.writerFor(SCIMEMUGroup.class);
+    private static final ObjectWriter PATCH_WRITER = mapper.writerFor(SCIMPatchOperations.class);
+
+    static byte[] toJsonBytes(Object value) throws IOException {
+        // Jackson encodes UTF-8 directly into the byte array without an intermediate String
+        return writerFor(value).writeValueAsBytes(value);
+    }
+
+    private static ObjectWriter writerFor(Object value) {
+        if (value instanceof SCIMPatchOperations) {
+            return PATCH_WRITER;
+        }
+        if (value instanceof SCIMEMUUser) {
+            return USER_WRITER;
+        }
+        if (value instanceof SCIMEMUGroup) {
+            return GROUP_WRITER;
+        }
+        return mapper.writer();
+    }
 
     @Override
     GHEnterpriseExt wrapUp(GitHub root) {
@@ -23,8 +47,7 @@ public class GHEnterpriseExt extends GHOrganization {
     public SCIMEMUUser createSCIMEMUUser(SCIMEMUUser newUser) throws IOException {
         newUser.schemas = new String[]{SCIMConstants.SCIM_USER_SCHEMA};
 
-        String json = mapper.writeValueAsString(newUser);
-        byte[] jsonBytes = json.getBytes();
+        byte[] jsonBytes = toJsonBytes(newUser);
 
         try (InputStream inputStream = new ByteArrayInputStream(jsonBytes)) {
             SCIMEMUUser u = root.createRequest()
@@ -40,8 +63,7 @@ public class GHEnterpriseExt extends GHOrganization {
     }
 
     public SCIMEMUUser updateSCIMEMUUser(String scimUserId, SCIMPatchOperations operations) throws IOException {
-        String json = mapper.writeValueAsString(operations);
-        byte[] jsonBytes = json.getBytes();
+        byte[] jsonBytes = toJsonBytes(operations);
 
         try (InputStream inputStream = new ByteArrayInputStream(jsonBytes)) {
             SCIMEMUUser u = root.createRequest()
@@ -90,6 +112,11 @@ public class GHEnterpriseExt extends GHOrganization {
         return searchSCIMUsers().list().withPageSize(pageSize).withPageOffset(pageOffset);
     }
 
+    public SCIMPagedSearchIterable<SCIMEMUUser> listSCIMUsers(String filter, int pageSize, int pageOffset)
+            throws IOException {
+        return searchSCIMUsers().filter(filter).list().withPageSize(pageSize).withPageOffset(pageOffset);
+    }
+
     public void deleteSCIMUser(String scimUserId) throws IOException {
         root.createRequest()
                 .method("DELETE")
@@ -102,8 +129,7 @@ public class GHEnterpriseExt extends GHOrganization {
     public SCIMEMUGroup createSCIMEMUGroup(SCIMEMUGroup newGroup) throws IOException {
         newGroup.schemas = new String[]{SCIMConstants.SCIM_GROUP_SCHEMA};
 
-        String json = mapper.writeValueAsString(newGroup);
-        byte[] jsonBytes = json.getBytes();
+        byte[] jsonBytes = toJsonBytes(newGroup);
 
         try (InputStream inputStream = new ByteArrayInputStream(jsonBytes)) {
             SCIMEMUGroup g = root.createRequest()
@@ -119,8 +145,7 @@ public class GHEnterpriseExt extends GHOrganization {
     }
 
     public SCIMEMUGroup updateSCIMEMUGroup(String scimGroupId, SCIMPatchOperations operations) throws IOException {
-        String json = mapper.writeValueAsString(operations);
-        byte[] jsonBytes = json.getBytes();
+        byte[] jsonBytes = toJsonBytes(operations);
 
         try (InputStream inputStream = new ByteArrayInputStream(jsonBytes)) {
             SCIMEMUGroup g = root.createRequest()
@@ -144,6 +169,17 @@ public class GHEnterpriseExt extends GHOrganization {
         return g;
     }
 
+    public SCIMEMUGroup getSCIMEMUGroup(String scimGroupId, Collection<String> excludedAttributes) throws IOException {
+        Requester requester = root.createRequest()
+                .withHeader(SCIMConstants.HEADER_ACCEPT, SCIMConstants.SCIM_ACCEPT)
+                .withHeader(SCIMConstants.HEADER_API_VERSION, SCIMConstants.GITHUB_API_VERSION)
+                .withUrlPath(String.format("/scim/v2/enterprises/%s/Groups/%s", login, scimGroupId));
+        if (!excludedAttributes.isEmpty()) {
+            requester.with("excludedAttributes", String.join(",", excludedAttributes));
+        }
+        return requester.fetch(SCIMEMUGroup.class);
+    }
+
     public SCIMEMUGroup getSCIMEMUGroupByDisplayName(String scimGroupDisplayName) throws IOException {
         List<SCIMEMUGroup> list = searchSCIMGroups()
                 .eq("displayName", scimGroupDisplayName)
@@ -155,6 +191,19 @@ public class GHEnterpriseExt extends GHOrganization {
         return list.get(0);
     }
 
+    public SCIMEMUGroup getSCIMEMUGroupByDisplayName(String scimGroupDisplayName, Collection<String> excludedAttributes) throws IOException {
+        SCIMEMUGroupSearchBuilder builder = searchSCIMGroups();
+        builder.eq("displayName", scimGroupDisplayName);
+        builder.excludedAttributes(excludedAttributes);
+        List<SCIMEMUGroup> list = builder
+                .list()
+                .toList();
+        if (list.size() != 1) {
+            return null;
+        }
+        return list.get(0);
+    }
+
     public GitHubCopilotSeat getCopilotSeatByDisplayName(String copilotSeatDisplayName) throws IOException {
         List<GitHubCopilotSeat> allSeats = searchCopilotSeats()
                 .list()
@@ -195,6 +244,21 @@ public class GHEnterpriseExt extends GHOrganization {
         return searchSCIMGroups().list().withPageSize(pageSize).withPageOffset(pageOffset);
     }
 
+    public SCIMPagedSearchIterable<SCIMEMUGroup> listSCIMGroups(int pageSize, int pageOffset, Collection<String> excludedAttributes)
+            throws IOException {
+        SCIMEMUGroupSearchBuilder builder = searchSCIMGroups();
+        builder.excludedAttributes(excludedAttributes);
+        return builder.list().withPageSize(pageSize).withPageOffset(pageOffset);
+    }
+
+    public SCIMPagedSearchIterable<SCIMEMUGroup> listSCIMGroups(String filter, int pageSize, int pageOffset, Collection<String> excludedAttributes)
+            throws IOException {
+        SCIMEMUGroupSearchBuilder builder = searchSCIMGroups();
+        builder.filter(filter);
+        builder.excludedAttributes(excludedAttributes);
+        return builder.list().withPageSize(pageSize).withPageOffset(pageOffset);
+    }
+
     public GitHubCopilotSeatsSearchBuilder searchCopilotSeats() {
         return new GitHubCopilotSeatsSearchBuilder(root, this);
     }
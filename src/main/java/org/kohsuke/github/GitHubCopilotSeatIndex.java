@@ -0,0 +1,205 @@
+package org.kohsuke.github;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory index of Copilot seats keyed by assignee id and by assignee login.
+ * <p>
+ * The Copilot billing API has no lookup by assignee, so finding one seat means sweeping all the seats.
+ * The index is built from one paged sweep and shared by the connector instances of the same enterprise.
+ * It is rebuilt when it gets older than the given TTL, or refreshed for free by any completed full sweep.
+ * Readers never block while a rebuild is running; the new snapshot replaces the old one at once.
+ * A lookup which misses can rebuild the index too, at most once per the given interval, so a seat assigned after
+ * the last sweep is found without waiting for the TTL. Otherwise the misses are cached until the TTL expires.
+ *
+ * @author Hiroyuki Wada
+ */
+public class GitHubCopilotSeatIndex {
+
+    private static final ConcurrentMap<String, GitHubCopilotSeatIndex> INDEXES = new ConcurrentHashMap<>();
+
+    /**
+     * Loads all the seats of the enterprise.
+     */
+    @FunctionalInterface
+    public interface SeatLoader {
+        Iterable<GitHubCopilotSeat> load() throws IOException;
+    }
+
+    private static class Snapshot {
+        final Map<String, GitHubCopilotSeat> byId;
+        final Map<String, GitHubCopilotSeat> byLogin;
+        // In the order of the sweep, for stable paging
+        final List<GitHubCopilotSeat> all;
+        final long builtAt;
+
+        Snapshot(Map<String, GitHubCopilotSeat> byId, Map<String, GitHubCopilotSeat> byLogin,
+                 List<GitHubCopilotSeat> all, long builtAt) {
+            this.byId = byId;
+            this.byLogin = byLogin;
+            this.all = all;
+            this.builtAt = builtAt;
+        }
+    }
+
+    private final LongSupplier clock;
+    private volatile Snapshot snapshot;
+    // Allows one sweep at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    GitHubCopilotSeatIndex() {
+        this(System::currentTimeMillis);
+    }
+
+    GitHubCopilotSeatIndex(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the index shared for the given enterprise.
+     *
+     * @param enterpriseKey the key which identifies the enterprise (e.g. endpoint URL and enterprise slug)
+     * @return the index
+     */
+    public static GitHubCopilotSeatIndex forEnterprise(String enterpriseKey) {
+        return INDEXES.computeIfAbsent(enterpriseKey, k -> new GitHubCopilotSeatIndex());
+    }
+
+    /**
+     * Returns the seat assigned to the user of the given id.
+     *
+     * @param id                        the assignee id
+     * @param ttlInMillis               how long the index can be used
+     * @param missRefreshIntervalMillis the minimum age of the index before a miss rebuilds it. 0 or less caches the
+     *                                  misses until the TTL expires
+     * @param loader                    loads all the seats when the index is stale
+     * @return the seat, or null if not found
+     * @throws IOException if loading the seats failed
+     */
+    public GitHubCopilotSeat getById(String id, long ttlInMillis, long missRefreshIntervalMillis, SeatLoader loader) throws IOException {
+        Snapshot s = current(ttlInMillis, loader);
+        GitHubCopilotSeat seat = s.byId.get(id);
+        if (seat == null && isMissRefreshable(s, missRefreshIntervalMillis)) {
+            seat = rebuild(s, loader).byId.get(id);
+        }
+        return seat;
+    }
+
+    /**
+     * Returns the seat assigned to the user of the given login.
+     *
+     * @param login                     the assignee login
+     * @param ttlInMillis               how long the index can be used
+     * @param missRefreshIntervalMillis the minimum age of the index before a miss rebuilds it. 0 or less caches the
+     *                                  misses until the TTL expires
+     * @param loader                    loads all the seats when the index is stale
+     * @return the seat, or null if not found
+     * @throws IOException if loading the seats failed
+     */
+    public GitHubCopilotSeat getByLogin(String login, long ttlInMillis, long missRefreshIntervalMillis, SeatLoader loader) throws IOException {
+        Snapshot s = current(ttlInMillis, loader);
+        GitHubCopilotSeat seat = s.byLogin.get(login);
+        if (seat == null && isMissRefreshable(s, missRefreshIntervalMillis)) {
+            seat = rebuild(s, loader).byLogin.get(login);
+        }
+        return seat;
+    }
+
+    /**
+     * Returns all the seats in the order of the sweep which built the index.
+     *
+     * @param ttlInMillis how long the index can be used
+     * @param loader      loads all the seats when the index is stale
+     * @return the seats, which must not be modified
+     * @throws IOException if loading the seats failed
+     */
+    public List<GitHubCopilotSeat> getAll(long ttlInMillis, SeatLoader loader) throws IOException {
+        return current(ttlInMillis, loader).all;
+    }
+
+    /**
+     * Replaces the index with the seats of a completed full sweep.
+     *
+     * @param seats all the seats of the enterprise
+     */
+    public void refresh(Iterable<GitHubCopilotSeat> seats) {
+        snapshot = build(seats);
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    int size() {
+        Snapshot s = snapshot;
+        return s != null ? s.byId.size() : 0;
+    }
+
+    private Snapshot current(long ttlInMillis, SeatLoader loader) throws IOException {
+        Snapshot s = snapshot;
+        if (isFresh(s, ttlInMillis)) {
+            return s;
+        }
+        return rebuild(s, loader);
+    }
+
+    /**
+     * Rebuilds the index with one sweep at a time. While another thread is sweeping, the stale snapshot is used
+     * if there is one, so the lookups don't wait for the sweep.
+     */
+    private Snapshot rebuild(Snapshot stale, SeatLoader loader) throws IOException {
+        if (stale == null) {
+            rebuildLock.lock();
+        } else if (!rebuildLock.tryLock()) {
+            return stale;
+        }
+        try {
+            // Another thread may have rebuilt it
+            Snapshot s = snapshot;
+            if (s != null && s != stale) {
+                return s;
+            }
+            s = build(loader.load());
+            snapshot = s;
+            return s;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot s, long ttlInMillis) {
+        return s != null && clock.getAsLong() - s.builtAt < ttlInMillis;
+    }
+
+    private boolean isMissRefreshable(Snapshot s, long missRefreshIntervalMillis) {
+        return missRefreshIntervalMillis > 0 && clock.getAsLong() - s.builtAt >= missRefreshIntervalMillis;
+    }
+
+    private Snapshot build(Iterable<GitHubCopilotSeat> seats) {
+        Map<String, GitHubCopilotSeat> byId = new HashMap<>();
+        Map<String, GitHubCopilotSeat> byLogin = new HashMap<>();
+        List<GitHubCopilotSeat> all = new ArrayList<>();
+        for (GitHubCopilotSeat seat : seats) {
+            all.add(seat);
+            if (seat.assignee == null) {
+                continue;
+            }
+            if (seat.assignee.id != null) {
+                byId.put(seat.assignee.id, seat);
+            }
+            if (seat.assignee.login != null) {
+                byLogin.put(seat.assignee.login, seat);
+            }
+        }
+        return new Snapshot(byId, byLogin, Collections.unmodifiableList(all), clock.getAsLong());
+    }
+}
@@ -20,6 +20,8 @@ public class GitHubCopilotSeatPagedSearchIterable<T> extends PagedIterable<T> {
 
     private int pageOffset;
 
+    private int pageCount;
+
     public GitHubCopilotSeatPagedSearchIterable(GitHub root, GitHubRequest request, Class<? extends GitHubCopilotSeatsSearchResult<T>> receiverType) {
         this.root = root;
         this.request = request;
@@ -41,6 +43,15 @@ public class GitHubCopilotSeatPagedSearchIterable<T> extends PagedIterable<T> {
         return result.total_seats;
     }
 
+    /**
+     * Returns the number of pages fetched so far.
+     *
+     * @return the page count
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
     public void populate() {
         if (result == null)
             iterator().hasNext();  // dispara a carga inicial
@@ -61,6 +72,7 @@ public class GitHubCopilotSeatPagedSearchIterable<T> extends PagedIterable<T> {
 
             public T[] next() {
                 GitHubCopilotSeatsSearchResult<T> v = base.next();
+                pageCount++;
                 if (result == null)
                     result = v;
                 return v.seats;
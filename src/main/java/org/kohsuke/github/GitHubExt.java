@@ -3,6 +3,7 @@ package org.kohsuke.github;
 import org.kohsuke.github.authorization.AuthorizationProvider;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 
 /**
  * Extends original GitHub class.
@@ -15,9 +16,31 @@ public class GitHubExt extends GitHub {
         super(apiUrl, connector, rateLimitHandler, abuseLimitHandler, rateLimitChecker, authorizationProvider);
     }
 
+    /**
+     * Retries immediately after hitting the rate limit.
+     * Used when the requests are paced by an HTTP interceptor which waits for the rate limit budget by itself.
+     */
+    public static final RateLimitHandler RATE_LIMIT_RETRY = new RateLimitHandler() {
+        @Override
+        public void onError(IOException e, HttpURLConnection uc) {
+        }
+    };
+
+    /**
+     * Retries immediately after hitting the secondary rate limit.
+     * Used when the requests are paced by an HTTP interceptor which honors Retry-After by itself.
+     */
+    public static final AbuseLimitHandler ABUSE_LIMIT_RETRY = new AbuseLimitHandler() {
+        @Override
+        public void onError(IOException e, HttpURLConnection uc) {
+        }
+    };
+
     public static GitHubExt build(GitHubBuilder build) throws IOException {
-        RateLimitHandler rateLimitHandler = RateLimitHandler.WAIT;
-        AbuseLimitHandler abuseLimitHandler = AbuseLimitHandler.WAIT;
+        return build(build, RateLimitHandler.WAIT, AbuseLimitHandler.WAIT);
+    }
+
+    public static GitHubExt build(GitHubBuilder build, RateLimitHandler rateLimitHandler, AbuseLimitHandler abuseLimitHandler) throws IOException {
         GitHubRateLimitChecker rateLimitChecker = new GitHubRateLimitChecker();
 
         GitHub gitHub = build.build();
@@ -41,6 +64,16 @@ public class GitHubExt extends GitHub {
         return u;
     }
 
+    /**
+     * Checks the connection and the credentials with the rate limit API, which doesn't count against the rate limit.
+     * Unlike {@link #getRateLimit()}, it fails when the API returns 404.
+     *
+     * @throws IOException the io exception
+     */
+    public void checkRateLimitApi() throws IOException {
+        createRequest().withUrlPath("/rate_limit").send();
+    }
+
     /**
      * Returns GHEnterprise..
      *
@@ -0,0 +1,326 @@
+package org.kohsuke.github;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory reverse index of EMU group memberships (user id to group ids).
+ * <p>
+ * GitHub EMU SCIM API doesn't support filtering groups by members.value, so finding the groups of a user means
+ * sweeping all the groups. The index is built from one group sweep, shared by the connector instances of the same
+ * enterprise and kept coherent by the group writes of the connector itself.
+ * Changes made outside the connector are picked up when the index is rebuilt after the TTL.
+ * <p>
+ * Readers never block. The writes change only the entries of the written group and of its members, and the member
+ * sets are replaced, never modified, so readers can iterate them safely. The sweep for a rebuild runs without holding
+ * the lock, and the writes made during the sweep are applied again to the new index before it replaces the old one.
+ *
+ * @author Hiroyuki Wada
+ */
+public class SCIMEMUGroupMembershipIndex {
+
+    private static final ConcurrentMap<String, SCIMEMUGroupMembershipIndex> INDEXES = new ConcurrentHashMap<>();
+
+    /**
+     * Loads all the groups of the enterprise including their members.
+     */
+    @FunctionalInterface
+    public interface GroupLoader {
+        Iterable<SCIMEMUGroup> load() throws IOException;
+    }
+
+    /**
+     * The index built by one sweep and kept up to date by the writes. Modified only while holding the index lock.
+     */
+    private static class State {
+        // group id -> group
+        final ConcurrentMap<String, SCIMEMUGroup> groups = new ConcurrentHashMap<>();
+        // member id -> group ids. The sets are never modified once published.
+        final ConcurrentMap<String, Set<String>> groupsByMember = new ConcurrentHashMap<>();
+        final long builtAt;
+
+        State(long builtAt) {
+            this.builtAt = builtAt;
+        }
+
+        void add(SCIMEMUGroup group) {
+            groups.put(group.id, group);
+            if (group.members == null) {
+                return;
+            }
+            for (SCIMMember m : group.members) {
+                groupsByMember.compute(m.value, (k, current) -> {
+                    Set<String> groupIds = current != null ? new LinkedHashSet<>(current) : new LinkedHashSet<>();
+                    groupIds.add(group.id);
+                    return Collections.unmodifiableSet(groupIds);
+                });
+            }
+        }
+
+        void remove(String groupId) {
+            SCIMEMUGroup removed = groups.remove(groupId);
+            if (removed == null || removed.members == null) {
+                return;
+            }
+            for (SCIMMember m : removed.members) {
+                groupsByMember.computeIfPresent(m.value, (k, current) -> {
+                    if (!current.contains(groupId)) {
+                        return current;
+                    }
+                    if (current.size() == 1) {
+                        return null;
+                    }
+                    Set<String> groupIds = new LinkedHashSet<>(current);
+                    groupIds.remove(groupId);
+                    return Collections.unmodifiableSet(groupIds);
+                });
+            }
+        }
+
+        void replace(SCIMEMUGroup group) {
+            remove(group.id);
+            add(group);
+        }
+    }
+
+    private volatile State state;
+    // Writes made while a sweep is running, applied again to its result. Guarded by this.
+    private List<Consumer<State>> pendingWrites;
+    // Allows one sweep at a time
+    private final Object rebuildLock = new Object();
+
+    SCIMEMUGroupMembershipIndex() {
+    }
+
+    /**
+     * Returns the index shared for the given enterprise.
+     *
+     * @param enterpriseKey the key which identifies the enterprise (e.g. endpoint URL and enterprise slug)
+     * @return the index
+     */
+    public static SCIMEMUGroupMembershipIndex forEnterprise(String enterpriseKey) {
+        return INDEXES.computeIfAbsent(enterpriseKey, k -> new SCIMEMUGroupMembershipIndex());
+    }
+
+    /**
+     * Returns the groups which contain all the given members.
+     *
+     * @param memberIds   the member ids
+     * @param ttlInMillis the time to live of the index
+     * @param loader      the loader used when the index is expired
+     * @return the matched groups
+     * @throws IOException if the loader failed
+     */
+    public List<SCIMEMUGroup> findByMembers(Collection<String> memberIds, long ttlInMillis, GroupLoader loader) throws IOException {
+        State s = current(ttlInMillis, loader);
+
+        if (memberIds.isEmpty()) {
+            return new ArrayList<>(s.groups.values());
+        }
+
+        // Start from the member which belongs to the fewest groups
+        Set<String> candidates = null;
+        for (String memberId : memberIds) {
+            Set<String> groupIds = s.groupsByMember.getOrDefault(memberId, Collections.emptySet());
+            if (candidates == null || groupIds.size() < candidates.size()) {
+                candidates = groupIds;
+            }
+        }
+
+        List<SCIMEMUGroup> result = new ArrayList<>(candidates.size());
+        for (String groupId : candidates) {
+            boolean containsAll = true;
+            for (String memberId : memberIds) {
+                if (!s.groupsByMember.getOrDefault(memberId, Collections.emptySet()).contains(groupId)) {
+                    containsAll = false;
+                    break;
+                }
+            }
+            // The group may be removed by a concurrent write
+            SCIMEMUGroup group = s.groups.get(groupId);
+            if (containsAll && group != null) {
+                result.add(group);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the index with the groups of a completed full sweep.
+     *
+     * @param allGroups all the groups of the enterprise including their members
+     */
+    public synchronized void rebuild(Iterable<SCIMEMUGroup> allGroups) {
+        state = build(allGroups);
+    }
+
+    /**
+     * Puts the created or fetched group.
+     *
+     * @param group the group including its members
+     */
+    public void put(SCIMEMUGroup group) {
+        if (group == null || group.id == null) {
+            return;
+        }
+        write(s -> s.replace(group));
+    }
+
+    /**
+     * Applies the patch operations sent to the group.
+     *
+     * @param groupId       the group id
+     * @param operations    the patch operations accepted by GitHub
+     * @param userRefPrefix the URL of the SCIM Users endpoint ending with "/", used as $ref of the added members
+     */
+    public void applyPatch(String groupId, SCIMPatchOperations operations, String userRefPrefix) {
+        write(s -> {
+            SCIMEMUGroup current = s.groups.get(groupId);
+            if (current == null) {
+                return;
+            }
+
+            SCIMEMUGroup patched = copy(current);
+            Map<String, SCIMMember> members = new LinkedHashMap<>();
+            if (current.members != null) {
+                for (SCIMMember m : current.members) {
+                    members.put(m.value, m);
+                }
+            }
+
+            for (SCIMPatchOperations.Operation op : operations.operations) {
+                if ("members".equals(op.path) && op.value instanceof List) {
+                    for (Object v : (List<?>) op.value) {
+                        if (!(v instanceof SCIMPatchOperations.Member)) {
+                            continue;
+                        }
+                        String memberId = ((SCIMPatchOperations.Member) v).value;
+                        if ("add".equals(op.op)) {
+                            SCIMMember m = new SCIMMember();
+                            m.value = memberId;
+                            m.ref = userRefPrefix + memberId;
+                            members.putIfAbsent(memberId, m);
+                        } else if ("remove".equals(op.op)) {
+                            members.remove(memberId);
+                        }
+                    }
+                } else if ("replace".equals(op.op) && "displayName".equals(op.path) && op.value instanceof String) {
+                    patched.displayName = (String) op.value;
+                }
+            }
+            patched.members = new ArrayList<>(members.values());
+
+            s.replace(patched);
+        });
+    }
+
+    public void remove(String groupId) {
+        write(s -> s.remove(groupId));
+    }
+
+    /**
+     * Removes the deleted user from the groups. GitHub removes the memberships of a deleted user.
+     *
+     * @param memberId the id of the deleted user
+     */
+    public void removeMember(String memberId) {
+        write(s -> {
+            for (String groupId : s.groupsByMember.getOrDefault(memberId, Collections.emptySet())) {
+                SCIMEMUGroup current = s.groups.get(groupId);
+                if (current == null || current.members == null) {
+                    continue;
+                }
+                SCIMEMUGroup patched = copy(current);
+                patched.members = new ArrayList<>(current.members.size());
+                for (SCIMMember m : current.members) {
+                    if (!memberId.equals(m.value)) {
+                        patched.members.add(m);
+                    }
+                }
+                s.replace(patched);
+            }
+        });
+    }
+
+    public synchronized void invalidate() {
+        state = null;
+    }
+
+    private synchronized void write(Consumer<State> change) {
+        if (pendingWrites != null) {
+            pendingWrites.add(change);
+        }
+        // Writes before the first build are ignored, the sweep will see them
+        State s = state;
+        if (s != null) {
+            change.accept(s);
+        }
+    }
+
+    private State current(long ttlInMillis, GroupLoader loader) throws IOException {
+        State s = state;
+        if (isFresh(s, ttlInMillis)) {
+            return s;
+        }
+        synchronized (rebuildLock) {
+            // Another thread may have rebuilt it while waiting
+            s = state;
+            if (isFresh(s, ttlInMillis)) {
+                return s;
+            }
+
+            synchronized (this) {
+                pendingWrites = new ArrayList<>();
+            }
+            try {
+                // The sweep may not see the writes made while it's running
+                State built = build(loader.load());
+                synchronized (this) {
+                    for (Consumer<State> change : pendingWrites) {
+                        change.accept(built);
+                    }
+                    state = built;
+                    return built;
+                }
+            } finally {
+                synchronized (this) {
+                    pendingWrites = null;
+                }
+            }
+        }
+    }
+
+    private static boolean isFresh(State s, long ttlInMillis) {
+        return s != null && System.currentTimeMillis() - s.builtAt < ttlInMillis;
+    }
+
+    private static State build(Iterable<SCIMEMUGroup> allGroups) {
+        Map<String, Set<String>> groupsByMember = new HashMap<>();
+        State state = new State(System.currentTimeMillis());
+        for (SCIMEMUGroup group : allGroups) {
+            state.groups.put(group.id, group);
+            if (group.members == null) {
+                continue;
+            }
+            for (SCIMMember m : group.members) {
+                groupsByMember.computeIfAbsent(m.value, k -> new LinkedHashSet<>()).add(group.id);
+            }
+        }
+        groupsByMember.forEach((k, v) -> state.groupsByMember.put(k, Collections.unmodifiableSet(v)));
+        return state;
+    }
+
+    private static SCIMEMUGroup copy(SCIMEMUGroup group) {
+        SCIMEMUGroup copy = new SCIMEMUGroup();
+        copy.schemas = group.schemas;
+        copy.meta = group.meta;
+        copy.id = group.id;
+        copy.displayName = group.displayName;
+        copy.members = group.members;
+        copy.externalId = group.externalId;
+        return copy;
+    }
+}
@@ -37,20 +37,23 @@ public class SCIMPageIterator<T extends SCIMSearchResult> implements Iterator<T>
 
     static <T extends SCIMSearchResult> SCIMPageIterator<T> create(GitHubClient client, Class<T> type, GitHubRequest request, int pageSize, int pageOffset) {
         try {
-            if (pageSize > 0) {
-                GitHubRequest.Builder<?> builder = request.toBuilder().with("count", pageSize);
-                if (pageOffset > 0) {
-                    builder.with("startIndex", pageOffset);
-                }
-                request = builder.build();
-            }
-
-            return new SCIMPageIterator<>(client, type, request);
+            return new SCIMPageIterator<>(client, type, withPaging(request, pageSize, pageOffset));
         } catch (MalformedURLException e) {
             throw new GHException("Unable to build GitHub SCIM API URL", e);
         }
     }
 
+    static GitHubRequest withPaging(GitHubRequest request, int pageSize, int pageOffset) throws MalformedURLException {
+        if (pageSize > 0) {
+            GitHubRequest.Builder<?> builder = request.toBuilder().with("count", pageSize);
+            if (pageOffset > 0) {
+                builder.with("startIndex", pageOffset);
+            }
+            request = builder.build();
+        }
+        return request;
+    }
+
     public boolean hasNext() {
         fetch();
         return next != null;
@@ -1,6 +1,16 @@
 package org.kohsuke.github;
 
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
 
 /**
  * {@link PagedIterable} enhanced to report search result specific information.
@@ -8,7 +18,7 @@ import java.util.Iterator;
  * @param <T> the type parameter
  * @author Hiroyuki Wada
  */
-public class SCIMPagedSearchIterable<T> extends PagedIterable<T> {
+public class SCIMPagedSearchIterable<T> extends PagedIterable<T> implements AutoCloseable {
     private final transient GitHub root;
 
     private final GitHubRequest request;
@@ -22,6 +32,16 @@ public class SCIMPagedSearchIterable<T> extends PagedIterable<T> {
     
     private int pageOffset;
 
+    private int pageSize;
+
+    private int prefetchPages;
+
+    private Executor prefetchExecutor;
+
+    private int pageCount;
+
+    private final List<SCIMPrefetchPageIterator<?>> prefetchIterators = new ArrayList<>();
+
     public SCIMPagedSearchIterable(GitHub root, GitHubRequest request, Class<? extends SCIMSearchResult<T>> receiverType) {
         this.root = root;
         this.request = request;
@@ -30,6 +50,7 @@ public class SCIMPagedSearchIterable<T> extends PagedIterable<T> {
 
     @Override
     public SCIMPagedSearchIterable<T> withPageSize(int size) {
+        this.pageSize = size;
         return (SCIMPagedSearchIterable<T>) super.withPageSize(size);
     }
 
@@ -38,6 +59,91 @@ public class SCIMPagedSearchIterable<T> extends PagedIterable<T> {
         return this;
     }
 
+    /**
+     * Fetches up to the given number of following pages in parallel on the executor.
+     * Prefetching is used only when iterating from the first page. {@link #close()} cancels the pages in flight
+     * when the iteration stops early.
+     *
+     * @param pages    the number of pages to keep in flight. 0 disables prefetching
+     * @param executor the executor to fetch pages
+     * @return this
+     */
+    public SCIMPagedSearchIterable<T> withPrefetch(int pages, Executor executor) {
+        this.prefetchPages = pages;
+        this.prefetchExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Streams the resources to the handler as soon as each one is parsed, instead of materializing every page.
+     * When a page offset is set, only that page is read.
+     *
+     * @param fields  top-level SCIM attributes to bind. Other attributes are skipped. null or empty means all
+     * @param handler returns false to stop
+     * @return the total number of hit reported by the server
+     */
+    public int stream(Set<String> fields, Predicate<T> handler) {
+        JavaType elementType = SCIMStreamingParser.resolveElementType(receiverType);
+        Set<String> wanted = null;
+        if (fields != null && !fields.isEmpty()) {
+            wanted = new HashSet<>(fields);
+            // Always needed to identify the resource
+            wanted.add("id");
+            wanted.add("meta");
+        }
+
+        GitHubRequest next;
+        try {
+            next = SCIMPageIterator.withPaging(request, pageSize, pageOffset);
+        } catch (MalformedURLException e) {
+            throw new GHException("Unable to build GitHub SCIM API URL", e);
+        }
+
+        int total = 0;
+        while (next != null) {
+            GitHubRequest current = next;
+            final Set<String> f = wanted;
+            // Survives the replays of this page by github-api
+            final Set<String> delivered = new HashSet<>();
+            SCIMStreamingParser.Page page;
+            try {
+                page = root.getClient()
+                        .sendRequest(current, (responseInfo) -> SCIMStreamingParser.parse(responseInfo, elementType, f, delivered, handler))
+                        .body();
+            } catch (IOException e) {
+                throw new GHException("Failed to retrieve " + current.url(), e);
+            }
+            assert page != null;
+            pageCount++;
+            total = page.totalResults;
+
+            if (page.stopped || pageOffset > 0) {
+                break;
+            }
+
+            // Same condition as SCIMPageIterator#findNextURL
+            long endIndex = (long) page.startIndex + page.itemsPerPage;
+            if (page.itemsPerPage <= 0 || endIndex > page.totalResults) {
+                break;
+            }
+            try {
+                next = current.toBuilder().set("startIndex", endIndex).build();
+            } catch (MalformedURLException e) {
+                throw new GHException("Unable to build GitHub SCIM API URL", e);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of pages fetched so far.
+     *
+     * @return the page count
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
     /**
      * Returns the total number of hit, including the results that's not yet fetched.
      *
@@ -65,11 +171,30 @@ public class SCIMPagedSearchIterable<T> extends PagedIterable<T> {
 
     @Override
     public PagedIterator<T> _iterator(int pageSize) {
-        final Iterator<T[]> adapter = adapt(
-                SCIMPageIterator.create(root.getClient(), receiverType, request, pageSize, pageOffset));
+        final Iterator<T[]> adapter;
+        if (prefetchPages > 0 && prefetchExecutor != null && pageOffset < 1) {
+            SCIMPrefetchPageIterator<? extends SCIMSearchResult<T>> prefetch = SCIMPrefetchPageIterator.create(root.getClient(),
+                    receiverType, request, pageSize, pageOffset, prefetchExecutor, prefetchPages);
+            prefetchIterators.add(prefetch);
+            adapter = adapt(prefetch);
+        } else {
+            adapter = adapt(
+                    SCIMPageIterator.create(root.getClient(), receiverType, request, pageSize, pageOffset));
+        }
         return new PagedIterator<T>(adapter, null);
     }
 
+    /**
+     * Cancels the pages still being prefetched for the iterators of this iterable.
+     */
+    @Override
+    public void close() {
+        for (SCIMPrefetchPageIterator<?> prefetch : prefetchIterators) {
+            prefetch.close();
+        }
+        prefetchIterators.clear();
+    }
+
     /**
      * Adapts {@link Iterator}.
      *
@@ -84,6 +209,7 @@ public class SCIMPagedSearchIterable<T> extends PagedIterable<T> {
 
             public T[] next() {
                 SCIMSearchResult<T> v = base.next();
+                pageCount++;
                 if (result == null)
                     result = v;
                 return v.Resources;
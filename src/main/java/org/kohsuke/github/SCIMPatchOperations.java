@@ -145,4 +145,73 @@ public class SCIMPatchOperations {
     public boolean hasAttributesChange() {
         return !operations.isEmpty();
     }
+
+    /**
+     * Counts the member values of the "add" and "remove" operations for members.
+     *
+     * @return the number of member values
+     */
+    public int countMembers() {
+        int count = 0;
+        for (Operation op : operations) {
+            if (isMembersOperation(op)) {
+                count += ((List<?>) op.value).size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Splits the operations into chunks which have up to chunkSize member values each.
+     * The order of the operations is kept, and the other operations go to the chunk of the preceding members.
+     * The chunks share the value lists with this object, so splitting doesn't copy the members.
+     *
+     * @param chunkSize the maximum number of member values in one chunk. 0 or less means no splitting.
+     * @return the chunks, or a list which only has this object if splitting isn't needed
+     */
+    public List<SCIMPatchOperations> chunkMembers(int chunkSize) {
+        if (chunkSize <= 0 || countMembers() <= chunkSize) {
+            return Collections.singletonList(this);
+        }
+
+        List<SCIMPatchOperations> chunks = new ArrayList<>();
+        SCIMPatchOperations current = new SCIMPatchOperations();
+        int size = 0;
+
+        for (Operation op : operations) {
+            if (!isMembersOperation(op)) {
+                current.operations.add(op);
+                continue;
+            }
+
+            List<?> values = (List<?>) op.value;
+            int from = 0;
+            while (from < values.size()) {
+                if (size == chunkSize) {
+                    chunks.add(current);
+                    current = new SCIMPatchOperations();
+                    size = 0;
+                }
+                int to = Math.min(values.size(), from + chunkSize - size);
+
+                Operation part = new Operation();
+                part.op = op.op;
+                part.path = op.path;
+                part.value = values.subList(from, to);
+                current.operations.add(part);
+
+                size += to - from;
+                from = to;
+            }
+        }
+        if (current.hasAttributesChange()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private static boolean isMembersOperation(Operation op) {
+        return "members".equals(op.path) && ("add".equals(op.op) || "remove".equals(op.op))
+                && op.value instanceof List;
+    }
 }
\ No newline at end of file
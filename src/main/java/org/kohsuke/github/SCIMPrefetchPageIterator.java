@@ -0,0 +1,190 @@
+package org.kohsuke.github;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+
+/**
+ * Used for any SCIM resource that has pagination information, fetching the following pages in parallel.
+ * <p>
+ * SCIM paging uses startIndex/count and the first page tells totalResults, so all the remaining page URLs
+ * are known after the first page. This iterator keeps up to {@code maxInFlight} pages in flight on the given executor
+ * and still returns the pages in order. Call {@link #close()} when stopping before the last page, so the pages in flight
+ * are cancelled.
+ * <p>
+ * This class is not thread-safe. Any one instance should only be called from a single thread.
+ *
+ * @param <T> the type parameter
+ * @author Hiroyuki Wada
+ */
+public class SCIMPrefetchPageIterator<T extends SCIMSearchResult> implements Iterator<T>, Closeable {
+
+    private final GitHubClient client;
+    private final Class<T> type;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    private final Deque<Future<GitHubResponse<T>>> inFlight = new ArrayDeque<>();
+
+    private GitHubRequest firstRequest;
+    private GitHubRequest baseRequest;
+    private long nextStartIndex;
+    private long itemsPerPage;
+    private long totalResults;
+
+    private T next;
+
+    private GitHubResponse<T> finalResponse = null;
+
+    SCIMPrefetchPageIterator(GitHubClient client, Class<T> type, GitHubRequest request, Executor executor, int maxInFlight) {
+        if (!"GET".equals(request.method())) {
+            throw new IllegalStateException("Request method \"GET\" is required for page iterator.");
+        }
+
+        this.client = client;
+        this.type = type;
+        this.firstRequest = request;
+        this.executor = executor;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    static <T extends SCIMSearchResult> SCIMPrefetchPageIterator<T> create(GitHubClient client, Class<T> type, GitHubRequest request, int pageSize, int pageOffset,
+                                                                          Executor executor, int maxInFlight) {
+        try {
+            return new SCIMPrefetchPageIterator<>(client, type, SCIMPageIterator.withPaging(request, pageSize, pageOffset), executor, maxInFlight);
+        } catch (MalformedURLException e) {
+            throw new GHException("Unable to build GitHub SCIM API URL", e);
+        }
+    }
+
+    public boolean hasNext() {
+        fetch();
+        return next != null;
+    }
+
+    public T next() {
+        fetch();
+        T result = next;
+        if (result == null)
+            throw new NoSuchElementException();
+        next = null;
+        return result;
+    }
+
+    public GitHubResponse<T> finalResponse() {
+        if (hasNext()) {
+            throw new GHException("Final response is not available until after iterator is done.");
+        }
+        return finalResponse;
+    }
+
+    private void fetch() {
+        if (next != null)
+            return; // already fetched
+
+        GitHubResponse<T> response;
+        if (firstRequest != null) {
+            // The first page is fetched synchronously to know totalResults
+            GitHubRequest request = firstRequest;
+            firstRequest = null;
+            try {
+                response = send(request);
+            } catch (IOException e) {
+                throw new GHException("Failed to retrieve " + request.url(), e);
+            }
+
+            T res = response.body();
+            assert res != null;
+            itemsPerPage = res.itemsPerPage;
+            totalResults = res.totalResults;
+            nextStartIndex = (long) res.startIndex + res.itemsPerPage;
+            baseRequest = response.request();
+
+        } else {
+            Future<GitHubResponse<T>> future = inFlight.poll();
+            if (future == null)
+                return; // no more data to fetch
+            response = await(future);
+        }
+
+        next = response.body();
+        prefetch();
+
+        if (inFlight.isEmpty()) {
+            finalResponse = response;
+        }
+    }
+
+    private boolean hasMorePages() {
+        // Same condition as SCIMPageIterator#findNextURL
+        return itemsPerPage > 0 && nextStartIndex <= totalResults;
+    }
+
+    private void prefetch() {
+        while (inFlight.size() < maxInFlight && hasMorePages()) {
+            GitHubRequest request;
+            try {
+                request = baseRequest.toBuilder().set("startIndex", nextStartIndex).build();
+            } catch (MalformedURLException e) {
+                throw new GHException("Unable to build GitHub SCIM API URL", e);
+            }
+            nextStartIndex += itemsPerPage;
+
+            // FutureTask, unlike CompletableFuture, interrupts the running request when cancelled
+            FutureTask<GitHubResponse<T>> task = new FutureTask<>(() -> {
+                try {
+                    return send(request);
+                } catch (IOException e) {
+                    throw new GHException("Failed to retrieve " + request.url(), e);
+                }
+            });
+            inFlight.add(task);
+            executor.execute(task);
+        }
+    }
+
+    private GitHubResponse<T> send(GitHubRequest request) throws IOException {
+        return client.sendRequest(request, (responseInfo) -> GitHubResponse.parseBody(responseInfo, type));
+    }
+
+    private GitHubResponse<T> await(Future<GitHubResponse<T>> future) {
+        try {
+            return future.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll();
+            throw new GHException("Interrupted while retrieving SCIM pages", e);
+
+        } catch (ExecutionException e) {
+            cancelAll();
+            Throwable cause = e.getCause();
+            if (cause instanceof GHException) {
+                throw (GHException) cause;
+            }
+            throw new GHException("Failed to retrieve SCIM pages", cause);
+        }
+    }
+
+    /**
+     * Cancels the pages in flight. The iterator has no more pages after this.
+     */
+    @Override
+    public void close() {
+        firstRequest = null;
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        for (Future<GitHubResponse<T>> f : inFlight) {
+            f.cancel(true);
+        }
+        inFlight.clear();
+        nextStartIndex = Long.MAX_VALUE;
+    }
+}
@@ -1,13 +1,19 @@
 package org.kohsuke.github;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public abstract class SCIMSearchBuilder<T> extends GHQueryBuilder<T> {
     protected final Map<String, String> filter = new HashMap<>();
+    protected final Set<String> excludedAttributes = new LinkedHashSet<>();
+    protected String filterExpression;
 
     /**
      * Data transfer object that receives the result of search.
@@ -51,6 +57,28 @@ public abstract class SCIMSearchBuilder<T> extends GHQueryBuilder<T> {
         return this;
     }
 
+    /**
+     * Search filter expression, which is combined with the {@link #eq(String, String)} filters by "and".
+     *
+     * @param expression the SCIM filter expression (e.g. {@code externalId eq "1234"})
+     * @return the SCIM search builder
+     */
+    public SCIMSearchBuilder<T> filter(String expression) {
+        this.filterExpression = expression;
+        return this;
+    }
+
+    /**
+     * Excludes the specified attributes from the results.
+     *
+     * @param excludedAttributes the SCIM attribute names
+     * @return the SCIM search builder
+     */
+    public SCIMSearchBuilder<T> excludedAttributes(Collection<String> excludedAttributes) {
+        this.excludedAttributes.addAll(excludedAttributes);
+        return this;
+    }
+
     /**
      * Performs the search.
      */
@@ -58,13 +86,20 @@ public abstract class SCIMSearchBuilder<T> extends GHQueryBuilder<T> {
     public SCIMPagedSearchIterable<T> list() {
         List<String> f = filter.entrySet().stream()
                 .map(entry -> entry.getKey() + " eq \"" + escape(entry.getValue()) + "\"")
-                .collect(Collectors.toList());
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (filterExpression != null) {
+            f.add(f.isEmpty() ? filterExpression : "(" + filterExpression + ")");
+        }
 
         if (!f.isEmpty()) {
             String filterStr = String.join(" and ", f);
             req.set("filter", filterStr);
         }
 
+        if (!excludedAttributes.isEmpty()) {
+            req.set("excludedAttributes", String.join(",", excludedAttributes));
+        }
+
         try {
             return new SCIMPagedSearchIterable<>(root, req.build(), receiverType);
         } catch (MalformedURLException e) {
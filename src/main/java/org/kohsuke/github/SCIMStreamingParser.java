@@ -0,0 +1,148 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Parses a SCIM list response with Jackson's streaming API.
+ * <p>
+ * Each resource in "Resources" is bound and handed to the handler as soon as it's parsed, so a page is never
+ * materialized as a whole. Top-level fields of the resource which aren't requested are skipped without binding.
+ * <p>
+ * github-api replays the request when reading the body fails with a network error, so the same page can be parsed
+ * more than once. The ids handed over are recorded per page and the resources already handed over are skipped.
+ *
+ * @author Hiroyuki Wada
+ */
+class SCIMStreamingParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Paging information of the parsed page.
+     */
+    static class Page {
+        int totalResults;
+        int itemsPerPage;
+        int startIndex;
+        int count;
+        boolean stopped;
+    }
+
+    private SCIMStreamingParser() {
+    }
+
+    static JavaType resolveElementType(Class<?> receiverType) {
+        JavaType[] params = MAPPER.getTypeFactory().constructType(receiverType).findTypeParameters(SCIMSearchResult.class);
+        if (params == null || params.length != 1) {
+            throw new GHException("Unable to resolve SCIM resource type of " + receiverType.getName());
+        }
+        return params[0];
+    }
+
+    /**
+     * Parses the page.
+     *
+     * @param responseInfo the response
+     * @param elementType  the resource type
+     * @param fields       top-level attributes to bind. null means all
+     * @param delivered    ids of the resources of this page already handed to the handler. Updated while parsing
+     * @param handler      returns false to stop
+     * @param <T>          the resource type
+     * @return the paging information
+     * @throws IOException if the response isn't a SCIM list response
+     */
+    static <T> Page parse(GitHubResponse.ResponseInfo responseInfo, JavaType elementType, Set<String> fields,
+                          Set<String> delivered, Predicate<T> handler) throws IOException {
+        Page page = new Page();
+
+        try (InputStream in = responseInfo.bodyStream();
+             JsonParser p = MAPPER.getFactory().createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected SCIM list response from " + responseInfo.url());
+            }
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.getCurrentName();
+                p.nextToken();
+
+                switch (name) {
+                    case "totalResults":
+                        page.totalResults = p.getValueAsInt();
+                        break;
+                    case "itemsPerPage":
+                        page.itemsPerPage = p.getValueAsInt();
+                        break;
+                    case "startIndex":
+                        page.startIndex = p.getValueAsInt();
+                        break;
+                    case "Resources":
+                        if (p.currentToken() != JsonToken.START_ARRAY) {
+                            p.skipChildren();
+                            break;
+                        }
+                        while (p.nextToken() == JsonToken.START_OBJECT) {
+                            TokenBuffer buffer = new TokenBuffer(p);
+                            String id = copyResource(p, buffer, fields);
+                            page.count++;
+                            if (id != null && !delivered.add(id)) {
+                                // Handed over before the request was replayed
+                                continue;
+                            }
+                            T resource = bind(buffer, elementType);
+                            if (!handler.test(resource)) {
+                                // Stop reading the rest of the body
+                                page.stopped = true;
+                                return page;
+                            }
+                        }
+                        break;
+                    default:
+                        p.skipChildren();
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Copies the requested top-level fields of the resource into the buffer.
+     *
+     * @return the id of the resource, or null if it has no id
+     */
+    private static String copyResource(JsonParser p, TokenBuffer buffer, Set<String> fields) throws IOException {
+        String id = null;
+        buffer.writeStartObject();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.getCurrentName();
+            p.nextToken();
+            if (fields == null || fields.contains(name)) {
+                if (name.equals("id") && p.currentToken() == JsonToken.VALUE_STRING) {
+                    id = p.getText();
+                }
+                buffer.writeFieldName(name);
+                buffer.copyCurrentStructure(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        buffer.writeEndObject();
+        return id;
+    }
+
+    private static <T> T bind(TokenBuffer buffer, JavaType elementType) throws IOException {
+        try (JsonParser bp = buffer.asParser(MAPPER)) {
+            return MAPPER.readValue(bp, elementType);
+        }
+    }
+}
@@ -164,7 +164,7 @@ class AbstractGitHubHandlerTest {
     }
 
     @Test
-    void initShouldCreateClientAndLoadSchemaAndWrapRuntimeException() {
+    void initShouldDeferClientAndSchemaUntilFirstUse() {
         GitHubClient<AbstractGitHubSchema<TestConfiguration>> client = mock(GitHubClient.class);
         AbstractGitHubSchema<TestConfiguration> schema = mock(AbstractGitHubSchema.class);
         when(schema.getSchema()).thenReturn(minimalSchema());
@@ -172,6 +172,13 @@ class AbstractGitHubHandlerTest {
         TestConnector connector = new TestConnector(client, schema);
 
         connector.init(new TestConfiguration());
+        connector.setInstanceName("inst");
+        assertNull(connector.client);
+        verify(schema, never()).getSchema();
+
+        connector.schema();
+        assertSame(client, connector.client);
+        verify(client).setInstanceName("inst");
         verify(schema).getSchema();
 
         TestConnector failing = new TestConnector(client, schema) {
@@ -181,7 +188,8 @@ class AbstractGitHubHandlerTest {
             }
         };
 
-        ConnectorException ex = assertThrows(ConnectorException.class, () -> failing.init(new TestConfiguration()));
+        failing.init(new TestConfiguration());
+        ConnectorException ex = assertThrows(ConnectorException.class, failing::schema);
         assertNotNull(ex.getCause());
     }
 
@@ -423,9 +431,26 @@ class AbstractGitHubHandlerTest {
     }
 
     @Test
-    void checkAliveShouldDoNothing() {
-        TestConnector connector = new TestConnector(mock(GitHubClient.class), mock(AbstractGitHubSchema.class));
+    void checkAliveShouldDelegateToClient() {
+        GitHubClient<AbstractGitHubSchema<TestConfiguration>> client = mock(GitHubClient.class);
+        TestConnector connector = new TestConnector(client, mock(AbstractGitHubSchema.class));
+        connector.client = client;
+
+        connector.checkAlive();
+        verify(client).checkAlive();
+
+        doThrow(new RuntimeException("boom")).when(client).checkAlive();
+        assertThrows(ConnectorException.class, connector::checkAlive);
+    }
+
+    @Test
+    void checkAliveShouldSkipUntilClientIsCreated() {
+        GitHubClient<AbstractGitHubSchema<TestConfiguration>> client = mock(GitHubClient.class);
+        TestConnector connector = new TestConnector(client, mock(AbstractGitHubSchema.class));
+        connector.init(new TestConfiguration());
+
         connector.checkAlive();
+        verify(client, never()).checkAlive();
     }
 
     @Test
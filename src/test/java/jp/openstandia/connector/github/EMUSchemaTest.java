@@ -16,13 +16,17 @@
 package jp.openstandia.connector.github;
 
 import jp.openstandia.connector.github.testutil.AbstractEMUTest;
+import org.identityconnectors.framework.api.operations.SyncApiOp;
+import org.identityconnectors.framework.common.objects.ObjectClass;
 import org.identityconnectors.framework.common.objects.ObjectClassInfo;
 import org.identityconnectors.framework.common.objects.Schema;
 import org.junit.jupiter.api.Test;
 
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 class EMUSchemaTest extends AbstractEMUTest {
 
@@ -40,5 +44,24 @@ class EMUSchemaTest extends AbstractEMUTest {
         assertTrue(user.isPresent());
         assertTrue(team.isPresent());
         assertTrue(seat.isPresent());
+
+        Set<ObjectClassInfo> syncable = schema.getSupportedObjectClassesByOperation(SyncApiOp.class);
+        assertTrue(syncable.contains(user.get()));
+        assertTrue(syncable.contains(team.get()));
+        assertFalse(syncable.contains(seat.get()));
+    }
+
+    @Test
+    void definitionsAreSharedAcrossInstances() {
+        GitHubEMUSchema schema1 = new GitHubEMUSchema(new GitHubEMUConfiguration(), mock(GitHubClient.class));
+        GitHubEMUSchema schema2 = new GitHubEMUSchema(new GitHubEMUConfiguration(), mock(GitHubClient.class));
+
+        assertSame(schema1.getSchema(), schema2.getSchema());
+        for (ObjectClass oc : new ObjectClass[]{GitHubEMUUserHandler.USER_OBJECT_CLASS,
+                GitHubEMUGroupHandler.GROUP_OBJECT_CLASS, GitHubCopilotSeatHandler.SEAT_OBJECT_CLASS}) {
+            // The handlers hold the client of each instance
+            assertNotSame(schema1.getSchemaHandler(oc), schema2.getSchemaHandler(oc));
+            assertSame(schema1.getSchemaHandler(oc).getSchemaDefinition(), schema2.getSchemaHandler(oc).getSchemaDefinition());
+        }
     }
-}
\ No newline at end of file
+}
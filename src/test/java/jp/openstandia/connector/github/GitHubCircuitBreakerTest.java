@@ -0,0 +1,143 @@
+package jp.openstandia.connector.github;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static jp.openstandia.connector.github.GitHubCircuitBreaker.Group.*;
+import static jp.openstandia.connector.github.GitHubCircuitBreaker.State.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final AtomicInteger probes = new AtomicInteger();
+
+    private GitHubCircuitBreaker newBreaker(int threshold, long slowCallMillis, int windowSize) {
+        return new GitHubCircuitBreaker(new GitHubCircuitBreaker.Settings(threshold, slowCallMillis, windowSize, 30000),
+                now::get);
+    }
+
+    private void healthy() {
+        probes.incrementAndGet();
+    }
+
+    private void unhealthy() {
+        probes.incrementAndGet();
+        throw new IllegalStateException("down");
+    }
+
+    private void openUsers(GitHubCircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.record(SCIM_USERS, true, 10);
+        }
+        assertEquals(OPEN, breaker.getState(SCIM_USERS));
+    }
+
+    @Test
+    void groupOf() {
+        assertEquals(SCIM_USERS, GitHubCircuitBreaker.groupOf(HttpUrl.get("https://api.github.com/scim/v2/enterprises/e/Users/abc")));
+        assertEquals(SCIM_GROUPS, GitHubCircuitBreaker.groupOf(HttpUrl.get("https://api.github.com/scim/v2/enterprises/e/Groups?count=10")));
+        assertEquals(COPILOT, GitHubCircuitBreaker.groupOf(HttpUrl.get("https://api.github.com/enterprises/e/copilot/billing/seats")));
+        assertNull(GitHubCircuitBreaker.groupOf(HttpUrl.get("https://api.github.com/")));
+        assertNull(GitHubCircuitBreaker.groupOf(HttpUrl.get("https://api.github.com/rate_limit")));
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() throws Exception {
+        GitHubCircuitBreaker breaker = newBreaker(50, 0, 4);
+
+        breaker.record(SCIM_USERS, true, 10);
+        breaker.record(SCIM_USERS, true, 10);
+        breaker.record(SCIM_USERS, false, 10);
+        // Not decided until the window is full
+        assertEquals(CLOSED, breaker.getState(SCIM_USERS));
+        breaker.acquire(SCIM_USERS, this::healthy);
+
+        breaker.record(SCIM_USERS, false, 10);
+        assertEquals(OPEN, breaker.getState(SCIM_USERS));
+        assertThrows(GitHubCircuitBreaker.OpenException.class, () -> breaker.acquire(SCIM_USERS, this::healthy));
+        assertEquals(0, probes.get());
+
+        // The other groups aren't affected
+        assertEquals(CLOSED, breaker.getState(SCIM_GROUPS));
+        breaker.acquire(SCIM_GROUPS, this::healthy);
+    }
+
+    @Test
+    void staysClosedBelowThreshold() {
+        GitHubCircuitBreaker breaker = newBreaker(50, 0, 4);
+
+        for (int i = 0; i < 20; i++) {
+            breaker.record(COPILOT, i % 4 == 0, 10);
+        }
+
+        assertEquals(CLOSED, breaker.getState(COPILOT));
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        GitHubCircuitBreaker breaker = newBreaker(100, 500, 2);
+
+        breaker.record(SCIM_GROUPS, false, 400);
+        breaker.record(SCIM_GROUPS, false, 600);
+        assertEquals(CLOSED, breaker.getState(SCIM_GROUPS));
+
+        breaker.record(SCIM_GROUPS, false, 700);
+        assertEquals(OPEN, breaker.getState(SCIM_GROUPS));
+    }
+
+    @Test
+    void probeClosesAfterOpenDuration() throws Exception {
+        GitHubCircuitBreaker breaker = newBreaker(50, 0, 4);
+        openUsers(breaker);
+
+        now.addAndGet(29999);
+        assertThrows(GitHubCircuitBreaker.OpenException.class, () -> breaker.acquire(SCIM_USERS, this::healthy));
+        assertEquals(0, probes.get());
+
+        now.addAndGet(1);
+        breaker.acquire(SCIM_USERS, this::healthy);
+        assertEquals(1, probes.get());
+        assertEquals(CLOSED, breaker.getState(SCIM_USERS));
+
+        // The window starts over
+        breaker.record(SCIM_USERS, true, 10);
+        assertEquals(CLOSED, breaker.getState(SCIM_USERS));
+    }
+
+    @Test
+    void failedProbeOpensAgain() {
+        GitHubCircuitBreaker breaker = newBreaker(50, 0, 4);
+        openUsers(breaker);
+
+        now.addAndGet(30000);
+        assertThrows(GitHubCircuitBreaker.OpenException.class, () -> breaker.acquire(SCIM_USERS, this::unhealthy));
+        assertEquals(1, probes.get());
+        assertEquals(OPEN, breaker.getState(SCIM_USERS));
+
+        // Waits for another open duration before probing again
+        now.addAndGet(10000);
+        assertThrows(GitHubCircuitBreaker.OpenException.class, () -> breaker.acquire(SCIM_USERS, this::healthy));
+        assertEquals(1, probes.get());
+    }
+
+    @Test
+    void forEnterprise() {
+        GitHubEMUConfiguration conf = new GitHubEMUConfiguration();
+        conf.setCircuitBreakerFailureRateThreshold(50);
+        GitHubCircuitBreaker breaker = GitHubCircuitBreaker.forEnterprise("https://api.github.com|breaker-test", conf);
+
+        assertSame(breaker, GitHubCircuitBreaker.forEnterprise("https://api.github.com|breaker-test", conf));
+
+        GitHubEMUConfiguration other = new GitHubEMUConfiguration();
+        other.setCircuitBreakerFailureRateThreshold(50);
+        other.setCircuitBreakerWindowSize(10);
+        assertNotSame(breaker, GitHubCircuitBreaker.forEnterprise("https://api.github.com|breaker-test", other));
+
+        // Other settings don't replace the circuit breaker in use
+        assertSame(breaker, GitHubCircuitBreaker.forEnterprise("https://api.github.com|breaker-test", conf));
+    }
+}
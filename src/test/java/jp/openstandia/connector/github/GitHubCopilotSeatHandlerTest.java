@@ -0,0 +1,98 @@
+package jp.openstandia.connector.github;
+
+import jp.openstandia.connector.util.FilteredQueryHandler;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GitHubCopilotSeat;
+import org.kohsuke.github.GitHubCopilotSeatAssignee;
+import org.kohsuke.github.GitHubCopilotSeatAssigningTeam;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubCopilotSeatHandlerTest {
+
+    private static GitHubCopilotSeat seat(String login, String team, String lastActivityAt) {
+        GitHubCopilotSeat seat = new GitHubCopilotSeat();
+        seat.assignee = new GitHubCopilotSeatAssignee();
+        seat.assignee.login = login;
+        seat.assignee.type = "User";
+        seat.plan_type = "business";
+        if (team != null) {
+            seat.assigning_team = new GitHubCopilotSeatAssigningTeam();
+            seat.assigning_team.slug = team;
+        }
+        seat.last_activity_at = lastActivityAt;
+        return seat;
+    }
+
+    private static final List<GitHubCopilotSeat> SEATS = Arrays.asList(
+            seat("u1", "dev", "2024-01-10T00:00:00Z"),
+            seat("u2", "ops", "2024-03-10T00:00:00+09:00"),
+            seat("u3", null, null),
+            seat("u4", "dev", "2024-06-01T00:00:00Z"),
+            seat("u5", "dev", "2024-02-01T00:00:00Z")
+    );
+
+    private static GitHubFilter eq(String name, Object value) {
+        return GitHubFilter.ByAttribute(name, GitHubFilter.FilterType.EXACT_MATCH, AttributeBuilder.build(name, value));
+    }
+
+    private static GitHubFilter range(GitHubFilter.FilterType type, String value) {
+        return GitHubFilter.ByAttribute("last_activity_at", type,
+                AttributeBuilder.build("last_activity_at", ZonedDateTime.parse(value)));
+    }
+
+    private static List<String> match(GitHubFilter filter) {
+        Predicate<GitHubCopilotSeat> predicate = GitHubCopilotSeatHandler.toPredicate(filter);
+        return SEATS.stream().filter(predicate).map(s -> s.assignee.login).collect(Collectors.toList());
+    }
+
+    @Test
+    void equalsConditions() {
+        assertEquals(Arrays.asList("u1", "u4", "u5"), match(eq("assigning_team.slug", "dev")));
+        assertEquals(5, match(eq("plan_type", "business")).size());
+        assertEquals(0, match(eq("assignee.type", "Organization")).size());
+        assertEquals(Arrays.asList("u4"), match(eq("last_activity_at", ZonedDateTime.parse("2024-06-01T00:00:00Z"))));
+    }
+
+    @Test
+    void rangeConditionsCompareInstants() {
+        // u2 is 2024-03-09T15:00:00Z
+        assertEquals(Arrays.asList("u1", "u5"),
+                match(range(GitHubFilter.FilterType.LESS_THAN, "2024-03-09T15:00:00Z")));
+        assertEquals(Arrays.asList("u1", "u2", "u5"),
+                match(range(GitHubFilter.FilterType.LESS_THAN_OR_EQUAL, "2024-03-09T15:00:00Z")));
+        assertEquals(Arrays.asList("u4"),
+                match(range(GitHubFilter.FilterType.GREATER_THAN, "2024-03-09T15:00:00Z")));
+        assertEquals(Arrays.asList("u2", "u4"),
+                match(range(GitHubFilter.FilterType.GREATER_THAN_OR_EQUAL, "2024-03-09T15:00:00Z")));
+    }
+
+    @Test
+    void andConditions() {
+        GitHubFilter filter = GitHubFilter.And(eq("assigning_team.slug", "dev"),
+                range(GitHubFilter.FilterType.LESS_THAN, "2024-05-01T00:00:00Z"));
+
+        assertEquals(Arrays.asList("u1", "u5"), match(filter));
+    }
+
+    @Test
+    void filteredQueryHandlerPagesTheMatchedSeats() {
+        List<String> page = new ArrayList<>();
+        FilteredQueryHandler<GitHubCopilotSeat> handler = new FilteredQueryHandler<>(
+                GitHubCopilotSeatHandler.toPredicate(eq("plan_type", "business")),
+                s -> page.add(s.assignee.login), 2, 2);
+
+        SEATS.forEach(handler::handle);
+
+        assertEquals(Arrays.asList("u2", "u3"), page);
+        assertEquals(5, handler.getMatched());
+    }
+}
@@ -6,6 +6,12 @@ import org.identityconnectors.framework.common.objects.Name;
 import org.identityconnectors.framework.common.objects.Uid;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GitHubFilterTest {
@@ -88,4 +94,67 @@ class GitHubFilterTest {
         // este teste deve ser duplicado com um tipo diferente e esperar false.
         assertTrue(f.isByMembers());
     }
+
+    @Test
+    void byMember_startsWith_shouldReportIsByMembersFalse() {
+        Attribute memberAttr = AttributeBuilder.build("members.User.value", "u-002");
+        GitHubFilter f = GitHubFilter.ByMember("members.User.value", GitHubFilter.FilterType.STARTS_WITH, memberAttr);
+
+        assertFalse(f.isByMembers());
+    }
+
+    private static GitHubFilter condition(String name, GitHubFilter.FilterType type, String value) {
+        return GitHubFilter.ByAttribute(name, type, AttributeBuilder.build(name, value));
+    }
+
+    @Test
+    void toSCIMFilter_rendersTheTree() {
+        GitHubFilter eq = condition("externalId", GitHubFilter.FilterType.EXACT_MATCH, "e\\1\"");
+        GitHubFilter sw = condition("userName", GitHubFilter.FilterType.STARTS_WITH, "al");
+        GitHubFilter mail = condition("emails", GitHubFilter.FilterType.EXACT_MATCH, "a@b.c");
+
+        assertEquals("externalId eq \"e\\\\1\\\"\"", eq.toSCIMFilter());
+        assertEquals("userName sw \"al\" or emails eq \"a@b.c\"", GitHubFilter.Or(sw, mail).toSCIMFilter());
+        assertEquals("externalId eq \"e\\\\1\\\"\" and (userName sw \"al\" or emails eq \"a@b.c\")",
+                GitHubFilter.And(eq, GitHubFilter.Or(sw, mail)).toSCIMFilter());
+    }
+
+    @Test
+    void andOr_flattenTheSameOperator() {
+        GitHubFilter a = condition("userName", GitHubFilter.FilterType.EXACT_MATCH, "a");
+        GitHubFilter b = condition("userName", GitHubFilter.FilterType.EXACT_MATCH, "b");
+        GitHubFilter c = condition("userName", GitHubFilter.FilterType.EXACT_MATCH, "c");
+
+        GitHubFilter or = GitHubFilter.Or(GitHubFilter.Or(a, b), c);
+        assertEquals(GitHubFilter.FilterType.OR, or.filterType);
+        assertEquals(3, or.conditions.size());
+        assertEquals(3, or.disjuncts().size());
+        assertEquals(1, a.disjuncts().size());
+
+        GitHubFilter and = GitHubFilter.And(a, GitHubFilter.And(b, c));
+        assertEquals(GitHubFilter.FilterType.AND, and.filterType);
+        assertEquals(3, and.conditions.size());
+    }
+
+    @Test
+    void toPredicate_comparesValues() {
+        BiFunction<Map<String, String>, String, Collection<String>> values =
+                (m, attr) -> Collections.singletonList(m.get(attr));
+        Map<String, String> alice = new HashMap<>();
+        alice.put("userName", "Alice");
+        alice.put("externalId", "E1");
+
+        assertTrue(condition("userName", GitHubFilter.FilterType.EXACT_MATCH, "alice").toPredicate(values).test(alice));
+        assertTrue(condition("userName", GitHubFilter.FilterType.STARTS_WITH, "AL").toPredicate(values).test(alice));
+        assertFalse(condition("userName", GitHubFilter.FilterType.STARTS_WITH, "Alicia").toPredicate(values).test(alice));
+        // externalId is case exact
+        assertFalse(condition("externalId", GitHubFilter.FilterType.EXACT_MATCH, "e1").toPredicate(values).test(alice));
+
+        GitHubFilter or = GitHubFilter.Or(condition("externalId", GitHubFilter.FilterType.EXACT_MATCH, "e1"),
+                condition("userName", GitHubFilter.FilterType.EXACT_MATCH, "alice"));
+        assertTrue(or.toPredicate(values).test(alice));
+        GitHubFilter and = GitHubFilter.And(condition("externalId", GitHubFilter.FilterType.EXACT_MATCH, "e1"),
+                condition("userName", GitHubFilter.FilterType.EXACT_MATCH, "alice"));
+        assertFalse(and.toPredicate(values).test(alice));
+    }
 }
@@ -3,8 +3,15 @@ package jp.openstandia.connector.github;
 import org.identityconnectors.framework.common.objects.*;
 import org.identityconnectors.framework.common.objects.filter.ContainsAllValuesFilter;
 import org.identityconnectors.framework.common.objects.filter.EqualsFilter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.identityconnectors.framework.common.objects.filter.GreaterThanFilter;
+import org.identityconnectors.framework.common.objects.filter.LessThanFilter;
+import org.identityconnectors.framework.common.objects.filter.StartsWithFilter;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZonedDateTime;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GitHubFilterTranslatorTest {
@@ -111,4 +118,109 @@ class GitHubFilterTranslatorTest {
 
         assertNull(f);
     }
+
+    @Test
+    void equalsExpression_onSeatAttribute_returnsByAttributes() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(GitHubCopilotSeatHandler.SEAT_OBJECT_CLASS, opts());
+
+        Attribute planType = AttributeBuilder.build("plan_type", "business");
+        GitHubFilter f = tr.createEqualsExpression(new EqualsFilter(planType), false);
+
+        assertNotNull(f);
+        assertTrue(f.isByAttributes());
+        assertFalse(f.isByMembers());
+        assertEquals(1, f.conditions.size());
+        assertEquals("plan_type", f.conditions.get(0).attributeName);
+        assertEquals(GitHubFilter.FilterType.EXACT_MATCH, f.conditions.get(0).filterType);
+    }
+
+    @Test
+    void equalsExpression_onSeatAttributeOfOtherObjectClass_returnsNull() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(ObjectClass.ACCOUNT, opts());
+
+        Attribute planType = AttributeBuilder.build("plan_type", "business");
+        assertNull(tr.createEqualsExpression(new EqualsFilter(planType), false));
+    }
+
+    @Test
+    void rangeExpression_onSeatLastActivity() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(GitHubCopilotSeatHandler.SEAT_OBJECT_CLASS, opts());
+
+        Attribute lastActivity = AttributeBuilder.build("last_activity_at", ZonedDateTime.parse("2024-06-01T00:00:00Z"));
+        GitHubFilter f = tr.createLessThanExpression(new LessThanFilter(lastActivity), false);
+
+        assertNotNull(f);
+        assertEquals(GitHubFilter.FilterType.LESS_THAN, f.conditions.get(0).filterType);
+        assertNull(tr.createLessThanExpression(new LessThanFilter(lastActivity), true));
+
+        Attribute planType = AttributeBuilder.build("plan_type", "business");
+        assertNull(tr.createGreaterThanExpression(new GreaterThanFilter(planType), false));
+    }
+
+    @Test
+    void translate_andOfSeatConditions_isMergedIntoOneFilter() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(GitHubCopilotSeatHandler.SEAT_OBJECT_CLASS, opts());
+
+        List<GitHubFilter> filters = tr.translate(FilterBuilder.and(
+                FilterBuilder.equalTo(AttributeBuilder.build("assigning_team.slug", "dev")),
+                FilterBuilder.greaterThanOrEqualTo(AttributeBuilder.build("last_activity_at", ZonedDateTime.parse("2024-01-01T00:00:00Z")))));
+
+        assertEquals(1, filters.size());
+        assertEquals(2, filters.get(0).conditions.size());
+        assertEquals("assigning_team.slug", filters.get(0).conditions.get(0).attributeName);
+        assertEquals(GitHubFilter.FilterType.GREATER_THAN_OR_EQUAL, filters.get(0).conditions.get(1).filterType);
+    }
+
+    @Test
+    void equalsExpression_onUserPrimaryEmail_usesSCIMAttribute() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(GitHubEMUUserHandler.USER_OBJECT_CLASS, opts());
+
+        GitHubFilter f = tr.createEqualsExpression(new EqualsFilter(AttributeBuilder.build("primaryEmail", "a@b.c")), false);
+
+        assertTrue(f.isByAttributes());
+        assertEquals("emails eq \"a@b.c\"", f.toSCIMFilter());
+    }
+
+    @Test
+    void startsWithExpression_onGroupName() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(GitHubEMUGroupHandler.GROUP_OBJECT_CLASS, opts());
+
+        GitHubFilter f = tr.createStartsWithExpression(new StartsWithFilter(new Name("dev-")), false);
+
+        assertEquals("displayName sw \"dev-\"", f.toSCIMFilter());
+        assertNull(tr.createStartsWithExpression(new StartsWithFilter(new Name("dev-")), true));
+        assertNull(tr.createStartsWithExpression(new StartsWithFilter(new Uid("1")), false));
+    }
+
+    @Test
+    void translate_orOfUserConditions_isOneFilter() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(GitHubEMUUserHandler.USER_OBJECT_CLASS, opts());
+
+        List<GitHubFilter> filters = tr.translate(FilterBuilder.or(
+                FilterBuilder.equalTo(new Name("alice")),
+                FilterBuilder.equalTo(AttributeBuilder.build("externalId", "e1"))));
+
+        assertEquals(1, filters.size());
+        assertEquals("userName eq \"alice\" or externalId eq \"e1\"", filters.get(0).toSCIMFilter());
+    }
+
+    @Test
+    void translate_andWithUid_usesUid() {
+        GitHubFilterTranslator tr =
+                new GitHubFilterTranslator(GitHubEMUUserHandler.USER_OBJECT_CLASS, opts());
+
+        List<GitHubFilter> filters = tr.translate(FilterBuilder.and(
+                FilterBuilder.equalTo(AttributeBuilder.build("externalId", "e1")),
+                FilterBuilder.equalTo(new Uid("123"))));
+
+        assertEquals(1, filters.size());
+        assertTrue(filters.get(0).isByUid());
+    }
 }
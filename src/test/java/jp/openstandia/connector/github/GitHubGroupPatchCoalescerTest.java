@@ -0,0 +1,165 @@
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
+import org.identityconnectors.framework.common.exceptions.UnknownUidException;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.SCIMPatchOperations;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubGroupPatchCoalescerTest {
+
+    private static SCIMPatchOperations add(String... ids) {
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.addMembers(Arrays.asList(ids));
+        return ops;
+    }
+
+    private static SCIMPatchOperations remove(String... ids) {
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.removeMembers(Arrays.asList(ids));
+        return ops;
+    }
+
+    private static List<String> members(SCIMPatchOperations ops, String op) {
+        return ops.operations.stream()
+                .filter(o -> o.op.equals(op))
+                .flatMap(o -> ((List<?>) o.value).stream())
+                .map(m -> ((SCIMPatchOperations.Member) m).value)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Future<?>> patchAll(ExecutorService executor, GitHubGroupPatchCoalescer coalescer,
+                                            List<SCIMPatchOperations> patches,
+                                            Consumer<SCIMPatchOperations> sender) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (SCIMPatchOperations ops : patches) {
+            futures.add(executor.submit(() -> coalescer.patch("g1", ops, 300, sender)));
+        }
+        return futures;
+    }
+
+    @Test
+    void isMembersOnly() {
+        assertTrue(GitHubGroupPatchCoalescer.isMembersOnly(add("u1")));
+        assertTrue(GitHubGroupPatchCoalescer.isMembersOnly(remove("u1")));
+
+        SCIMPatchOperations rename = add("u1");
+        rename.replace("displayName", "renamed");
+        assertFalse(GitHubGroupPatchCoalescer.isMembersOnly(rename));
+        assertFalse(GitHubGroupPatchCoalescer.isMembersOnly(new SCIMPatchOperations()));
+    }
+
+    @Test
+    void otherPatchesAreSentAsTheyAre() {
+        GitHubGroupPatchCoalescer coalescer = new GitHubGroupPatchCoalescer();
+        SCIMPatchOperations rename = new SCIMPatchOperations();
+        rename.replace("displayName", "renamed");
+        List<SCIMPatchOperations> sent = new ArrayList<>();
+
+        coalescer.patch("g1", rename, 1000, sent::add);
+        coalescer.patch("g1", add("u1"), 0, sent::add);
+
+        assertEquals(2, sent.size());
+        assertSame(rename, sent.get(0));
+    }
+
+    @Test
+    void concurrentPatchesAreMerged() throws Exception {
+        GitHubGroupPatchCoalescer coalescer = new GitHubGroupPatchCoalescer();
+        List<SCIMPatchOperations> sent = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = patchAll(executor, coalescer,
+                    Arrays.asList(add("u1"), add("u2"), remove("u3"), add("u4")), sent::add);
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, sent.size());
+        assertEquals(new HashSet<>(Arrays.asList("u1", "u2", "u4")), new HashSet<>(members(sent.get(0), "add")));
+        assertEquals(Collections.singletonList("u3"), members(sent.get(0), "remove"));
+    }
+
+    @Test
+    void interruptedLeaderSendsWithoutInterruptFlag() {
+        GitHubGroupPatchCoalescer coalescer = new GitHubGroupPatchCoalescer();
+        List<Boolean> interruptedWhileSending = new ArrayList<>();
+
+        Thread.currentThread().interrupt();
+        coalescer.patch("g1", add("u1"), 10_000, ops -> interruptedWhileSending.add(Thread.currentThread().isInterrupted()));
+
+        assertEquals(Collections.singletonList(false), interruptedWhileSending);
+        // Restored after sending; also clears it for the following tests
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    void laterOperationWins() {
+        GitHubGroupPatchCoalescer.Batch batch = new GitHubGroupPatchCoalescer.Batch();
+        batch.add(add("u1", "u2"));
+        batch.add(remove("u1"));
+        batch.add(remove("u3"));
+        batch.add(add("u3"));
+
+        SCIMPatchOperations merged = batch.toOperations();
+
+        assertEquals(Arrays.asList("u2", "u3"), members(merged, "add"));
+        assertEquals(Collections.singletonList("u1"), members(merged, "remove"));
+    }
+
+    @Test
+    void failureIsReportedToEachCaller() throws Exception {
+        GitHubGroupPatchCoalescer coalescer = new GitHubGroupPatchCoalescer();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> futures = patchAll(executor, coalescer, Arrays.asList(add("u1"), add("u2"), add("u3")),
+                    ops -> {
+                        throw new UnknownUidException();
+                    });
+            for (Future<?> f : futures) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(10, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof UnknownUidException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidMemberFailsOnlyItsCaller() throws Exception {
+        GitHubGroupPatchCoalescer coalescer = new GitHubGroupPatchCoalescer();
+        List<SCIMPatchOperations> sent = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> futures = patchAll(executor, coalescer, Arrays.asList(add("u1"), add("bad"), add("u3")),
+                    ops -> {
+                        if (members(ops, "add").contains("bad")) {
+                            throw new InvalidAttributeValueException();
+                        }
+                        sent.add(ops);
+                    });
+
+            futures.get(0).get(10, TimeUnit.SECONDS);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> futures.get(1).get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof InvalidAttributeValueException);
+            futures.get(2).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Resent one by one after the merged patch failed
+        assertEquals(2, sent.size());
+    }
+}
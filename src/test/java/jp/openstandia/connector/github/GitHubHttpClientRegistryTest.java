@@ -0,0 +1,83 @@
+package jp.openstandia.connector.github;
+
+import okhttp3.OkHttpClient;
+import org.identityconnectors.common.security.GuardedString;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubHttpClientRegistryTest {
+
+    private static GitHubEMUConfiguration newConfiguration(int readTimeout) {
+        GitHubEMUConfiguration conf = new GitHubEMUConfiguration();
+        conf.setEnterpriseSlug("ent");
+        conf.setAccessToken(new GuardedString("token".toCharArray()));
+        conf.setReadTimeoutInMilliseconds(readTimeout);
+        return conf;
+    }
+
+    private static Function<AbstractGitHubConfiguration, OkHttpClient> countingFactory(AtomicInteger created) {
+        return conf -> {
+            created.incrementAndGet();
+            return new OkHttpClient.Builder().build();
+        };
+    }
+
+    @Test
+    void acquire_sameSettings_sharesClient() {
+        GitHubHttpClientRegistry registry = new GitHubHttpClientRegistry();
+        AtomicInteger created = new AtomicInteger();
+
+        OkHttpClient c1 = registry.acquire(newConfiguration(1111), countingFactory(created));
+        OkHttpClient c2 = registry.acquire(newConfiguration(1111), countingFactory(created));
+
+        assertSame(c1, c2);
+        assertEquals(1, created.get());
+        assertEquals(2, registry.getReferenceCount(c1));
+    }
+
+    @Test
+    void acquire_differentSettings_createsAnotherClient() {
+        GitHubHttpClientRegistry registry = new GitHubHttpClientRegistry();
+        AtomicInteger created = new AtomicInteger();
+
+        OkHttpClient c1 = registry.acquire(newConfiguration(1111), countingFactory(created));
+        OkHttpClient c2 = registry.acquire(newConfiguration(2222), countingFactory(created));
+
+        assertNotSame(c1, c2);
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void release_dropsReferenceOnly() {
+        GitHubHttpClientRegistry registry = new GitHubHttpClientRegistry();
+        AtomicInteger created = new AtomicInteger();
+
+        OkHttpClient c1 = registry.acquire(newConfiguration(1111), countingFactory(created));
+        registry.release(c1);
+
+        assertEquals(0, registry.getReferenceCount(c1));
+        assertFalse(c1.dispatcher().executorService().isShutdown());
+
+        // Released client isn't used by anyone and has no sockets, so it can be replaced
+        OkHttpClient c2 = registry.acquire(newConfiguration(2222), countingFactory(created));
+        assertNotSame(c1, c2);
+    }
+
+    @Test
+    void createKey_includesProxyPassword() {
+        GitHubEMUConfiguration conf1 = newConfiguration(1111);
+        conf1.setHttpProxyHost("proxy");
+        conf1.setHttpProxyPassword(new GuardedString("p1".toCharArray()));
+
+        GitHubEMUConfiguration conf2 = newConfiguration(1111);
+        conf2.setHttpProxyHost("proxy");
+        conf2.setHttpProxyPassword(new GuardedString("p2".toCharArray()));
+
+        assertNotEquals(GitHubHttpClientRegistry.createKey(conf1), GitHubHttpClientRegistry.createKey(conf2));
+        assertEquals(GitHubHttpClientRegistry.createKey(conf1), GitHubHttpClientRegistry.createKey(conf1));
+    }
+}
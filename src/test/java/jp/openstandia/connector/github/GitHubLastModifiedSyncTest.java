@@ -0,0 +1,179 @@
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.framework.common.objects.*;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.SCIMEMUUser;
+import org.kohsuke.github.SCIMMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubLastModifiedSyncTest {
+
+    private static final ObjectClass OC = new ObjectClass("EMUUser");
+
+    private static SCIMEMUUser user(String id, String lastModified) {
+        SCIMEMUUser u = new SCIMEMUUser();
+        u.id = id;
+        u.meta = new SCIMMeta();
+        u.meta.lastModified = lastModified;
+        return u;
+    }
+
+    private static GitHubLastModifiedSync<SCIMEMUUser> newSync(String key, List<SCIMEMUUser> users) {
+        return new GitHubLastModifiedSync<>(key, OC,
+                handler -> {
+                    for (SCIMEMUUser u : users) {
+                        if (!handler.handle(u)) {
+                            break;
+                        }
+                    }
+                },
+                u -> u.id,
+                u -> u.meta != null ? u.meta.lastModified : null);
+    }
+
+    private static ConnectorObject toObject(SCIMEMUUser u) {
+        return new ConnectorObjectBuilder()
+                .setObjectClass(OC)
+                .setUid(u.id)
+                .setName(u.id)
+                .build();
+    }
+
+    private static List<SyncDelta> sync(GitHubLastModifiedSync<SCIMEMUUser> sync, SyncToken token) {
+        List<SyncDelta> deltas = new ArrayList<>();
+        sync.sync(token, deltas::add, GitHubLastModifiedSyncTest::toObject);
+        return deltas;
+    }
+
+    @Test
+    void emitsOnlyChangedObjectsInSweepOrder() {
+        String key = UUID.randomUUID().toString();
+        List<SCIMEMUUser> users = new ArrayList<>();
+        users.add(user("a", "2024-01-01T00:00:00Z"));
+        users.add(user("b", "2024-01-02T00:00:00Z"));
+
+        SyncToken token = newSync(key, users).getLatestSyncToken();
+        assertTrue(token.getValue().toString().endsWith("|b"));
+
+        // No change
+        assertTrue(sync(newSync(key, users), token).isEmpty());
+
+        // "a" was modified later, "c" has the same timestamp as the token tie
+        users.set(0, user("a", "2024-01-03T00:00:00Z"));
+        users.add(user("c", "2024-01-02T00:00:00Z"));
+
+        List<SyncDelta> deltas = sync(newSync(key, users), token);
+        assertEquals(2, deltas.size());
+        assertEquals("a", deltas.get(0).getUid().getUidValue());
+        assertEquals("c", deltas.get(1).getUid().getUidValue());
+        assertEquals(SyncDeltaType.CREATE_OR_UPDATE, deltas.get(0).getDeltaType());
+
+        // Only the last delta has the latest token
+        assertEquals(token, deltas.get(0).getToken());
+        assertTrue(deltas.get(1).getToken().getValue().toString()
+                .startsWith(GitHubLastModifiedSync.toEpochMilli("2024-01-03T00:00:00Z") + "|"));
+
+        // Resuming from a delta in the middle emits the changes again instead of skipping one
+        assertEquals(2, sync(newSync(UUID.randomUUID().toString(), users), deltas.get(0).getToken()).size());
+        assertTrue(sync(newSync(UUID.randomUUID().toString(), users), deltas.get(1).getToken()).isEmpty());
+    }
+
+    @Test
+    void stopsWhenHandlerReturnsFalse() {
+        List<SCIMEMUUser> users = new ArrayList<>();
+        users.add(user("a", "2024-01-01T00:00:00Z"));
+        users.add(user("b", "2024-01-02T00:00:00Z"));
+        users.add(user("c", "2024-01-03T00:00:00Z"));
+
+        List<SyncDelta> deltas = new ArrayList<>();
+        newSync(UUID.randomUUID().toString(), users).sync(null, d -> {
+            deltas.add(d);
+            return false;
+        }, GitHubLastModifiedSyncTest::toObject);
+
+        assertEquals(1, deltas.size());
+        assertEquals("a", deltas.get(0).getUid().getUidValue());
+    }
+
+    @Test
+    void detectsDeletionsByDiffingIdSets() {
+        String key = UUID.randomUUID().toString();
+        List<SCIMEMUUser> users = new ArrayList<>();
+        users.add(user("a", "2024-01-01T00:00:00Z"));
+        users.add(user("b", "2024-01-02T00:00:00Z"));
+
+        SyncToken token = newSync(key, users).getLatestSyncToken();
+
+        users.remove(0);
+        List<SyncDelta> deltas = sync(newSync(key, users), token);
+
+        assertEquals(1, deltas.size());
+        assertEquals(SyncDeltaType.DELETE, deltas.get(0).getDeltaType());
+        assertEquals("a", deltas.get(0).getUid().getUidValue());
+    }
+
+    @Test
+    void keepsDeletionsWhenStoppedBeforeLatestToken() {
+        String key = UUID.randomUUID().toString();
+        List<SCIMEMUUser> users = new ArrayList<>();
+        users.add(user("a", "2024-01-01T00:00:00Z"));
+        users.add(user("b", "2024-01-02T00:00:00Z"));
+        users.add(user("c", "2024-01-03T00:00:00Z"));
+
+        SyncToken token = newSync(key, users).getLatestSyncToken();
+
+        users.remove(0);
+        users.remove(0);
+        users.set(0, user("c", "2024-01-04T00:00:00Z"));
+
+        // Stops at the first deletion
+        List<SyncDelta> deltas = new ArrayList<>();
+        newSync(key, users).sync(token, d -> {
+            deltas.add(d);
+            return d.getDeltaType() != SyncDeltaType.DELETE;
+        }, GitHubLastModifiedSyncTest::toObject);
+
+        assertEquals(2, deltas.size());
+        assertEquals("c", deltas.get(0).getUid().getUidValue());
+        assertEquals("a", deltas.get(1).getUid().getUidValue());
+        assertEquals(token, deltas.get(1).getToken());
+
+        // Resumes from the token handed out and detects the deletions again
+        List<SyncDelta> resumed = sync(newSync(key, users), deltas.get(1).getToken());
+        assertEquals(3, resumed.size());
+        assertEquals(SyncDeltaType.DELETE, resumed.get(1).getDeltaType());
+        assertEquals("a", resumed.get(1).getUid().getUidValue());
+        assertEquals("b", resumed.get(2).getUid().getUidValue());
+        assertEquals(token, resumed.get(1).getToken());
+        assertNotEquals(token, resumed.get(2).getToken());
+    }
+
+    @Test
+    void skipsDeletionsWithoutRecordedIdSet() {
+        List<SCIMEMUUser> users = new ArrayList<>();
+        users.add(user("b", "2024-01-02T00:00:00Z"));
+
+        List<SyncDelta> deltas = sync(newSync(UUID.randomUUID().toString(), users),
+                new SyncToken(GitHubLastModifiedSync.toEpochMilli("2024-01-02T00:00:00Z") + "|a,b"));
+
+        assertTrue(deltas.isEmpty());
+    }
+
+    @Test
+    void nullTokenEmitsAll() {
+        List<SCIMEMUUser> users = new ArrayList<>();
+        users.add(user("a", "2024-01-01T00:00:00Z"));
+        users.add(user("b", null));
+
+        List<SyncDelta> deltas = sync(newSync(UUID.randomUUID().toString(), users), null);
+
+        assertEquals(2, deltas.size());
+        assertEquals("a", deltas.get(0).getUid().getUidValue());
+        assertEquals("b", deltas.get(1).getUid().getUidValue());
+    }
+}
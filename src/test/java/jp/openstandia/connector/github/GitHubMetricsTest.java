@@ -0,0 +1,122 @@
+package jp.openstandia.connector.github;
+
+import okhttp3.HttpUrl;
+import okhttp3.ResponseBody;
+import org.identityconnectors.framework.common.exceptions.ConfigurationException;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubMetricsTest {
+
+    public static class CustomMetrics implements GitHubMetrics {
+        final String enterpriseKey;
+
+        public CustomMetrics(String enterpriseKey) {
+            this.enterpriseKey = enterpriseKey;
+        }
+    }
+
+    private static GitHubEMUConfiguration configuration(String exporter) {
+        GitHubEMUConfiguration conf = new GitHubEMUConfiguration();
+        conf.setEndpointURL("https://api.github.com");
+        conf.setEnterpriseSlug("metrics-test");
+        conf.setMetricsExporter(exporter);
+        return conf;
+    }
+
+    @Test
+    void forConfiguration() {
+        assertSame(GitHubMetrics.NOOP, GitHubMetrics.forConfiguration(configuration(null)));
+        assertSame(GitHubMetrics.NOOP, GitHubMetrics.forConfiguration(configuration("none")));
+        assertTrue(GitHubMetrics.forConfiguration(configuration("jmx")) instanceof GitHubJmxMetrics);
+
+        GitHubMetrics custom = GitHubMetrics.forConfiguration(configuration(CustomMetrics.class.getName()));
+        assertEquals("https://api.github.com|metrics-test", ((CustomMetrics) custom).enterpriseKey);
+        assertSame(custom, GitHubMetrics.forConfiguration(configuration(CustomMetrics.class.getName())));
+
+        assertThrows(ConfigurationException.class, () -> GitHubMetrics.forConfiguration(configuration("no.such.Metrics")));
+    }
+
+    @Test
+    void countsResponseBytesAsRead() throws Exception {
+        AtomicLong counted = new AtomicLong(-2);
+        ResponseBody body = new GitHubMetricsInterceptor.CountingResponseBody(
+                ResponseBody.create("{\"id\":\"1\"}", null), counted::set);
+
+        assertEquals("{\"id\":\"1\"}", body.string());
+        assertEquals(10, counted.get());
+    }
+
+    @Test
+    void endpointOf() {
+        assertEquals("/scim/v2/enterprises/{enterprise}/Users",
+                GitHubMetricsInterceptor.endpointOf(HttpUrl.get("https://api.github.com/scim/v2/enterprises/ent/Users?startIndex=1")));
+        assertEquals("/scim/v2/enterprises/{enterprise}/Groups/{id}",
+                GitHubMetricsInterceptor.endpointOf(HttpUrl.get("https://api.github.com/scim/v2/enterprises/ent/Groups/abc")));
+        assertEquals("/enterprises/{enterprise}/copilot/billing/seats",
+                GitHubMetricsInterceptor.endpointOf(HttpUrl.get("https://api.github.com/enterprises/ent/copilot/billing/seats?page=2")));
+        assertEquals("/", GitHubMetricsInterceptor.endpointOf(HttpUrl.get("https://api.github.com/")));
+    }
+
+    @Test
+    void jmxMetrics() throws Exception {
+        GitHubJmxMetrics metrics = new GitHubJmxMetrics();
+        String users = "GET /scim/v2/enterprises/{enterprise}/Users";
+
+        for (int i = 0; i < 99; i++) {
+            metrics.recordRequest("GET", "/scim/v2/enterprises/{enterprise}/Users", 200, TimeUnit.MILLISECONDS.toNanos(20), 0, 100);
+        }
+        metrics.recordRequest("GET", "/scim/v2/enterprises/{enterprise}/Users", 429, TimeUnit.MILLISECONDS.toNanos(3000), 0, 50);
+        metrics.recordRetry("rate_limit");
+        metrics.recordRateLimitRemaining(42);
+        metrics.recordPages("EMUUser", 3);
+        metrics.recordPages("EMUUser", 2);
+
+        assertEquals(99L, metrics.getRequestCounts().get(users + " 200"));
+        assertEquals(1L, metrics.getRequestCounts().get(users + " 429"));
+
+        Map<String, Long> histogram = metrics.getLatencyHistogram();
+        assertEquals(0L, histogram.get(users + " le=10"));
+        assertEquals(99L, histogram.get(users + " le=25"));
+        assertEquals(99L, histogram.get(users + " le=2500"));
+        assertEquals(100L, histogram.get(users + " le=5000"));
+        assertEquals(100L, histogram.get(users + " le=+Inf"));
+
+        assertEquals(25L, metrics.getLatencyP99Millis().get(users));
+        assertEquals(3000L, metrics.getLatencyMaxMillis().get(users));
+        assertEquals(49.8, metrics.getLatencyMeanMillis().get(users), 0.01);
+
+        assertEquals(0L, metrics.getBytesSent());
+        assertEquals(9950L, metrics.getBytesReceived());
+        assertEquals(1L, metrics.getRetryCounts().get("rate_limit"));
+        assertEquals(42, metrics.getRateLimitRemaining());
+        assertEquals(2L, metrics.getSearchCounts().get("EMUUser"));
+        assertEquals(5L, metrics.getPageCounts().get("EMUUser"));
+
+        metrics.reset();
+        assertTrue(metrics.getRequestCounts().isEmpty());
+        assertEquals(-1, metrics.getRateLimitRemaining());
+    }
+
+    @Test
+    void jmxMetricsAreRegistered() throws Exception {
+        GitHubJmxMetrics metrics = GitHubJmxMetrics.forEnterprise("https://api.github.com|jmx-test");
+        metrics.recordRateLimitRemaining(10);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("jp.openstandia.connector.github:type=GitHubMetrics,enterprise="
+                + ObjectName.quote("https://api.github.com|jmx-test"));
+
+        assertTrue(server.isRegistered(name));
+        assertEquals(10, server.getAttribute(name, "RateLimitRemaining"));
+        assertSame(metrics, GitHubJmxMetrics.forEnterprise("https://api.github.com|jmx-test"));
+    }
+}
@@ -0,0 +1,210 @@
+package jp.openstandia.connector.github;
+
+import okhttp3.Request;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+import static jp.openstandia.connector.github.GitHubRateLimitScheduler.Priority.BULK;
+import static jp.openstandia.connector.github.GitHubRateLimitScheduler.Priority.INTERACTIVE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubRateLimitSchedulerTest {
+
+    private static final String SCIM = "https://api.github.com/scim/v2/enterprises/ent";
+
+    private static long inSeconds(int seconds) {
+        return System.currentTimeMillis() / 1000 + seconds;
+    }
+
+    private static Future<?> acquireAsync(ExecutorService executor, GitHubRateLimitScheduler scheduler,
+                                          GitHubRateLimitScheduler.Priority priority) {
+        return executor.submit(() -> {
+            scheduler.acquire(priority, 10);
+            return null;
+        });
+    }
+
+    @Test
+    void priorityOf() {
+        assertEquals(BULK, GitHubRateLimitScheduler.priorityOf(new Request.Builder().url(SCIM + "/Users?startIndex=1&count=100").build()));
+        assertEquals(BULK, GitHubRateLimitScheduler.priorityOf(new Request.Builder().url(SCIM + "/Groups").build()));
+        assertEquals(BULK, GitHubRateLimitScheduler.priorityOf(new Request.Builder().url("https://api.github.com/enterprises/ent/copilot/billing/seats?page=2").build()));
+
+        assertEquals(INTERACTIVE, GitHubRateLimitScheduler.priorityOf(new Request.Builder().url(SCIM + "/Users/u1").build()));
+        assertEquals(INTERACTIVE, GitHubRateLimitScheduler.priorityOf(new Request.Builder().url(SCIM + "/Users?filter=userName%20eq%20%22foo%22").build()));
+        assertEquals(INTERACTIVE, GitHubRateLimitScheduler.priorityOf(new Request.Builder().url(SCIM + "/Groups").delete().build()));
+    }
+
+    @Test
+    void unknownBudgetDoesNotWait() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+
+        scheduler.acquire(BULK, 10);
+        scheduler.acquire(INTERACTIVE, 10);
+
+        assertEquals(-1, scheduler.getRemaining());
+        assertEquals(-1, scheduler.getLimit());
+    }
+
+    @Test
+    void updateKeepsTheLowestRemainingInTheSameWindow() {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        long reset = inSeconds(3600);
+
+        scheduler.update(5000, 4000, reset);
+        scheduler.update(5000, 4100, reset);
+        assertEquals(4000, scheduler.getRemaining());
+
+        scheduler.update(5000, 4999, reset + 3600);
+        assertEquals(4999, scheduler.getRemaining());
+        assertEquals((reset + 3600) * 1000, scheduler.getResetAtMillis());
+    }
+
+    @Test
+    void acquireConsumesBudget() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        scheduler.update(5000, 4000, inSeconds(3600));
+
+        scheduler.acquire(INTERACTIVE, 10);
+        scheduler.acquire(BULK, 10);
+
+        assertEquals(3998, scheduler.getRemaining());
+    }
+
+    @Test
+    void bulkDoesNotUseReserve() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        long reset = inSeconds(3600);
+        scheduler.update(100, 10, reset);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> bulk = acquireAsync(executor, scheduler, BULK);
+            assertThrows(TimeoutException.class, () -> bulk.get(200, TimeUnit.MILLISECONDS));
+
+            // Interactive requests may use the reserve
+            scheduler.acquire(INTERACTIVE, 10);
+            assertEquals(9, scheduler.getRemaining());
+
+            // A new window releases the bulk request
+            scheduler.update(100, 100, reset + 3600);
+            bulk.get(5, TimeUnit.SECONDS);
+            assertEquals(99, scheduler.getRemaining());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void interactiveWaitsOnlyWhenBudgetIsExhausted() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        scheduler.update(100, 1, inSeconds(3600));
+
+        scheduler.acquire(INTERACTIVE, 10);
+        assertEquals(0, scheduler.getRemaining());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> interactive = acquireAsync(executor, scheduler, INTERACTIVE);
+            assertThrows(TimeoutException.class, () -> interactive.get(200, TimeUnit.MILLISECONDS));
+
+            // Budget reset by other responses
+            scheduler.update(100, 100, inSeconds(7200));
+            interactive.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void budgetIsRefilledAfterReset() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        scheduler.update(100, 0, System.currentTimeMillis() / 1000);
+
+        // The reset has already passed, so the budget is unknown again
+        scheduler.acquire(BULK, 10);
+        assertEquals(-1, scheduler.getRemaining());
+    }
+
+    @Test
+    void onlyOneProbeIsSentAfterReset() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        scheduler.update(100, 0, System.currentTimeMillis() / 1000);
+
+        assertTrue(scheduler.acquire(BULK, 10));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> interactive = acquireAsync(executor, scheduler, INTERACTIVE);
+            Future<?> bulk = acquireAsync(executor, scheduler, BULK);
+            Thread.sleep(200);
+            assertFalse(interactive.isDone());
+            assertFalse(bulk.isDone());
+
+            // The response of the probe tells the new budget
+            scheduler.update(100, 99, inSeconds(3600));
+            scheduler.probeCompleted();
+            interactive.get(5, TimeUnit.SECONDS);
+            bulk.get(5, TimeUnit.SECONDS);
+            assertEquals(97, scheduler.getRemaining());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nextRequestProbesWhenProbeFails() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        scheduler.update(100, 0, System.currentTimeMillis() / 1000);
+        assertTrue(scheduler.acquire(INTERACTIVE, 10));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> next = executor.submit(() -> scheduler.acquire(INTERACTIVE, 10));
+            Thread.sleep(200);
+            assertFalse(next.isDone());
+
+            // No rate limit headers, e.g. the connection failed
+            scheduler.probeCompleted();
+            assertTrue(next.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void pauseBlocksEveryRequest() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        long start = System.currentTimeMillis();
+        scheduler.pause(start + 300);
+
+        scheduler.acquire(INTERACTIVE, 10);
+
+        assertTrue(System.currentTimeMillis() - start >= 250);
+    }
+
+    @Test
+    void bulkIsPacedWhenLessThanHalfRemains() throws Exception {
+        GitHubRateLimitScheduler scheduler = new GitHubRateLimitScheduler();
+        // 20 requests above the reserve for the next 4 seconds
+        scheduler.update(100, 30, inSeconds(4));
+
+        long start = System.currentTimeMillis();
+        scheduler.acquire(BULK, 10);
+        scheduler.acquire(BULK, 10);
+        long elapsed = System.currentTimeMillis() - start;
+
+        // The second request waits for about (4s / 19)
+        assertTrue(elapsed >= 100, "elapsed: " + elapsed);
+        assertTrue(elapsed < 2000, "elapsed: " + elapsed);
+    }
+
+    @Test
+    void forEnterpriseIsShared() {
+        assertSame(GitHubRateLimitScheduler.forEnterprise("https://api.github.com|ent"),
+                GitHubRateLimitScheduler.forEnterprise("https://api.github.com|ent"));
+        assertNotSame(GitHubRateLimitScheduler.forEnterprise("https://api.github.com|ent"),
+                GitHubRateLimitScheduler.forEnterprise("https://api.github.com|other"));
+    }
+}
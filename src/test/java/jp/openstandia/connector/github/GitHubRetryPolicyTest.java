@@ -0,0 +1,128 @@
+package jp.openstandia.connector.github;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static jp.openstandia.connector.github.GitHubRetryPolicy.Failure.*;
+import static jp.openstandia.connector.github.GitHubRetryPolicy.Operation.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubRetryPolicyTest {
+
+    @Test
+    void createIsRetriedOnlyWhenThrottled() {
+        assertTrue(GitHubRetryPolicy.isRetryable(CREATE, THROTTLED));
+        assertFalse(GitHubRetryPolicy.isRetryable(CREATE, SERVER_ERROR));
+        assertFalse(GitHubRetryPolicy.isRetryable(CREATE, CONNECTION_ERROR));
+
+        for (GitHubRetryPolicy.Operation op : new GitHubRetryPolicy.Operation[]{READ, UPDATE, DELETE}) {
+            assertTrue(GitHubRetryPolicy.isRetryable(op, THROTTLED));
+            assertTrue(GitHubRetryPolicy.isRetryable(op, SERVER_ERROR));
+            assertTrue(GitHubRetryPolicy.isRetryable(op, CONNECTION_ERROR));
+        }
+        assertFalse(GitHubRetryPolicy.isRetryable(READ, null));
+    }
+
+    @Test
+    void operationOf() {
+        assertEquals(READ, GitHubRetryPolicy.operationOf("GET"));
+        assertEquals(CREATE, GitHubRetryPolicy.operationOf("POST"));
+        assertEquals(UPDATE, GitHubRetryPolicy.operationOf("PATCH"));
+        assertEquals(DELETE, GitHubRetryPolicy.operationOf("DELETE"));
+    }
+
+    @Test
+    void failureOf_tellsRateLimitFromPermissionError() {
+        Map<String, String> headers = new HashMap<>();
+
+        assertEquals(THROTTLED, GitHubRetryPolicy.failureOf(429, headers::get, null));
+        assertEquals(SERVER_ERROR, GitHubRetryPolicy.failureOf(503, headers::get, null));
+        assertNull(GitHubRetryPolicy.failureOf(404, headers::get, null));
+
+        // Real permission error
+        assertNull(GitHubRetryPolicy.failureOf(403, headers::get, "{\"message\":\"Resource not accessible\"}"));
+        // Secondary rate limit
+        assertEquals(THROTTLED, GitHubRetryPolicy.failureOf(403, headers::get,
+                "{\"message\":\"You have exceeded a secondary rate limit.\"}"));
+
+        headers.put("X-RateLimit-Remaining", "0");
+        assertEquals(THROTTLED, GitHubRetryPolicy.failureOf(403, headers::get, null));
+    }
+
+    @Test
+    void retryAfterIsHonored() {
+        GitHubRetryPolicy policy = new GitHubRetryPolicy(3, 100, 5000, 100);
+
+        assertEquals(2000, policy.nextDelay(READ, THROTTLED, 1, 0, 2000));
+        // Longer than the max delay
+        assertEquals(-1, policy.nextDelay(READ, THROTTLED, 1, 0, 10000));
+    }
+
+    @Test
+    void retryAfterOf() {
+        long now = 1_700_000_000_000L;
+        Map<String, String> headers = new HashMap<>();
+        assertEquals(-1, GitHubRetryPolicy.retryAfterOf(headers::get, now));
+
+        headers.put("X-RateLimit-Remaining", "0");
+        headers.put("X-RateLimit-Reset", String.valueOf(now / 1000 + 30));
+        assertEquals(30000, GitHubRetryPolicy.retryAfterOf(headers::get, now));
+
+        headers.put("Retry-After", "5");
+        assertEquals(5000, GitHubRetryPolicy.retryAfterOf(headers::get, now));
+    }
+
+    @Test
+    void parseRetryAfter() {
+        long now = 1_700_000_000_000L;
+        String date = ZonedDateTime.ofInstant(Instant.ofEpochMilli(now + 7000), ZoneOffset.UTC)
+                .format(DateTimeFormatter.RFC_1123_DATE_TIME);
+
+        assertEquals(3000, GitHubRetryPolicy.parseRetryAfter("3", now));
+        assertEquals(7000, GitHubRetryPolicy.parseRetryAfter(date, now));
+        assertEquals(-1, GitHubRetryPolicy.parseRetryAfter("soon", now));
+        assertEquals(-1, GitHubRetryPolicy.parseRetryAfter(null, now));
+    }
+
+    @Test
+    void jitteredBackoffStaysInBounds() {
+        GitHubRetryPolicy policy = new GitHubRetryPolicy(100, 100, 1000, 1000);
+
+        long previous = 0;
+        for (int attempt = 1; attempt <= 50; attempt++) {
+            long delay = policy.nextDelay(READ, SERVER_ERROR, attempt, previous, -1);
+            assertTrue(delay >= 100 && delay <= 1000, "delay: " + delay);
+            assertTrue(delay <= Math.max(100, previous * 3), "delay: " + delay);
+            previous = delay;
+        }
+    }
+
+    @Test
+    void attemptsAreLimited() {
+        GitHubRetryPolicy policy = new GitHubRetryPolicy(2, 10, 100, 100);
+
+        assertTrue(policy.nextDelay(READ, THROTTLED, 2, 10, -1) >= 0);
+        assertEquals(-1, policy.nextDelay(READ, THROTTLED, 3, 10, -1));
+        assertEquals(-1, policy.nextDelay(CREATE, SERVER_ERROR, 1, 0, -1));
+    }
+
+    @Test
+    void budgetLimitsRetriesPerMinute() {
+        AtomicLong now = new AtomicLong(0);
+        GitHubRetryPolicy policy = new GitHubRetryPolicy(5, 10, 100, 2, now::get);
+
+        assertTrue(policy.nextDelay(READ, THROTTLED, 1, 0, -1) >= 0);
+        assertTrue(policy.nextDelay(READ, THROTTLED, 1, 0, -1) >= 0);
+        assertEquals(-1, policy.nextDelay(READ, THROTTLED, 1, 0, -1));
+
+        now.addAndGet(GitHubRetryPolicy.BUDGET_WINDOW_MILLIS);
+        assertTrue(policy.nextDelay(READ, THROTTLED, 1, 0, -1) >= 0);
+    }
+}
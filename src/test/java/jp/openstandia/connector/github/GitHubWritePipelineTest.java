@@ -0,0 +1,122 @@
+package jp.openstandia.connector.github;
+
+import org.identityconnectors.framework.common.exceptions.AlreadyExistsException;
+import org.identityconnectors.framework.common.exceptions.ConnectionFailedException;
+import org.identityconnectors.framework.common.exceptions.RetryableException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubWritePipelineTest {
+
+    @Test
+    void forEnterprise() {
+        GitHubWritePipeline pipeline = GitHubWritePipeline.forEnterprise("https://api.github.com|pipeline-test", 4);
+
+        assertSame(pipeline, GitHubWritePipeline.forEnterprise("https://api.github.com|pipeline-test", 4));
+        assertNotSame(pipeline, GitHubWritePipeline.forEnterprise("https://api.github.com|pipeline-test", 2));
+        assertEquals(2, GitHubWritePipeline.forEnterprise("https://api.github.com|pipeline-test", 2).getConcurrency());
+
+        // Another maximum concurrency doesn't replace the pipeline in use
+        assertSame(pipeline, GitHubWritePipeline.forEnterprise("https://api.github.com|pipeline-test", 4));
+    }
+
+    @Test
+    void boundsConcurrency() throws Exception {
+        GitHubWritePipeline pipeline = new GitHubWritePipeline(3, 10);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> pipeline.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    running.decrementAndGet();
+                    return n;
+                })));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                // Each caller gets its own result
+                assertEquals(i, futures.get(i).get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(3, maxRunning.get());
+            assertEquals(0, pipeline.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void exceptionIsThrownToTheCaller() {
+        GitHubWritePipeline pipeline = new GitHubWritePipeline(2, 10);
+
+        assertThrows(AlreadyExistsException.class, () -> pipeline.execute(() -> {
+            throw new AlreadyExistsException();
+        }));
+
+        assertEquals(0, pipeline.getInFlight());
+        assertEquals(2, pipeline.getConcurrency());
+    }
+
+    @Test
+    void throttlingHalvesConcurrencyAndBacksOff() {
+        GitHubWritePipeline pipeline = new GitHubWritePipeline(8, 200);
+
+        assertThrows(RetryableException.class, () -> pipeline.execute(() -> {
+            throw RetryableException.wrap("Too many requests", new RuntimeException());
+        }));
+        assertEquals(4, pipeline.getConcurrency());
+
+        long start = System.currentTimeMillis();
+        assertEquals("ok", pipeline.execute(() -> "ok"));
+        assertTrue(System.currentTimeMillis() - start >= 150);
+    }
+
+    @Test
+    void otherFailuresDoNotBackOff() {
+        GitHubWritePipeline pipeline = new GitHubWritePipeline(8, 60000);
+
+        // e.g. the circuit breaker failing fast
+        assertThrows(ConnectionFailedException.class, () -> pipeline.execute(() -> {
+            throw new ConnectionFailedException("GitHub API is unavailable, failing fast");
+        }));
+        assertEquals(8, pipeline.getConcurrency());
+
+        long start = System.currentTimeMillis();
+        assertEquals("ok", pipeline.execute(() -> "ok"));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    void successesRaiseConcurrency() throws Exception {
+        GitHubWritePipeline pipeline = new GitHubWritePipeline(4, 0);
+        for (int i = 0; i < 2; i++) {
+            pipeline.acquire();
+            pipeline.release(true);
+        }
+        assertEquals(1, pipeline.getConcurrency());
+
+        // Additive increase per round of successes: 1 + 2 + 3
+        for (int i = 0; i < 6; i++) {
+            pipeline.execute(() -> null);
+        }
+        assertEquals(4, pipeline.getConcurrency());
+
+        pipeline.execute(() -> null);
+        assertEquals(4, pipeline.getConcurrency());
+    }
+}
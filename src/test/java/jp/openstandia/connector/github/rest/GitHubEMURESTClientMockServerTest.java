@@ -0,0 +1,613 @@
+package jp.openstandia.connector.github.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jp.openstandia.connector.github.GitHubEMUConfiguration;
+import jp.openstandia.connector.github.GitHubEMUGroupHandler;
+import jp.openstandia.connector.github.GitHubEMUSchema;
+import jp.openstandia.connector.github.GitHubEMUUserHandler;
+import jp.openstandia.connector.github.GitHubFilter;
+import jp.openstandia.connector.github.GitHubFilterTranslator;
+import jp.openstandia.connector.github.GitHubJmxMetrics;
+import jp.openstandia.connector.github.testutil.MockGitHubServer;
+import jp.openstandia.connector.util.ObjectHandler;
+import org.identityconnectors.framework.common.exceptions.AlreadyExistsException;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.exceptions.ConnectionFailedException;
+import org.identityconnectors.framework.common.exceptions.RetryableException;
+import org.identityconnectors.framework.common.exceptions.UnknownUidException;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GitHubCopilotSeat;
+import org.kohsuke.github.SCIMEMUGroup;
+import org.kohsuke.github.SCIMEMUUser;
+import org.kohsuke.github.SCIMPatchOperations;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the real client against {@link MockGitHubServer}.
+ */
+class GitHubEMURESTClientMockServerTest {
+
+    private static final String USERS = "/Users";
+    private static final String GROUPS = "/Groups";
+    private static final String SEATS = "/copilot/billing/seats";
+
+    private MockGitHubServer server;
+    private GitHubEMURESTClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new MockGitHubServer()
+                .withUsers(25)
+                .withGroups(7, 5)
+                .withCopilotSeats(12);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+    }
+
+    private GitHubEMURESTClient newClient(GitHubEMUConfiguration conf) {
+        client = new GitHubEMURESTClient(conf);
+        client.setInstanceName("mock");
+        return client;
+    }
+
+    private GitHubEMURESTClient newClient() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setQueryPageSize(10);
+        return newClient(conf);
+    }
+
+    @Test
+    void test_checksApiUrl() {
+        newClient().test();
+    }
+
+    @Test
+    void getEMUUsers_pagesThroughAllUsers() {
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        int total = newClient().getEMUUsers(users::add, null, Collections.emptySet(), 10, 0);
+
+        assertEquals(25, total);
+        assertEquals(25, users.size());
+        assertEquals(25, new HashSet<>(server.getUserIds()).size());
+        assertEquals("user0_mock", users.get(0).userName);
+        assertEquals("user24_mock", users.get(24).userName);
+        assertEquals(3, server.countRequests("GET", USERS));
+    }
+
+    @Test
+    void getEMUUsers_returnsRequestedPageOnly() {
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        int total = newClient().getEMUUsers(users::add, null, Collections.emptySet(), 10, 11);
+
+        assertEquals(25, total);
+        assertEquals(10, users.size());
+        assertEquals("user10_mock", users.get(0).userName);
+        assertEquals(1, server.countRequests("GET", USERS));
+    }
+
+    @Test
+    void getEMUUsers_capsPageSizeByServer() {
+        server.withMaxPageSize(4);
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        newClient().getEMUUsers(users::add, null, Collections.emptySet(), 10, 0);
+
+        assertEquals(25, users.size());
+        assertEquals(7, server.countRequests("GET", USERS));
+    }
+
+    @Test
+    void metrics_recordRequestsAndPages() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setMetricsExporter("jmx");
+        newClient(conf).getEMUUsers(u -> true, null, Collections.emptySet(), 10, 0);
+
+        GitHubJmxMetrics metrics = GitHubJmxMetrics.forEnterprise(conf.getEndpointURL() + "|" + conf.getEnterpriseSlug());
+        assertEquals(3L, metrics.getRequestCounts().get("GET /scim/v2/enterprises/{enterprise}/Users 200"));
+        assertEquals(1L, metrics.getSearchCounts().get("EMUUser"));
+        assertEquals(3L, metrics.getPageCounts().get("EMUUser"));
+        assertTrue(metrics.getBytesReceived() > 0);
+        assertTrue(metrics.getRateLimitRemaining() > 0);
+    }
+
+    private static GitHubFilter translateUserFilter(Filter filter) {
+        List<GitHubFilter> filters = new GitHubFilterTranslator(GitHubEMUUserHandler.USER_OBJECT_CLASS, null).translate(filter);
+        assertEquals(1, filters.size());
+        return filters.get(0);
+    }
+
+    @Test
+    void getEMUUsers_byExternalIdOrExternalId_sendsOneEqFilterPerBranch() {
+        GitHubFilter filter = translateUserFilter(FilterBuilder.or(
+                FilterBuilder.equalTo(AttributeBuilder.build("externalId", "ext-user3")),
+                FilterBuilder.equalTo(AttributeBuilder.build("externalId", "ext-user17"))));
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        int total = newClient().getEMUUsers(filter, users::add, null, Collections.emptySet(), 10, 0);
+
+        assertEquals(2, total);
+        assertEquals(Arrays.asList("user3_mock", "user17_mock"),
+                users.stream().map(u -> u.userName).collect(Collectors.toList()));
+        assertEquals(2, server.countRequests("GET", USERS));
+    }
+
+    @Test
+    void getEMUUsers_byExternalIdAndStartsWith_evaluatesTheRestInConnector() {
+        GitHubFilter filter = translateUserFilter(FilterBuilder.and(
+                FilterBuilder.startsWith(AttributeBuilder.build("displayName", "user 1")),
+                FilterBuilder.equalTo(AttributeBuilder.build("externalId", "ext-user12"))));
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        int total = newClient().getEMUUsers(filter, users::add, null, Collections.emptySet(), 10, 0);
+
+        assertEquals(1, total);
+        assertEquals("user12_mock", users.get(0).userName);
+        assertEquals(1, server.countRequests("GET", USERS));
+    }
+
+    @Test
+    void getEMUUsers_byEmail_scansAllUsers() {
+        GitHubFilter filter = translateUserFilter(
+                FilterBuilder.equalTo(AttributeBuilder.build("primaryEmail", "USER5@example.com")));
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        int total = newClient().getEMUUsers(filter, users::add, null, Collections.emptySet(), 10, 0);
+
+        // GitHub EMU can't filter by emails
+        assertEquals(1, total);
+        assertEquals("user5_mock", users.get(0).userName);
+        assertEquals(3, server.countRequests("GET", USERS));
+    }
+
+    @Test
+    void getEMUUser_byName() {
+        SCIMEMUUser user = newClient().getEMUUser(new Name("user3_mock"), null, Collections.emptySet());
+
+        assertNotNull(user);
+        assertEquals(server.getUserIds().get(3), user.id);
+    }
+
+    @Test
+    void getEMUGroups_excludesMembersUnlessRequested() {
+        List<SCIMEMUGroup> groups = new ArrayList<>();
+
+        int total = newClient().getEMUGroups(groups::add, null, Collections.singleton("displayName"), 10, 0);
+
+        assertEquals(7, total);
+        assertEquals(7, groups.size());
+        assertTrue(groups.stream().allMatch(g -> g.members == null));
+    }
+
+    @Test
+    void getEMUGroups_includesMembersWhenRequested() {
+        List<SCIMEMUGroup> groups = new ArrayList<>();
+
+        newClient().getEMUGroups(groups::add, null, new HashSet<>(Arrays.asList("displayName", "members")), 10, 0);
+
+        assertEquals(7, groups.size());
+        assertTrue(groups.stream().allMatch(g -> g.members.size() == 5));
+        assertTrue(groups.get(0).members.get(0).ref.contains("/Users/"));
+    }
+
+    @Test
+    void getCopilotSeats_followsLinkHeader() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setQueryPageSize(5);
+        List<GitHubCopilotSeat> seats = new ArrayList<>();
+
+        int total = newClient(conf).getCopilotSeats(seats::add, null, Collections.emptySet(), 5, 0);
+
+        assertEquals(12, total);
+        assertEquals(12, seats.size());
+        assertEquals("seat0", seats.get(0).assignee.login);
+        assertEquals("seat11", seats.get(11).assignee.login);
+        assertEquals(3, server.countRequests("GET", SEATS));
+    }
+
+    @Test
+    void getCopilotSeats_filteredInConnectorFromOneSweep() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setCopilotSeatIndexTTLInSeconds(300);
+        conf.setQueryPageSize(5);
+        GitHubEMURESTClient client = newClient(conf);
+        List<GitHubCopilotSeat> seats = new ArrayList<>();
+
+        int total = client.getCopilotSeats(s -> s.assignee.login.compareTo("seat5") >= 0, seats::add,
+                null, Collections.emptySet(), 2, 3);
+
+        // seat5 .. seat9 match, and the page starts at the 3rd match
+        assertEquals(5, total);
+        assertEquals(Arrays.asList("seat7", "seat8"),
+                seats.stream().map(s -> s.assignee.login).collect(Collectors.toList()));
+        assertEquals(3, server.countRequests("GET", SEATS));
+
+        // Served from the seat index
+        seats.clear();
+        total = client.getCopilotSeats(s -> "business".equals(s.plan_type), seats::add,
+                null, Collections.emptySet(), 5, 0);
+        assertEquals(12, total);
+        assertEquals(12, seats.size());
+        assertEquals(3, server.countRequests("GET", SEATS));
+    }
+
+    @Test
+    void groupLifecycle() {
+        GitHubEMURESTClient client = newClient();
+        List<String> userIds = server.getUserIds();
+
+        SCIMEMUGroup newGroup = new SCIMEMUGroup();
+        newGroup.displayName = "new-group";
+        Uid uid = client.createEMUGroup(null, newGroup);
+        assertEquals("new-group", uid.getNameHintValue());
+
+        SCIMPatchOperations add = new SCIMPatchOperations();
+        add.addMembers(Arrays.asList(userIds.get(0), userIds.get(1)));
+        client.patchEMUGroup(uid, add);
+
+        SCIMPatchOperations remove = new SCIMPatchOperations();
+        remove.removeMembers(Collections.singletonList(userIds.get(0)));
+        client.patchEMUGroup(uid, remove);
+
+        JsonNode members = server.getGroup(uid.getUidValue()).get("members");
+        assertEquals(1, members.size());
+        assertEquals(userIds.get(1), members.get(0).get("value").asText());
+
+        client.deleteEMUGroup(uid, null);
+        assertNull(server.getGroup(uid.getUidValue()));
+        assertThrows(UnknownUidException.class, () -> client.getEMUGroup(uid, null, Collections.emptySet()));
+    }
+
+    @Test
+    void concurrentCreates_eachCallerGetsItsOwnResult() throws Exception {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setWriteConcurrency(3);
+        GitHubEMURESTClient client = newClient(conf);
+        server.withLatency(5);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Uid>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                SCIMEMUUser newUser = new SCIMEMUUser();
+                newUser.userName = "bulk" + i;
+                futures.add(executor.submit(() -> client.createEMUUser(newUser)));
+            }
+            // Duplicated userName fails only for its caller
+            SCIMEMUUser duplicated = new SCIMEMUUser();
+            duplicated.userName = "user0_mock";
+            Future<Uid> conflict = executor.submit(() -> client.createEMUUser(duplicated));
+
+            for (int i = 0; i < futures.size(); i++) {
+                Uid uid = futures.get(i).get(30, TimeUnit.SECONDS);
+                assertEquals("bulk" + i, uid.getNameHintValue());
+                assertEquals("bulk" + i, server.getUser(uid.getUidValue()).get("userName").asText());
+            }
+            ExecutionException e = assertThrows(ExecutionException.class, () -> conflict.get(30, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof AlreadyExistsException);
+            assertEquals(21, server.countRequests("POST", USERS));
+            assertEquals(0, client.getWritePipeline().getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentMemberPatches_areCoalesced() throws Exception {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setGroupPatchCoalesceWindowInMilliseconds(300);
+        GitHubEMURESTClient client = newClient(conf);
+        List<String> userIds = server.getUserIds();
+
+        SCIMEMUGroup newGroup = new SCIMEMUGroup();
+        newGroup.displayName = "coalesced-group";
+        Uid uid = client.createEMUGroup(null, newGroup);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                SCIMPatchOperations add = new SCIMPatchOperations();
+                add.addMembers(Collections.singletonList(userIds.get(i)));
+                futures.add(executor.submit(() -> client.patchEMUGroup(uid, add)));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10, server.getGroup(uid.getUidValue()).get("members").size());
+        assertTrue(server.countRequests("PATCH", "/Groups/" + uid.getUidValue()) < 10);
+    }
+
+    @Test
+    void largeMemberPatch_isSentInChunks() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setMemberPatchChunkSize(10);
+        GitHubEMURESTClient client = newClient(conf);
+
+        SCIMEMUGroup newGroup = new SCIMEMUGroup();
+        newGroup.displayName = "large-group";
+        Uid uid = client.createEMUGroup(null, newGroup);
+
+        SCIMPatchOperations add = new SCIMPatchOperations();
+        add.addMembers(server.getUserIds());
+        client.patchEMUGroup(uid, add);
+
+        assertEquals(25, server.getGroup(uid.getUidValue()).get("members").size());
+        assertEquals(3, server.countRequests("PATCH", "/Groups/" + uid.getUidValue()));
+    }
+
+    @Test
+    void secondaryRateLimit_isWaitedAndRetried() {
+        GitHubEMURESTClient client = newClient();
+        String id = server.getUserIds().get(0);
+        server.throttleNext(1, 403, 1);
+
+        SCIMEMUUser user = client.getEMUUser(new Uid(id), null, Collections.emptySet());
+
+        assertEquals(id, user.id);
+        assertEquals(2, server.countRequests("GET", USERS + "/" + id));
+    }
+
+    @Test
+    void rateLimit_waitsForResetInsteadOfHittingLimit() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setRateLimitScheduling(true);
+        GitHubEMURESTClient client = newClient(conf);
+        String id = server.getUserIds().get(0);
+        server.withRateLimit(2, 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(id, client.getEMUUser(new Uid(id), null, Collections.emptySet()).id);
+        }
+
+        // The third request was held by the scheduler until the reset, so no 403 was returned and retried
+        assertEquals(3, server.countRequests("GET", USERS + "/" + id));
+        assertTrue(client.getRateLimitScheduler().getRemaining() >= 0);
+    }
+
+    @Test
+    void tooManyRequests_isRetryable() {
+        GitHubEMURESTClient client = newClient();
+        String id = server.getUserIds().get(0);
+        server.throttleNext(1, 429, 1);
+
+        assertThrows(RetryableException.class, () -> client.getEMUUser(new Uid(id), null, Collections.emptySet()));
+    }
+
+    private GitHubEMURESTClient newRetryingClient() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setRetryMaxAttempts(3);
+        conf.setRetryBaseDelayInMilliseconds(10);
+        return newClient(conf);
+    }
+
+    @Test
+    void tooManyRequests_isRetriedWhenEnabled() {
+        GitHubEMURESTClient client = newRetryingClient();
+        String id = server.getUserIds().get(0);
+        server.throttleNext(2, 429, 0);
+
+        SCIMEMUUser user = client.getEMUUser(new Uid(id), null, Collections.emptySet());
+
+        assertEquals(id, user.id);
+        assertEquals(3, server.countRequests("GET", USERS + "/" + id));
+    }
+
+    @Test
+    void serverError_isRetriedForRead() {
+        GitHubEMURESTClient client = newRetryingClient();
+        server.throttleNext(1, 502, 0);
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        int total = client.getEMUUsers(users::add, null, Collections.emptySet(), 10, 0);
+
+        // Only the failed page is sent again
+        assertEquals(25, total);
+        assertEquals(25, users.size());
+        assertEquals(4, server.countRequests("GET", USERS));
+    }
+
+    @Test
+    void serverError_isNotRetriedForCreate() {
+        GitHubEMURESTClient client = newRetryingClient();
+        server.throttleNext(1, 502, 0);
+        SCIMEMUUser newUser = new SCIMEMUUser();
+        newUser.userName = "retry_user";
+
+        // The user may have been created
+        assertThrows(ConnectorException.class, () -> client.createEMUUser(newUser));
+        assertEquals(1, server.countRequests("POST", USERS));
+    }
+
+    @Test
+    void throttledCreate_isRetried() {
+        GitHubEMURESTClient client = newRetryingClient();
+        server.throttleNext(1, 429, 0);
+        SCIMEMUUser newUser = new SCIMEMUUser();
+        newUser.userName = "retry_user";
+
+        Uid uid = client.createEMUUser(newUser);
+
+        assertEquals("retry_user", uid.getNameHintValue());
+        assertEquals(2, server.countRequests("POST", USERS));
+    }
+
+    @Test
+    void serverOutage_failsFastWhileCircuitIsOpen() throws Exception {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setCircuitBreakerFailureRateThreshold(50);
+        conf.setCircuitBreakerWindowSize(2);
+        conf.setCircuitBreakerOpenDurationInSeconds(1);
+        GitHubEMURESTClient client = newClient(conf);
+        Uid uid = new Uid(server.getUserIds().get(0));
+        server.throttleNext(2, 503, 0);
+
+        assertThrows(ConnectorException.class, () -> client.getEMUUser(uid, null, Collections.emptySet()));
+        assertThrows(ConnectorException.class, () -> client.getEMUUser(uid, null, Collections.emptySet()));
+        String path = USERS + "/" + uid.getUidValue();
+        long sent = server.countRequests("GET", path);
+
+        // Not sent to GitHub while the circuit is open
+        assertThrows(ConnectionFailedException.class, () -> client.getEMUUser(uid, null, Collections.emptySet()));
+        assertEquals(sent, server.countRequests("GET", path));
+
+        // The probe succeeds after the open duration
+        Thread.sleep(1100);
+        assertEquals(uid.getUidValue(), client.getEMUUser(uid, null, Collections.emptySet()).id);
+        assertEquals(sent + 1, server.countRequests("GET", path));
+    }
+
+    private GitHubEMURESTClient newIdleClient() throws InterruptedException {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setAliveCheckIntervalInSeconds(1);
+        GitHubEMURESTClient client = newClient(conf);
+        client.test();
+        // No successful call within the interval
+        Thread.sleep(1100);
+        return client;
+    }
+
+    @Test
+    void clientConnectsOnFirstUse() {
+        GitHubEMURESTClient client = newClient(server.newConfiguration());
+
+        client.checkAlive();
+        assertTrue(server.getRequests().isEmpty());
+
+        client.getEMUUser(new Uid(server.getUserIds().get(0)), null, Collections.emptySet());
+        assertFalse(server.getRequests().isEmpty());
+    }
+
+    @Test
+    void checkAlive_callsGitHubAtMostOncePerInterval() throws Exception {
+        GitHubEMURESTClient client = newIdleClient();
+
+        client.checkAlive();
+        client.checkAlive();
+
+        assertEquals(1, server.countRequests("GET", "/rate_limit"));
+    }
+
+    @Test
+    void checkAlive_reusesRecentResponse() {
+        GitHubEMURESTClient client = newClient(server.newConfiguration());
+        client.getEMUUser(new Uid(server.getUserIds().get(0)), null, Collections.emptySet());
+
+        client.checkAlive();
+
+        assertEquals(0, server.countRequests("GET", "/rate_limit"));
+    }
+
+    @Test
+    void checkAlive_failsWhenGitHubIsUnavailable() throws Exception {
+        GitHubEMURESTClient client = newIdleClient();
+        server.throttleNext(1, 503, 0);
+
+        assertThrows(ConnectorException.class, client::checkAlive);
+
+        // Not throttled as the previous check failed
+        client.checkAlive();
+        assertEquals(2, server.countRequests("GET", "/rate_limit"));
+    }
+
+    @Test
+    void groupPatchedWithoutMembersInResponse_isFoundByMemberFromIndex() {
+        server.withPatchResponsesWithoutMembers();
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setGroupMembershipIndexTTLInSeconds(300);
+        GitHubEMURESTClient client = newClient(conf);
+        ObjectHandler handler = new GitHubEMUSchema(conf, client).getSchemaHandler(GitHubEMUGroupHandler.GROUP_OBJECT_CLASS);
+        // Not a member of any group
+        String userId = server.getUserIds().get(24);
+        String groupId = server.getGroupIds().get(0);
+        Set<String> attrs = new HashSet<>(Arrays.asList(Uid.NAME, Name.NAME, "members.User.value"));
+        List<ConnectorObject> found = new ArrayList<>();
+
+        handler.getByMembers(AttributeBuilder.build("members.User.value", userId), found::add, null, attrs, attrs, false, 10, 0);
+        assertTrue(found.isEmpty());
+
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.addMembers(Collections.singletonList(userId));
+        client.patchEMUGroup(new Uid(groupId), ops);
+
+        long sweeps = server.countRequests("GET", GROUPS);
+        handler.getByMembers(AttributeBuilder.build("members.User.value", userId), found::add, null, attrs, attrs, false, 10, 0);
+
+        // Served from the patched index
+        assertEquals(sweeps, server.countRequests("GET", GROUPS));
+        assertEquals(1, found.size());
+        assertEquals(groupId, found.get(0).getUid().getUidValue());
+        assertTrue(found.get(0).getAttributeByName("members.User.value").getValue().contains(userId));
+    }
+
+    @Test
+    void readTimeout_fails() {
+        GitHubEMUConfiguration conf = server.newConfiguration();
+        conf.setReadTimeoutInMilliseconds(100);
+        GitHubEMURESTClient client = newClient(conf);
+        server.withLatency(1000);
+
+        assertThrows(ConnectorException.class, () -> client.getEMUUser(new Uid(server.getUserIds().get(0)), null, Collections.emptySet()));
+    }
+
+    @Test
+    void concurrentLookups_underLatency() throws Exception {
+        GitHubEMURESTClient client = newClient();
+        server.withLatency(5);
+        List<String> userIds = server.getUserIds();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String id = userIds.get(i % userIds.size());
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    SCIMEMUUser user = client.getEMUUser(new Uid(id), null, Collections.emptySet());
+                    assertEquals(id, user.id);
+                    return System.nanoTime() - start;
+                }));
+            }
+
+            List<Long> latencies = new ArrayList<>();
+            for (Future<Long> f : futures) {
+                latencies.add(f.get(30, TimeUnit.SECONDS));
+            }
+            Collections.sort(latencies);
+
+            assertEquals(200, latencies.size());
+            // Every response is delayed by the server
+            assertTrue(latencies.get(0) >= TimeUnit.MILLISECONDS.toNanos(5));
+            assertEquals(200, server.getRequests().stream()
+                    .filter(r -> r.startsWith("GET ") && r.contains(USERS + "/"))
+                    .count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import jp.openstandia.connector.github.GitHubEMUConfiguration;
 import jp.openstandia.connector.github.GitHubEMUSchema;
 import org.kohsuke.github.TestSCIMPagedSearchIterable;
 import jp.openstandia.connector.util.QueryHandler;
+import jp.openstandia.connector.util.TrackingQueryHandler;
 import org.identityconnectors.framework.common.exceptions.*;
 import org.identityconnectors.framework.common.objects.Name;
 import org.identityconnectors.framework.common.objects.OperationOptions;
@@ -114,9 +115,14 @@ class GitHubEMURESTClientTest {
     // auth()
     // =======================================================
     @Test
-    void auth_isOverridden_noNetwork_calledByCtorAtLeastOnce() {
-        // Constructor calls auth(); our override increments counter
-        assertTrue(client.authCalls.get() >= 1);
+    void auth_isDeferredToFirstUse() throws Exception {
+        int before = TestableClient.authCalls.get();
+        TestableClient fresh = new TestableClient(configuration);
+        assertEquals(before, TestableClient.authCalls.get());
+
+        // Our override doesn't create the API client, so the call itself fails
+        assertThrows(ConnectorException.class, fresh::test);
+        assertEquals(before + 1, TestableClient.authCalls.get());
     }
 
 //    // =======================================================
@@ -183,13 +189,93 @@ class GitHubEMURESTClientTest {
     // withAuth(Callable<T>)
     // =======================================================
     @Test
-    void withAuth_whenLastAuthenticatedNonZero_callsAuth() throws Exception {
+    void withAuth_whenTokenTTLExpired_callsAuth() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 123L);
+        when(configuration.getAuthTokenTTLInSeconds()).thenReturn(60);
+        int before = TestableClient.authCalls.get();
+
+        String out = client.withAuth(() -> "ok");
+
+        assertEquals("ok", out);
+        assertEquals(before + 1, TestableClient.authCalls.get());
+    }
+
+    @Test
+    void withAuth_whenNoTokenTTL_reusesAuthenticatedClient() throws Exception {
         setPrivateLong(client, "lastAuthenticated", 123L);
+        when(configuration.getAuthTokenTTLInSeconds()).thenReturn(0);
+        int before = TestableClient.authCalls.get();
 
         String out = client.withAuth(() -> "ok");
 
         assertEquals("ok", out);
-        assertTrue(client.authCalls.get() >= 2); // ctor auth + this auth
+        assertEquals(before, TestableClient.authCalls.get());
+    }
+
+    @Test
+    void withAuth_whenUnauthorized_reAuthsAndRetriesOnce() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+        int before = TestableClient.authCalls.get();
+
+        Exception e = ghFileNotFoundWithStatus("HTTP/1.1 401 Unauthorized");
+        AtomicInteger calls = new AtomicInteger();
+
+        String out = client.withAuth(() -> {
+            if (calls.getAndIncrement() == 0) {
+                throw e;
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", out);
+        assertEquals(2, calls.get());
+        assertEquals(before + 1, TestableClient.authCalls.get());
+    }
+
+    @Test
+    void withAuth_whenUnauthorizedAndNotRetryable_reAuthsWithoutRetrying() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+        int before = TestableClient.authCalls.get();
+
+        Exception e = ghFileNotFoundWithStatus("HTTP/1.1 401 Unauthorized");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ConnectionFailedException.class, () -> client.withAuth(() -> false, () -> {
+            calls.incrementAndGet();
+            throw e;
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(before + 1, TestableClient.authCalls.get());
+    }
+
+    @Test
+    void withAuth_whenUnauthorizedAfterResultsHandled_doesNotReplayResults() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+
+        Exception e = ghFileNotFoundWithStatus("HTTP/1.1 401 Unauthorized");
+        List<String> received = new ArrayList<>();
+        TrackingQueryHandler<String> handler = new TrackingQueryHandler<>(received::add);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ConnectionFailedException.class, () -> client.withAuth(handler::isNothingHandled, () -> {
+            calls.incrementAndGet();
+            // The first page reached the caller before the next page failed
+            handler.handle("u1");
+            throw e;
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(List.of("u1"), received);
+    }
+
+    @Test
+    void withAuth_whenUnauthorizedTwice_throwsConnectionFailed() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+
+        Exception e = ghFileNotFoundWithStatus("HTTP/1.1 401 Unauthorized");
+
+        assertThrows(ConnectionFailedException.class, () ->
+                client.withAuth(() -> { throw e; })
+        );
     }
 
     @Test
@@ -400,6 +486,73 @@ class GitHubEMURESTClientTest {
         verify(enterprise).deleteSCIMGroup("g1");
     }
 
+    @Test
+    void getEMUGroupsByMembers_withMembershipIndex_sweepsOnceAndFollowsWrites() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+        when(configuration.getGroupMembershipIndexTTLInSeconds()).thenReturn(300);
+        when(configuration.getEnterpriseSlug()).thenReturn("ent-membership-index");
+
+        SCIMEMUGroup g1 = group("g1", "u1", "u2");
+        SCIMEMUGroup g2 = group("g2", "u2");
+        when(enterprise.listSCIMGroups(anyInt(), eq(0)))
+                .thenReturn(new TestSCIMPagedSearchIterable<>(List.of(g1, g2), 2));
+
+        List<String> found = new ArrayList<>();
+        client.getEMUGroupsByMembers(Set.of("u2"), g -> found.add(g.id), options, Set.of(), 10, 0);
+        assertEquals(Set.of("g1", "g2"), new HashSet<>(found));
+
+        // Removing u2 from g1 through the connector is reflected without a new sweep
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.removeMembers(List.of("u2"));
+        when(enterprise.updateSCIMEMUGroup("g1", ops)).thenReturn(null);
+        client.patchEMUGroup(new Uid("g1"), ops);
+
+        found.clear();
+        client.getEMUGroupsByMembers(Set.of("u2"), g -> found.add(g.id), options, Set.of(), 10, 0);
+        assertEquals(List.of("g2"), found);
+
+        client.deleteEMUGroup(new Uid("g2"), options);
+
+        found.clear();
+        client.getEMUGroupsByMembers(Set.of("u2"), g -> found.add(g.id), options, Set.of(), 10, 0);
+        assertTrue(found.isEmpty());
+
+        verify(enterprise, times(1)).listSCIMGroups(anyInt(), eq(0));
+    }
+
+    @Test
+    void deleteEMUUser_withMembershipIndex_dropsMemberships() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+        when(configuration.getGroupMembershipIndexTTLInSeconds()).thenReturn(300);
+        when(configuration.getEnterpriseSlug()).thenReturn("ent-membership-index-delete");
+
+        when(enterprise.listSCIMGroups(anyInt(), eq(0)))
+                .thenReturn(new TestSCIMPagedSearchIterable<>(List.of(group("g1", "u1", "u2")), 1));
+
+        List<String> found = new ArrayList<>();
+        client.getEMUGroupsByMembers(Set.of("u2"), g -> found.add(g.id), options, Set.of(), 10, 0);
+        assertEquals(List.of("g1"), found);
+
+        client.deleteEMUUser(new Uid("u2"), options);
+
+        found.clear();
+        client.getEMUGroupsByMembers(Set.of("u2"), g -> found.add(g.id), options, Set.of(), 10, 0);
+        assertTrue(found.isEmpty());
+        verify(enterprise, times(1)).listSCIMGroups(anyInt(), eq(0));
+    }
+
+    private static SCIMEMUGroup group(String id, String... memberIds) {
+        SCIMEMUGroup g = new SCIMEMUGroup();
+        g.id = id;
+        g.members = new ArrayList<>();
+        for (String memberId : memberIds) {
+            SCIMMember m = new SCIMMember();
+            m.value = memberId;
+            g.members.add(m);
+        }
+        return g;
+    }
+
     // =======================================================
     // getEMUGroup(Uid)
     // =======================================================
@@ -464,6 +617,34 @@ class GitHubEMURESTClientTest {
         verify(enterprise).getCopilotSeatByDisplayName("Jane Doe");
     }
 
+    @Test
+    void getCopilotSeat_withSeatIndex_sweepsOnceAndReusesIndex() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+        when(configuration.getCopilotSeatIndexTTLInSeconds()).thenReturn(300);
+        when(configuration.getEnterpriseSlug()).thenReturn("ent-seat-index");
+
+        GitHubCopilotSeat s1 = seat("u1", "alice");
+        GitHubCopilotSeat s2 = seat("u2", "bob");
+        when(enterprise.listAllSeats(anyInt(), eq(0)))
+                .thenReturn(new TestGitHubCopilotSeatPagedSearchIterable<>(List.of(s1, s2), 2));
+
+        assertSame(s1, client.getCopilotSeat(new Uid("u1"), options, Set.of()));
+        assertSame(s2, client.getCopilotSeat(new Name("bob"), options, Set.of()));
+        assertNull(client.getCopilotSeat(new Uid("unknown"), options, Set.of()));
+
+        verify(enterprise, times(1)).listAllSeats(anyInt(), eq(0));
+        verify(enterprise, never()).getCopilotSeatByUid(anyString());
+        verify(enterprise, never()).getCopilotSeatByDisplayName(anyString());
+    }
+
+    private static GitHubCopilotSeat seat(String id, String login) {
+        GitHubCopilotSeat seat = new GitHubCopilotSeat();
+        seat.assignee = new GitHubCopilotSeatAssignee();
+        seat.assignee.id = id;
+        seat.assignee.login = login;
+        return seat;
+    }
+
     // =======================================================
     // getCopilotSeats
     // =======================================================
@@ -568,6 +749,58 @@ class GitHubEMURESTClientTest {
         verify(handler, times(2)).handle(any());
     }
 
+    @Test
+    void getEMUGroups_withoutMembersRequested_excludesMembers() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+
+        SCIMPagedSearchIterable<SCIMEMUGroup> iterable = new TestSCIMPagedSearchIterable<>(List.of(), 0);
+        when(enterprise.listSCIMGroups(10, 0, Set.of("members"))).thenReturn(iterable);
+
+        @SuppressWarnings("unchecked")
+        QueryHandler<SCIMEMUGroup> handler = mock(QueryHandler.class);
+
+        client.getEMUGroups(handler, options, Set.of("id", "displayName"), 10, 0);
+
+        verify(enterprise).listSCIMGroups(10, 0, Set.of("members"));
+        verify(enterprise, never()).listSCIMGroups(anyInt(), anyInt());
+    }
+
+    @Test
+    void getEMUGroups_withMembersRequested_fetchesFullGroups() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+
+        SCIMPagedSearchIterable<SCIMEMUGroup> iterable = new TestSCIMPagedSearchIterable<>(List.of(), 0);
+        when(enterprise.listSCIMGroups(10, 0)).thenReturn(iterable);
+
+        @SuppressWarnings("unchecked")
+        QueryHandler<SCIMEMUGroup> handler = mock(QueryHandler.class);
+
+        client.getEMUGroups(handler, options, Set.of("id", "members"), 10, 0);
+
+        verify(enterprise).listSCIMGroups(10, 0);
+    }
+
+    @Test
+    void getEMUGroup_byUid_withoutMembersRequested_excludesMembers() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+
+        SCIMEMUGroup g = new SCIMEMUGroup(); g.id = "g1";
+        when(enterprise.getSCIMEMUGroup("g1", Set.of("members"))).thenReturn(g);
+
+        assertSame(g, client.getEMUGroup(new Uid("g1"), options, Set.of("id", "displayName")));
+    }
+
+    @Test
+    void getEMUGroup_byName_withoutMembersRequested_excludesMembers() throws Exception {
+        setPrivateLong(client, "lastAuthenticated", 0L);
+
+        SCIMEMUGroup g = new SCIMEMUGroup(); g.displayName = "devs";
+        when(enterprise.getSCIMEMUGroupByDisplayName("devs", Set.of("members"))).thenReturn(g);
+
+        assertSame(g, client.getEMUGroup(new Name("devs"), options, Set.of("id", "displayName")));
+        verify(enterprise, never()).getSCIMEMUGroupByDisplayName("devs");
+    }
+
     // =======================================================
     // close()
     // =======================================================
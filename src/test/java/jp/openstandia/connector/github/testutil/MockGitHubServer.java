@@ -0,0 +1,669 @@
+package jp.openstandia.connector.github.testutil;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jp.openstandia.connector.github.GitHubEMUConfiguration;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.identityconnectors.common.security.GuardedString;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process GitHub API server for tests which need real HTTP behavior.
+ * <p>
+ * It implements the enterprise SCIM Users/Groups endpoints and the Copilot billing seats endpoint on top of
+ * OkHttp MockWebServer, so that the real {@link jp.openstandia.connector.github.rest.GitHubEMURESTClient} can be
+ * exercised offline including paging, rate limit responses and timeouts.
+ * <ul>
+ *     <li>SCIM lists are paged by startIndex/count and support a single "eq" filter and (excluded)attributes</li>
+ *     <li>Copilot seats are paged by page/per_page with a Link header</li>
+ *     <li>Every response can be delayed to simulate latency</li>
+ *     <li>The next N requests can be answered with 429 or 403 (secondary rate limit) with Retry-After</li>
+ *     <li>A primary rate limit can be enforced with X-RateLimit-* headers</li>
+ * </ul>
+ *
+ * @author Hiroyuki Wada
+ */
+public class MockGitHubServer implements Closeable {
+
+    public static final String ENTERPRISE = "mock-enterprise";
+
+    private static final String SCIM_PATH = "/scim/v2/enterprises/" + ENTERPRISE + "/";
+    private static final String SEATS_PATH = "/enterprises/" + ENTERPRISE + "/copilot/billing/seats";
+    private static final String LIST_RESPONSE = "urn:ietf:params:scim:api:messages:2.0:ListResponse";
+    private static final String ERROR_RESPONSE = "urn:ietf:params:scim:api:messages:2.0:Error";
+    private static final Pattern EQ_FILTER = Pattern.compile("^(\\w+) eq \"(.*)\"$");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MockWebServer server = new MockWebServer();
+
+    // id -> resource, in the order of creation. Guarded by lock.
+    private final Object lock = new Object();
+    private final Map<String, ObjectNode> users = new LinkedHashMap<>();
+    private final Map<String, ObjectNode> groups = new LinkedHashMap<>();
+    private final List<ObjectNode> seats = Collections.synchronizedList(new ArrayList<>());
+
+    private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+
+    private volatile long latencyMillis;
+    private volatile int maxPageSize = 100;
+    private volatile boolean patchWithoutMembers;
+
+    // Secondary rate limit
+    private int throttleCount;
+    private int throttleStatus;
+    private int throttleRetryAfterSeconds;
+
+    // Primary rate limit. 0 means unlimited.
+    private int rateLimit;
+    private int rateLimitWindowSeconds;
+    private int rateLimitRemaining;
+    private long rateLimitResetEpochSeconds;
+
+    /**
+     * Adds users. They are named "user{n}_mock".
+     *
+     * @param count the number of users
+     * @return this
+     */
+    public MockGitHubServer withUsers(int count) {
+        synchronized (lock) {
+            int start = users.size();
+            for (int i = start; i < start + count; i++) {
+                ObjectNode user = mapper.createObjectNode();
+                user.putArray("schemas").add("urn:ietf:params:scim:schemas:core:2.0:User");
+                user.put("id", id("user", i));
+                user.put("externalId", "ext-user" + i);
+                user.put("userName", "user" + i + "_mock");
+                user.put("displayName", "User " + i);
+                user.put("active", true);
+                ObjectNode name = user.putObject("name");
+                name.put("givenName", "Given" + i);
+                name.put("familyName", "Family" + i);
+                name.put("formatted", "Given" + i + " Family" + i);
+                ObjectNode email = user.putArray("emails").addObject();
+                email.put("value", "user" + i + "@example.com");
+                email.put("primary", true);
+                email.put("type", "work");
+                user.putArray("roles").addObject().put("value", "user").put("primary", false);
+                user.set("meta", meta("User"));
+                users.put(user.get("id").asText(), user);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds groups. Members are assigned round-robin from the existing users.
+     *
+     * @param count          the number of groups
+     * @param membersPerGroup the number of members of each group
+     * @return this
+     */
+    public MockGitHubServer withGroups(int count, int membersPerGroup) {
+        synchronized (lock) {
+            List<String> userIds = new ArrayList<>(users.keySet());
+            int start = groups.size();
+            for (int i = start; i < start + count; i++) {
+                ObjectNode group = mapper.createObjectNode();
+                group.putArray("schemas").add("urn:ietf:params:scim:schemas:core:2.0:Group");
+                group.put("id", id("group", i));
+                group.put("externalId", "ext-group" + i);
+                group.put("displayName", "group" + i);
+                ArrayNode members = group.putArray("members");
+                for (int j = 0; j < membersPerGroup && !userIds.isEmpty(); j++) {
+                    members.add(member(userIds.get((i + j) % userIds.size())));
+                }
+                group.set("meta", meta("Group"));
+                groups.put(group.get("id").asText(), group);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds Copilot seats. Seats are assigned to "seat{n}" users.
+     *
+     * @param count the number of seats
+     * @return this
+     */
+    public MockGitHubServer withCopilotSeats(int count) {
+        synchronized (seats) {
+            int start = seats.size();
+            for (int i = start; i < start + count; i++) {
+                ObjectNode seat = mapper.createObjectNode();
+                seat.put("created_at", "2024-01-01T00:00:00Z");
+                seat.put("updated_at", "2024-06-01T00:00:00Z");
+                seat.put("plan_type", "business");
+                seat.put("last_activity_at", "2024-06-01T12:00:00Z");
+                seat.put("last_activity_editor", "vscode");
+                ObjectNode assignee = seat.putObject("assignee");
+                assignee.put("login", "seat" + i);
+                assignee.put("id", String.valueOf(1000 + i));
+                assignee.put("node_id", "U_" + (1000 + i));
+                assignee.put("type", "User");
+                assignee.put("site_admin", "false");
+                seats.add(seat);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Delays every response.
+     *
+     * @param millis the latency in milliseconds
+     * @return this
+     */
+    public MockGitHubServer withLatency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    /**
+     * Caps the page size regardless of the requested count, like GitHub does.
+     *
+     * @param maxPageSize the max page size
+     * @return this
+     */
+    public MockGitHubServer withMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+        return this;
+    }
+
+    /**
+     * Answers PATCH requests with the patched resource without its members.
+     *
+     * @return this
+     */
+    public MockGitHubServer withPatchResponsesWithoutMembers() {
+        this.patchWithoutMembers = true;
+        return this;
+    }
+
+    /**
+     * Enforces a primary rate limit. Exceeding requests are answered with 403 and X-RateLimit-Remaining: 0.
+     * Note that the GitHub API client waits until X-RateLimit-Reset when it receives it.
+     *
+     * @param limit         the number of requests allowed in a window
+     * @param windowSeconds the length of the window
+     * @return this
+     */
+    public synchronized MockGitHubServer withRateLimit(int limit, int windowSeconds) {
+        this.rateLimit = limit;
+        this.rateLimitWindowSeconds = windowSeconds;
+        this.rateLimitRemaining = limit;
+        this.rateLimitResetEpochSeconds = Instant.now().getEpochSecond() + windowSeconds;
+        return this;
+    }
+
+    /**
+     * Answers the next requests with a secondary rate limit error.
+     *
+     * @param count             the number of requests to throttle
+     * @param statusCode        429 or 403
+     * @param retryAfterSeconds the value of Retry-After header
+     */
+    public synchronized void throttleNext(int count, int statusCode, int retryAfterSeconds) {
+        this.throttleCount = count;
+        this.throttleStatus = statusCode;
+        this.throttleRetryAfterSeconds = retryAfterSeconds;
+    }
+
+    public void start() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return MockGitHubServer.this.dispatch(request);
+            }
+        });
+        server.start();
+    }
+
+    public String getEndpointURL() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    public GitHubEMUConfiguration newConfiguration() {
+        GitHubEMUConfiguration conf = new GitHubEMUConfiguration();
+        conf.setEndpointURL(getEndpointURL());
+        conf.setEnterpriseSlug(ENTERPRISE);
+        conf.setAccessToken(new GuardedString("mock-token".toCharArray()));
+        return conf;
+    }
+
+    /**
+     * Returns the received requests as "METHOD path".
+     *
+     * @return the received requests
+     */
+    public List<String> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    public long countRequests(String method, String pathSuffix) {
+        return requests.stream()
+                .filter(r -> r.startsWith(method + " ") && r.endsWith(pathSuffix))
+                .count();
+    }
+
+    public JsonNode getUser(String id) {
+        synchronized (lock) {
+            return users.get(id);
+        }
+    }
+
+    public JsonNode getGroup(String id) {
+        synchronized (lock) {
+            return groups.get(id);
+        }
+    }
+
+    public List<String> getUserIds() {
+        synchronized (lock) {
+            return new ArrayList<>(users.keySet());
+        }
+    }
+
+    public List<String> getGroupIds() {
+        synchronized (lock) {
+            return new ArrayList<>(groups.keySet());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse dispatch(RecordedRequest request) {
+        HttpUrl url = request.getRequestUrl();
+        String method = request.getMethod();
+        String path = url.encodedPath();
+        requests.add(method + " " + path);
+
+        MockResponse response;
+        if (consumeThrottle()) {
+            response = throttled();
+        } else if (!consumeRateLimit()) {
+            response = rateLimitExceeded();
+        } else {
+            try {
+                response = route(method, path, url, request.getBody().readUtf8());
+            } catch (IOException e) {
+                response = scimError(400, e.getMessage());
+            }
+        }
+
+        addRateLimitHeaders(response);
+        if (latencyMillis > 0) {
+            response.setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    private MockResponse route(String method, String path, HttpUrl url, String body) throws IOException {
+        if (path.equals("/") && method.equals("GET")) {
+            ObjectNode root = mapper.createObjectNode();
+            root.put("rate_limit_url", getEndpointURL() + "/rate_limit");
+            return json(200, root);
+        }
+        if (path.equals("/rate_limit") && method.equals("GET")) {
+            return json(200, rateLimitBody());
+        }
+        if (path.startsWith(SCIM_PATH + "Users")) {
+            return scim(users, "User", method, path.substring((SCIM_PATH + "Users").length()), url, body);
+        }
+        if (path.startsWith(SCIM_PATH + "Groups")) {
+            return scim(groups, "Group", method, path.substring((SCIM_PATH + "Groups").length()), url, body);
+        }
+        if (path.equals(SEATS_PATH) && method.equals("GET")) {
+            return seats(url);
+        }
+        return scimError(404, "Not Found");
+    }
+
+    private MockResponse scim(Map<String, ObjectNode> store, String resourceType, String method, String rest,
+                              HttpUrl url, String body) throws IOException {
+        synchronized (lock) {
+            if (rest.isEmpty() || rest.equals("/")) {
+                if (method.equals("GET")) {
+                    return json(200, list(store.values(), url));
+                }
+                if (method.equals("POST")) {
+                    return create(store, resourceType, (ObjectNode) mapper.readTree(body));
+                }
+                return scimError(405, "Method Not Allowed");
+            }
+
+            String id = rest.substring(1);
+            ObjectNode resource = store.get(id);
+            if (resource == null) {
+                return scimError(404, "Resource " + id + " not found.");
+            }
+
+            switch (method) {
+                case "GET":
+                    return json(200, project(resource, url));
+                case "PATCH":
+                    patch(resource, mapper.readTree(body));
+                    if (patchWithoutMembers) {
+                        ObjectNode copy = resource.deepCopy();
+                        copy.remove("members");
+                        return json(200, copy);
+                    }
+                    return json(200, resource);
+                case "DELETE":
+                    store.remove(id);
+                    if (resourceType.equals("User")) {
+                        removeMemberFromGroups(id);
+                    }
+                    return new MockResponse().setResponseCode(204);
+                default:
+                    return scimError(405, "Method Not Allowed");
+            }
+        }
+    }
+
+    private ObjectNode list(Collection<ObjectNode> resources, HttpUrl url) {
+        List<ObjectNode> matched = new ArrayList<>();
+        String filter = url.queryParameter("filter");
+        Matcher m = filter != null ? EQ_FILTER.matcher(filter.trim()) : null;
+        for (ObjectNode r : resources) {
+            if (m == null || (m.matches() && r.hasNonNull(m.group(1)) && r.get(m.group(1)).asText().equals(m.group(2)))) {
+                matched.add(r);
+            }
+        }
+
+        int startIndex = Math.max(1, intParam(url, "startIndex", 1));
+        int count = Math.max(0, Math.min(intParam(url, "count", maxPageSize), maxPageSize));
+        int from = Math.min(startIndex - 1, matched.size());
+        int to = Math.min(from + count, matched.size());
+
+        ObjectNode page = mapper.createObjectNode();
+        page.putArray("schemas").add(LIST_RESPONSE);
+        page.put("totalResults", matched.size());
+        page.put("itemsPerPage", to - from);
+        page.put("startIndex", startIndex);
+        ArrayNode array = page.putArray("Resources");
+        for (ObjectNode r : matched.subList(from, to)) {
+            array.add(project(r, url));
+        }
+        return page;
+    }
+
+    private ObjectNode project(ObjectNode resource, HttpUrl url) {
+        ObjectNode copy = resource.deepCopy();
+        String excluded = url.queryParameter("excludedAttributes");
+        if (excluded != null) {
+            for (String attr : excluded.split(",")) {
+                copy.remove(attr.trim());
+            }
+        }
+        String attributes = url.queryParameter("attributes");
+        if (attributes != null) {
+            Set<String> keep = new HashSet<>(Arrays.asList("id", "schemas"));
+            for (String attr : attributes.split(",")) {
+                keep.add(attr.trim());
+            }
+            copy.retain(keep);
+        }
+        return copy;
+    }
+
+    private MockResponse create(Map<String, ObjectNode> store, String resourceType, ObjectNode resource) {
+        String uniqueAttr = resourceType.equals("User") ? "userName" : "displayName";
+        String value = resource.path(uniqueAttr).asText(null);
+        if (value == null) {
+            return scimError(400, uniqueAttr + " is required.");
+        }
+        for (ObjectNode r : store.values()) {
+            if (value.equals(r.path(uniqueAttr).asText())) {
+                return scimError(409, uniqueAttr + " must be unique.");
+            }
+        }
+
+        resource.put("id", UUID.randomUUID().toString());
+        resource.set("meta", meta(resourceType));
+        if (resource.has("members")) {
+            ArrayNode members = mapper.createArrayNode();
+            for (JsonNode m : resource.get("members")) {
+                members.add(member(m.path("value").asText()));
+            }
+            resource.set("members", members);
+        }
+        store.put(resource.get("id").asText(), resource);
+        return json(201, resource);
+    }
+
+    private void patch(ObjectNode resource, JsonNode body) {
+        for (JsonNode op : body.path("Operations")) {
+            String type = op.path("op").asText().toLowerCase(Locale.ROOT);
+            String path = op.path("path").asText(null);
+            JsonNode value = op.get("value");
+
+            if ("members".equals(path)) {
+                patchMembers(resource, type, value);
+            } else if (path == null) {
+                if (value != null && value.isObject()) {
+                    resource.setAll((ObjectNode) value);
+                }
+            } else if (type.equals("remove")) {
+                parentOf(resource, path).remove(leafOf(path));
+            } else {
+                parentOf(resource, path).set(leafOf(path), value);
+            }
+        }
+        ((ObjectNode) resource.get("meta")).put("lastModified", Instant.now().toString());
+    }
+
+    private void patchMembers(ObjectNode group, String type, JsonNode value) {
+        ArrayNode members = group.has("members") ? (ArrayNode) group.get("members") : group.putArray("members");
+        Set<String> ids = new LinkedHashSet<>();
+        for (JsonNode m : members) {
+            ids.add(m.path("value").asText());
+        }
+        if (value != null) {
+            for (JsonNode m : value) {
+                if (type.equals("add")) {
+                    ids.add(m.path("value").asText());
+                } else if (type.equals("remove")) {
+                    ids.remove(m.path("value").asText());
+                }
+            }
+        }
+        members.removeAll();
+        for (String id : ids) {
+            members.add(member(id));
+        }
+    }
+
+    private void removeMemberFromGroups(String userId) {
+        synchronized (lock) {
+            for (ObjectNode group : groups.values()) {
+                if (group.has("members")) {
+                    ArrayNode members = (ArrayNode) group.get("members");
+                    for (int i = members.size() - 1; i >= 0; i--) {
+                        if (userId.equals(members.get(i).path("value").asText())) {
+                            members.remove(i);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private MockResponse seats(HttpUrl url) {
+        String perPageParam = url.queryParameter("per_page") != null ? "per_page" : "count";
+        int perPage = Math.max(1, Math.min(intParam(url, perPageParam, 50), maxPageSize));
+        int page = Math.max(1, intParam(url, "page", 1));
+        boolean byIndex = url.queryParameter("page") == null && url.queryParameter("startIndex") != null;
+        int from = byIndex ? Math.max(0, intParam(url, "startIndex", 1) - 1) : (page - 1) * perPage;
+
+        List<ObjectNode> all;
+        synchronized (seats) {
+            all = new ArrayList<>(seats);
+        }
+        from = Math.min(from, all.size());
+        int to = Math.min(from + perPage, all.size());
+
+        ObjectNode body = mapper.createObjectNode();
+        body.put("total_seats", all.size());
+        ArrayNode array = body.putArray("seats");
+        all.subList(from, to).forEach(array::add);
+
+        MockResponse response = json(200, body);
+        if (to < all.size()) {
+            HttpUrl.Builder next = url.newBuilder()
+                    .removeAllQueryParameters("count")
+                    .removeAllQueryParameters("startIndex")
+                    .setQueryParameter("per_page", String.valueOf(perPage));
+            if (byIndex) {
+                next.setQueryParameter("startIndex", String.valueOf(to + 1));
+            } else {
+                next.setQueryParameter("page", String.valueOf(page + 1));
+            }
+            response.setHeader("Link", "<" + next.build() + ">; rel=\"next\"");
+        }
+        return response;
+    }
+
+    private synchronized boolean consumeThrottle() {
+        if (throttleCount > 0) {
+            throttleCount--;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized boolean consumeRateLimit() {
+        if (rateLimit <= 0) {
+            return true;
+        }
+        long now = Instant.now().getEpochSecond();
+        if (now >= rateLimitResetEpochSeconds) {
+            rateLimitRemaining = rateLimit;
+            rateLimitResetEpochSeconds = now + rateLimitWindowSeconds;
+        }
+        if (rateLimitRemaining <= 0) {
+            return false;
+        }
+        rateLimitRemaining--;
+        return true;
+    }
+
+    private synchronized void addRateLimitHeaders(MockResponse response) {
+        int limit = rateLimit > 0 ? rateLimit : 5000;
+        int remaining = rateLimit > 0 ? rateLimitRemaining : 5000;
+        long reset = rateLimit > 0 ? rateLimitResetEpochSeconds : Instant.now().getEpochSecond() + 3600;
+        response.setHeader("X-RateLimit-Limit", limit);
+        response.setHeader("X-RateLimit-Remaining", remaining);
+        response.setHeader("X-RateLimit-Reset", reset);
+        response.setHeader("X-RateLimit-Resource", "core");
+    }
+
+    private synchronized ObjectNode rateLimitBody() {
+        ObjectNode core = mapper.createObjectNode();
+        core.put("limit", rateLimit > 0 ? rateLimit : 5000);
+        core.put("remaining", rateLimit > 0 ? rateLimitRemaining : 5000);
+        core.put("reset", rateLimit > 0 ? rateLimitResetEpochSeconds : Instant.now().getEpochSecond() + 3600);
+        ObjectNode body = mapper.createObjectNode();
+        body.putObject("resources").set("core", core);
+        body.set("rate", core.deepCopy());
+        return body;
+    }
+
+    private synchronized MockResponse throttled() {
+        ObjectNode body = mapper.createObjectNode();
+        body.put("message", "You have exceeded a secondary rate limit. Please wait a few minutes before you try again.");
+        return json(throttleStatus, body)
+                .setHeader("Retry-After", throttleRetryAfterSeconds);
+    }
+
+    private MockResponse rateLimitExceeded() {
+        ObjectNode body = mapper.createObjectNode();
+        body.put("message", "API rate limit exceeded.");
+        return json(403, body);
+    }
+
+    private MockResponse scimError(int status, String detail) {
+        ObjectNode body = mapper.createObjectNode();
+        body.putArray("schemas").add(ERROR_RESPONSE);
+        body.put("status", String.valueOf(status));
+        body.put("detail", detail);
+        return json(status, body);
+    }
+
+    private MockResponse json(int status, JsonNode body) {
+        return new MockResponse()
+                .setResponseCode(status)
+                .setHeader("Content-Type", "application/scim+json; charset=utf-8")
+                .setBody(body.toString());
+    }
+
+    private ObjectNode member(String userId) {
+        ObjectNode member = mapper.createObjectNode();
+        member.put("value", userId);
+        member.put("$ref", getEndpointURL() + SCIM_PATH + "Users/" + userId);
+        synchronized (lock) {
+            ObjectNode user = users.get(userId);
+            if (user != null) {
+                member.put("display", user.path("userName").asText());
+            }
+        }
+        return member;
+    }
+
+    private ObjectNode meta(String resourceType) {
+        String now = Instant.now().toString();
+        ObjectNode meta = mapper.createObjectNode();
+        meta.put("resourceType", resourceType);
+        meta.put("created", now);
+        meta.put("lastModified", now);
+        return meta;
+    }
+
+    private static ObjectNode parentOf(ObjectNode resource, String path) {
+        ObjectNode parent = resource;
+        String[] segments = path.split("\\.");
+        for (int i = 0; i < segments.length - 1; i++) {
+            parent = parent.has(segments[i]) && parent.get(segments[i]).isObject() ?
+                    (ObjectNode) parent.get(segments[i]) : parent.putObject(segments[i]);
+        }
+        return parent;
+    }
+
+    private static String leafOf(String path) {
+        return path.substring(path.lastIndexOf('.') + 1);
+    }
+
+    private static int intParam(HttpUrl url, String name, int defaultValue) {
+        String value = url.queryParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String id(String prefix, int i) {
+        return UUID.nameUUIDFromBytes((prefix + i).getBytes()).toString();
+    }
+}
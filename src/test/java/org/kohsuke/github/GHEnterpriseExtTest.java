@@ -1,10 +1,12 @@
 package org.kohsuke.github;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.kohsuke.github.authorization.AuthorizationProvider;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -30,6 +32,21 @@ class GHEnterpriseExtTest {
         when(mockGitHub.createRequest()).thenReturn(mockRequester);
     }
 
+    // ==== SERIALIZATION ====
+
+    @Test
+    void testToJsonBytesIsUtf8() throws Exception {
+        SCIMEMUUser user = new SCIMEMUUser();
+        user.userName = "ユーザー";
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.addMembers(Arrays.asList("m1", "m2"));
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertArrayEquals(mapper.writeValueAsString(user).getBytes(StandardCharsets.UTF_8), GHEnterpriseExt.toJsonBytes(user));
+        assertArrayEquals(mapper.writeValueAsString(ops).getBytes(StandardCharsets.UTF_8), GHEnterpriseExt.toJsonBytes(ops));
+        assertTrue(new String(GHEnterpriseExt.toJsonBytes(user), StandardCharsets.UTF_8).contains("ユーザー"));
+    }
+
     // ==== SCIM USERS ====
 
     @Test
@@ -0,0 +1,175 @@
+package org.kohsuke.github;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GitHubCopilotSeatIndexTest {
+
+    private static GitHubCopilotSeat seat(String id, String login) {
+        GitHubCopilotSeat seat = new GitHubCopilotSeat();
+        seat.assignee = new GitHubCopilotSeatAssignee();
+        seat.assignee.id = id;
+        seat.assignee.login = login;
+        return seat;
+    }
+
+    @Test
+    void buildsOnceWithinTTL() throws Exception {
+        GitHubCopilotSeatIndex index = new GitHubCopilotSeatIndex();
+        AtomicInteger loads = new AtomicInteger();
+        GitHubCopilotSeat alice = seat("1", "alice");
+        GitHubCopilotSeat bob = seat("2", "bob");
+
+        GitHubCopilotSeatIndex.SeatLoader loader = () -> {
+            loads.incrementAndGet();
+            return List.of(alice, bob);
+        };
+
+        assertSame(alice, index.getById("1", 60_000, 0, loader));
+        assertSame(bob, index.getByLogin("bob", 60_000, 0, loader));
+        assertNull(index.getById("3", 60_000, 0, loader));
+        assertEquals(1, loads.get());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void rebuildsWhenExpiredOrInvalidated() throws Exception {
+        GitHubCopilotSeatIndex index = new GitHubCopilotSeatIndex();
+        AtomicInteger loads = new AtomicInteger();
+        GitHubCopilotSeatIndex.SeatLoader loader = () -> {
+            loads.incrementAndGet();
+            return List.of(seat("1", "alice"));
+        };
+
+        index.getById("1", 60_000, 0, loader);
+        index.invalidate();
+        index.getById("1", 60_000, 0, loader);
+        assertEquals(2, loads.get());
+
+        // TTL 0 means always expired
+        index.getById("1", 0, 0, loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void refreshReplacesEntries() throws Exception {
+        GitHubCopilotSeatIndex index = new GitHubCopilotSeatIndex();
+        index.refresh(List.of(seat("1", "alice"), new GitHubCopilotSeat()));
+
+        GitHubCopilotSeatIndex.SeatLoader failing = () -> {
+            throw new AssertionError("should not load");
+        };
+        assertNotNull(index.getByLogin("alice", 60_000, 0, failing));
+
+        index.refresh(List.of(seat("2", "bob")));
+        assertNull(index.getByLogin("alice", 60_000, 0, failing));
+        assertNotNull(index.getById("2", 60_000, 0, failing));
+    }
+
+    @Test
+    void missRebuildsAtMostOncePerInterval() throws Exception {
+        AtomicLong now = new AtomicLong(1_000_000);
+        GitHubCopilotSeatIndex index = new GitHubCopilotSeatIndex(now::get);
+        AtomicInteger loads = new AtomicInteger();
+        List<GitHubCopilotSeat> seats = new CopyOnWriteArrayList<>(List.of(seat("1", "alice")));
+        GitHubCopilotSeatIndex.SeatLoader loader = () -> {
+            loads.incrementAndGet();
+            return seats;
+        };
+
+        assertNull(index.getByLogin("bob", 300_000, 5_000, loader));
+        assertEquals(1, loads.get());
+
+        // Assigned after the sweep; a miss right after it doesn't sweep again
+        seats.add(seat("2", "bob"));
+        assertNull(index.getByLogin("bob", 300_000, 5_000, loader));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(5_000);
+        assertNotNull(index.getByLogin("bob", 300_000, 5_000, loader));
+        assertNotNull(index.getById("2", 300_000, 5_000, loader));
+        assertEquals(2, loads.get());
+
+        // Unknown seats don't sweep on every lookup
+        assertNull(index.getById("3", 300_000, 5_000, loader));
+        assertNull(index.getById("3", 300_000, 5_000, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void missIsCachedUntilTTLWithoutInterval() throws Exception {
+        AtomicLong now = new AtomicLong(1_000_000);
+        GitHubCopilotSeatIndex index = new GitHubCopilotSeatIndex(now::get);
+        AtomicInteger loads = new AtomicInteger();
+        List<GitHubCopilotSeat> seats = new CopyOnWriteArrayList<>(List.of(seat("1", "alice")));
+        GitHubCopilotSeatIndex.SeatLoader loader = () -> {
+            loads.incrementAndGet();
+            return seats;
+        };
+
+        assertNull(index.getByLogin("bob", 300_000, 0, loader));
+        seats.add(seat("2", "bob"));
+        now.addAndGet(299_999);
+        assertNull(index.getByLogin("bob", 300_000, 0, loader));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(1);
+        assertNotNull(index.getByLogin("bob", 300_000, 0, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void lookupsUseStaleIndexWhileSweeping() throws Exception {
+        AtomicLong now = new AtomicLong(1_000_000);
+        GitHubCopilotSeatIndex index = new GitHubCopilotSeatIndex(now::get);
+        index.refresh(List.of(seat("1", "alice")));
+        now.addAndGet(60_000);
+
+        CountDownLatch sweeping = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GitHubCopilotSeatIndex.SeatLoader slow = () -> {
+            sweeping.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(seat("2", "bob"));
+        };
+        Thread sweeper = new Thread(() -> {
+            try {
+                index.getById("2", 60_000, 0, slow);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sweeper.start();
+        assertTrue(sweeping.await(10, TimeUnit.SECONDS));
+
+        // Served from the expired snapshot without waiting for the sweep
+        GitHubCopilotSeatIndex.SeatLoader failing = () -> {
+            throw new AssertionError("should not load");
+        };
+        assertNotNull(index.getByLogin("alice", 60_000, 0, failing));
+
+        release.countDown();
+        sweeper.join(10_000);
+        assertNotNull(index.getByLogin("bob", 60_000, 0, failing));
+    }
+
+    @Test
+    void sharedPerEnterprise() {
+        assertSame(GitHubCopilotSeatIndex.forEnterprise("https://example.com|ent1"),
+                GitHubCopilotSeatIndex.forEnterprise("https://example.com|ent1"));
+        assertNotSame(GitHubCopilotSeatIndex.forEnterprise("https://example.com|ent1"),
+                GitHubCopilotSeatIndex.forEnterprise("https://example.com|ent2"));
+    }
+}
@@ -0,0 +1,146 @@
+package org.kohsuke.github;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SCIMEMUGroupMembershipIndexTest {
+
+    private static SCIMEMUGroup group(String id, String... memberIds) {
+        SCIMEMUGroup g = new SCIMEMUGroup();
+        g.id = id;
+        g.displayName = id;
+        g.members = new ArrayList<>();
+        for (String memberId : memberIds) {
+            SCIMMember m = new SCIMMember();
+            m.value = memberId;
+            g.members.add(m);
+        }
+        return g;
+    }
+
+    private static Set<String> ids(List<SCIMEMUGroup> groups) {
+        return groups.stream().map(g -> g.id).collect(Collectors.toSet());
+    }
+
+    private static final SCIMEMUGroupMembershipIndex.GroupLoader NO_LOAD = () -> {
+        throw new AssertionError("should not load");
+    };
+
+    @Test
+    void findByMembersBuildsOnceAndMatchesAllMembers() throws Exception {
+        SCIMEMUGroupMembershipIndex index = new SCIMEMUGroupMembershipIndex();
+        AtomicInteger loads = new AtomicInteger();
+        SCIMEMUGroupMembershipIndex.GroupLoader loader = () -> {
+            loads.incrementAndGet();
+            return List.of(group("g1", "u1", "u2"), group("g2", "u2"), group("g3"));
+        };
+
+        assertEquals(Set.of("g1", "g2"), ids(index.findByMembers(Set.of("u2"), 60_000, loader)));
+        assertEquals(Set.of("g1"), ids(index.findByMembers(Set.of("u1", "u2"), 60_000, loader)));
+        assertTrue(index.findByMembers(Set.of("unknown"), 60_000, loader).isEmpty());
+        assertEquals(Set.of("g1", "g2", "g3"), ids(index.findByMembers(Set.of(), 60_000, loader)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void applyPatchAddsAndRemovesMembers() throws Exception {
+        SCIMEMUGroupMembershipIndex index = new SCIMEMUGroupMembershipIndex();
+        index.rebuild(List.of(group("g1", "u1")));
+
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.addMembers(List.of("u2"));
+        ops.removeMembers(List.of("u1"));
+        ops.replace("displayName", "renamed");
+        index.applyPatch("g1", ops, "https://api.github.com/scim/v2/enterprises/e/Users/");
+
+        assertTrue(index.findByMembers(Set.of("u1"), 60_000, NO_LOAD).isEmpty());
+        List<SCIMEMUGroup> found = index.findByMembers(Set.of("u2"), 60_000, NO_LOAD);
+        assertEquals(1, found.size());
+        assertEquals("renamed", found.get(0).displayName);
+        assertEquals("https://api.github.com/scim/v2/enterprises/e/Users/u2", found.get(0).members.get(0).ref);
+    }
+
+    @Test
+    void putAndRemoveKeepIndexCoherent() throws Exception {
+        SCIMEMUGroupMembershipIndex index = new SCIMEMUGroupMembershipIndex();
+        index.rebuild(List.of(group("g1", "u1")));
+
+        index.put(group("g2", "u1"));
+        assertEquals(Set.of("g1", "g2"), ids(index.findByMembers(Set.of("u1"), 60_000, NO_LOAD)));
+
+        index.put(group("g1"));
+        index.remove("g2");
+        assertTrue(index.findByMembers(Set.of("u1"), 60_000, NO_LOAD).isEmpty());
+    }
+
+    @Test
+    void removeMemberDropsDeletedUserFromGroups() throws Exception {
+        SCIMEMUGroupMembershipIndex index = new SCIMEMUGroupMembershipIndex();
+        index.rebuild(List.of(group("g1", "u1", "u2"), group("g2", "u2")));
+
+        index.removeMember("u2");
+
+        assertTrue(index.findByMembers(Set.of("u2"), 60_000, NO_LOAD).isEmpty());
+        List<SCIMEMUGroup> found = index.findByMembers(Set.of("u1"), 60_000, NO_LOAD);
+        assertEquals(1, found.size());
+        assertEquals(1, found.get(0).members.size());
+    }
+
+    @Test
+    void writesBeforeFirstBuildAreIgnored() throws Exception {
+        SCIMEMUGroupMembershipIndex index = new SCIMEMUGroupMembershipIndex();
+        index.put(group("g1", "u1"));
+
+        AtomicInteger loads = new AtomicInteger();
+        List<SCIMEMUGroup> found = index.findByMembers(Set.of("u1"), 60_000, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        assertTrue(found.isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void rebuildDoesNotBlockReadersAndWriters() throws Exception {
+        SCIMEMUGroupMembershipIndex index = new SCIMEMUGroupMembershipIndex();
+        index.findByMembers(Set.of(), 60_000, () -> List.of(group("g1", "u1")));
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Expired, so this call sweeps again
+            Future<List<SCIMEMUGroup>> rebuilding = executor.submit(() -> index.findByMembers(Set.of("u2"), 0, () -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                // The sweep started before g2 was created
+                return List.of(group("g1", "u1"));
+            }));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+            // Neither blocks on the running sweep
+            index.put(group("g2", "u2"));
+            assertEquals(Set.of("g1"), ids(index.findByMembers(Set.of("u1"), 60_000, NO_LOAD)));
+            assertEquals(Set.of("g2"), ids(index.findByMembers(Set.of("u2"), 60_000, NO_LOAD)));
+
+            release.countDown();
+            // The write made during the sweep is kept
+            assertEquals(Set.of("g2"), ids(rebuilding.get(10, TimeUnit.SECONDS)));
+            assertEquals(Set.of("g2"), ids(index.findByMembers(Set.of("u2"), 60_000, NO_LOAD)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -321,6 +321,7 @@ class SCIMEMUGroupTest {
         noMatch.displayName = "NoMatch";
         noMatch.members = List.of(member("u1"));
 
+        when(client.getEMUGroupsByMembers(any(), any(), any(), any(), anyInt(), anyInt())).thenCallRealMethod();
         when(client.getEMUGroups(any(), any(), any(), anyInt(), anyInt())).thenAnswer(inv -> {
             @SuppressWarnings("unchecked")
             jp.openstandia.connector.util.QueryHandler<SCIMEMUGroup> qh =
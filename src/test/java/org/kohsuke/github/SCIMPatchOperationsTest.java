@@ -146,6 +146,42 @@ class SCIMPatchOperationsTest {
         assertTrue(ops.hasAttributesChange());
     }
 
+    @Test
+    void testChunkMembers_notNeeded() {
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.addMembers(Arrays.asList("m1", "m2"));
+
+        assertSame(ops, ops.chunkMembers(2).get(0));
+        assertSame(ops, ops.chunkMembers(0).get(0));
+        assertEquals(1, ops.chunkMembers(0).size());
+    }
+
+    @Test
+    void testChunkMembers() {
+        SCIMPatchOperations ops = new SCIMPatchOperations();
+        ops.replace("displayName", "renamed");
+        ops.addMembers(Arrays.asList("m1", "m2", "m3", "m4", "m5"));
+        ops.removeMembers(Arrays.asList("m6", "m7"));
+        assertEquals(7, ops.countMembers());
+
+        List<SCIMPatchOperations> chunks = ops.chunkMembers(3);
+
+        assertEquals(3, chunks.size());
+        // displayName and m1-m3
+        assertEquals(2, chunks.get(0).operations.size());
+        assertEquals("replace", chunks.get(0).operations.get(0).op);
+        assertEquals(3, chunks.get(0).countMembers());
+        // m4-m5 and m6
+        assertEquals(2, chunks.get(1).operations.size());
+        assertEquals("add", chunks.get(1).operations.get(0).op);
+        assertEquals("remove", chunks.get(1).operations.get(1).op);
+        assertEquals(3, chunks.get(1).countMembers());
+        // m7
+        assertEquals(1, chunks.get(2).countMembers());
+        List<?> last = (List<?>) chunks.get(2).operations.get(0).value;
+        assertEquals("m7", ((SCIMPatchOperations.Member) last.get(0)).value);
+    }
+
     @Test
     void testJsonSerializationDeserialization() throws Exception {
         SCIMPatchOperations ops = new SCIMPatchOperations();
@@ -0,0 +1,177 @@
+package org.kohsuke.github;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+class SCIMPrefetchPageIteratorTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static GitHubRequest request(int startIndex) throws Exception {
+        return GitHubRequest.newBuilder()
+                .withApiUrl("https://api.github.com")
+                .withUrlPath("/scim/v2/Users")
+                .with("count", 100)
+                .set("startIndex", startIndex)
+                .build();
+    }
+
+    private static int startIndexOf(GitHubRequest request) {
+        for (String param : request.url().getQuery().split("&")) {
+            if (param.startsWith("startIndex=")) {
+                return Integer.parseInt(param.substring("startIndex=".length()));
+            }
+        }
+        return 1;
+    }
+
+    private static GitHubResponse<SCIMSearchResult> page(GitHubRequest request, int totalResults) {
+        GitHubResponse.ResponseInfo info = mock(GitHubResponse.ResponseInfo.class);
+        when(info.request()).thenReturn(request);
+        when(info.statusCode()).thenReturn(200);
+
+        SCIMSearchResult result = new SCIMSearchResult();
+        result.startIndex = startIndexOf(request);
+        result.itemsPerPage = 100;
+        result.totalResults = totalResults;
+        return new GitHubResponse<>(info, result);
+    }
+
+    @Test
+    void shouldReturnAllPagesInOrder() throws Exception {
+        GitHubClient mockClient = mock(GitHubClient.class);
+        List<Integer> requested = Collections.synchronizedList(new ArrayList<>());
+
+        when(mockClient.sendRequest(any(GitHubRequest.class), any())).thenAnswer(inv -> {
+            GitHubRequest req = inv.getArgument(0);
+            int startIndex = startIndexOf(req);
+            requested.add(startIndex);
+            if (startIndex == 101) {
+                // Delay the second page so the third one completes first
+                Thread.sleep(100);
+            }
+            return page(req, 350);
+        });
+
+        SCIMPrefetchPageIterator<SCIMSearchResult> iterator =
+                new SCIMPrefetchPageIterator<>(mockClient, SCIMSearchResult.class, request(1), executor, 2);
+
+        List<Integer> startIndexes = new ArrayList<>();
+        while (iterator.hasNext()) {
+            startIndexes.add(iterator.next().startIndex);
+        }
+
+        assertEquals(List.of(1, 101, 201, 301), startIndexes);
+        assertEquals(4, requested.size());
+        assertNotNull(iterator.finalResponse());
+        assertEquals(301, iterator.finalResponse().body().startIndex);
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void shouldNotPrefetchWhenSinglePage() throws Exception {
+        GitHubClient mockClient = mock(GitHubClient.class);
+        when(mockClient.sendRequest(any(GitHubRequest.class), any()))
+                .thenAnswer(inv -> page(inv.getArgument(0), 50));
+
+        SCIMPrefetchPageIterator<SCIMSearchResult> iterator =
+                new SCIMPrefetchPageIterator<>(mockClient, SCIMSearchResult.class, request(1), executor, 2);
+
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        assertFalse(iterator.hasNext());
+        verify(mockClient, times(1)).sendRequest(any(GitHubRequest.class), any());
+    }
+
+    @Test
+    void shouldThrowGHExceptionWhenPrefetchFails() throws Exception {
+        GitHubClient mockClient = mock(GitHubClient.class);
+        when(mockClient.sendRequest(any(GitHubRequest.class), any())).thenAnswer(inv -> {
+            GitHubRequest req = inv.getArgument(0);
+            if (startIndexOf(req) == 101) {
+                throw new IOException("boom");
+            }
+            return page(req, 250);
+        });
+
+        SCIMPrefetchPageIterator<SCIMSearchResult> iterator =
+                new SCIMPrefetchPageIterator<>(mockClient, SCIMSearchResult.class, request(1), executor, 2);
+
+        assertTrue(iterator.hasNext());
+        iterator.next();
+
+        GHException ex = assertThrows(GHException.class, iterator::hasNext);
+        assertTrue(ex.getMessage().contains("Failed to retrieve"));
+        assertInstanceOf(IOException.class, ex.getCause());
+    }
+
+    @Test
+    void closeCancelsPagesInFlight() throws Exception {
+        GitHubClient mockClient = mock(GitHubClient.class);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        when(mockClient.sendRequest(any(GitHubRequest.class), any())).thenAnswer(inv -> {
+            GitHubRequest req = inv.getArgument(0);
+            if (startIndexOf(req) > 1) {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new InterruptedIOException();
+                }
+            }
+            return page(req, 1000);
+        });
+
+        SCIMPrefetchPageIterator<SCIMSearchResult> iterator =
+                new SCIMPrefetchPageIterator<>(mockClient, SCIMSearchResult.class, request(1), executor, 2);
+
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        iterator.close();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertFalse(iterator.hasNext());
+        verify(mockClient, times(3)).sendRequest(any(GitHubRequest.class), any());
+    }
+
+    @Test
+    void testThrowsIllegalStateWhenNotGET() {
+        GitHubClient mockClient = mock(GitHubClient.class);
+        GitHubRequest mockRequest = mock(GitHubRequest.class);
+        when(mockRequest.method()).thenReturn("POST");
+
+        assertThrows(IllegalStateException.class,
+                () -> new SCIMPrefetchPageIterator<>(mockClient, SCIMSearchResult.class, mockRequest, executor, 2));
+    }
+}
@@ -0,0 +1,114 @@
+package org.kohsuke.github;
+
+import com.fasterxml.jackson.databind.JavaType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SCIMStreamingParserTest {
+
+    private static final String BODY = "{"
+            + "\"schemas\":[\"urn:ietf:params:scim:api:messages:2.0:ListResponse\"],"
+            + "\"totalResults\":3,"
+            + "\"itemsPerPage\":2,"
+            + "\"startIndex\":1,"
+            + "\"Resources\":["
+            + "{\"id\":\"u1\",\"userName\":\"alice\",\"emails\":[{\"value\":\"alice@example.com\",\"primary\":true}],"
+            + "\"meta\":{\"created\":\"2024-01-01T00:00:00Z\",\"lastModified\":\"2024-01-02T00:00:00Z\"},\"unknown\":{\"a\":[1,2]}},"
+            + "{\"id\":\"u2\",\"userName\":\"bob\",\"emails\":[{\"value\":\"bob@example.com\"}]}"
+            + "]}";
+
+    private static GitHubResponse.ResponseInfo responseInfo(String body) throws IOException {
+        GitHubResponse.ResponseInfo info = mock(GitHubResponse.ResponseInfo.class);
+        when(info.bodyStream()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        return info;
+    }
+
+    private static class UserResult extends SCIMSearchResult<SCIMEMUUser> {
+    }
+
+    private final JavaType userType = SCIMStreamingParser.resolveElementType(UserResult.class);
+
+    @Test
+    void resolvesElementType() {
+        assertEquals(SCIMEMUUser.class, userType.getRawClass());
+    }
+
+    @Test
+    void parsesAllResourcesAndPagingInfo() throws Exception {
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        SCIMStreamingParser.Page page = SCIMStreamingParser.parse(responseInfo(BODY), userType, null, new HashSet<>(), (SCIMEMUUser u) -> users.add(u));
+
+        assertEquals(3, page.totalResults);
+        assertEquals(2, page.itemsPerPage);
+        assertEquals(1, page.startIndex);
+        assertEquals(2, page.count);
+        assertFalse(page.stopped);
+
+        assertEquals("alice", users.get(0).userName);
+        assertEquals("alice@example.com", users.get(0).emails.get(0).value);
+        assertEquals("2024-01-02T00:00:00Z", users.get(0).meta.lastModified);
+        assertEquals("bob", users.get(1).userName);
+    }
+
+    @Test
+    void skipsAttributesNotRequested() throws Exception {
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        SCIMStreamingParser.parse(responseInfo(BODY), userType, Set.of("id", "userName"), new HashSet<>(), (SCIMEMUUser u) -> users.add(u));
+
+        assertEquals(2, users.size());
+        assertEquals("u1", users.get(0).id);
+        assertEquals("alice", users.get(0).userName);
+        assertNull(users.get(0).emails);
+        assertNull(users.get(0).meta);
+    }
+
+    @Test
+    void stopsWhenHandlerReturnsFalse() throws Exception {
+        List<SCIMEMUUser> users = new ArrayList<>();
+
+        SCIMStreamingParser.Page page = SCIMStreamingParser.parse(responseInfo(BODY), userType, null, new HashSet<>(), (SCIMEMUUser u) -> {
+            users.add(u);
+            return false;
+        });
+
+        assertTrue(page.stopped);
+        assertEquals(1, page.count);
+        assertEquals(1, users.size());
+    }
+
+    @Test
+    void skipsResourcesDeliveredBeforeReplay() throws Exception {
+        List<SCIMEMUUser> users = new ArrayList<>();
+        Set<String> delivered = new HashSet<>();
+
+        // The first attempt fails after handing over alice
+        assertThrows(IOException.class, () -> SCIMStreamingParser.parse(responseInfo(BODY.substring(0, BODY.indexOf("{\"id\":\"u2\"") + 5)),
+                userType, null, delivered, (SCIMEMUUser u) -> users.add(u)));
+        assertEquals(1, users.size());
+
+        SCIMStreamingParser.Page page = SCIMStreamingParser.parse(responseInfo(BODY), userType, null, delivered, (SCIMEMUUser u) -> users.add(u));
+
+        assertEquals(2, page.count);
+        assertEquals(2, users.size());
+        assertEquals("alice", users.get(0).userName);
+        assertEquals("bob", users.get(1).userName);
+    }
+
+    @Test
+    void rejectsNonObjectBody() throws Exception {
+        assertThrows(IOException.class, () ->
+                SCIMStreamingParser.parse(responseInfo("[]"), userType, null, new HashSet<>(), (SCIMEMUUser u) -> true));
+    }
+}
@@ -164,6 +164,30 @@ class SchemaDefinitionTest {
         assertNull(co.getAttributeByName("nullRead"));
     }
 
+    @Test
+    void projectionPlanIsReusedForEveryObject() {
+        SchemaDefinition schema = buildSchema();
+        Set<String> attrsToGet = new HashSet<>(Arrays.asList(Uid.NAME, Name.NAME, "defaultAttr", "notReturnedByDefault"));
+
+        SchemaDefinition.ProjectionPlan plan = schema.compileProjectionPlan(attrsToGet, true);
+
+        for (int i = 0; i < 3; i++) {
+            Dummy src = new Dummy();
+            src.id = "id-" + i;
+            src.name = "name-" + i;
+            src.defaultAttr = "d" + i;
+            src.notReturnedByDefault = "nr" + i;
+
+            ConnectorObject co = plan.toConnectorObject(src);
+
+            assertEquals(schema.toConnectorObjectBuilder(src, attrsToGet, true).build(), co);
+            assertEquals("id-" + i, co.getUid().getUidValue());
+            assertEquals("d" + i, AttributeUtil.getStringValue(co.getAttributeByName("defaultAttr")));
+            assertEquals(AttributeValueCompleteness.INCOMPLETE,
+                    co.getAttributeByName("notReturnedByDefault").getAttributeValueCompleteness());
+        }
+    }
+
     @Test
     void toConnectorObjectBuilderReturnsActualValuesWhenPartialNotAllowed() {
         SchemaDefinition schema = buildSchema();
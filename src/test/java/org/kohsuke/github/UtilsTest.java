@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -75,6 +76,32 @@ class UtilsTest {
         assertEquals(d.toInstant(), z5.toInstant());
     }
 
+    @Test
+    void toZoneDateTimeForISO8601OffsetDateTimeMatchesFormatter() {
+        String[] values = {
+                "2024-01-01T10:20:30Z",
+                "2024-01-01T10:20:30z",
+                "2024-02-29T23:59:59+09:00",
+                "1999-12-31T00:00:00-05:30",
+                "2024-06-15T12:00:00.123Z",
+                "2024-06-15T12:00:00.123456789+01:00",
+                "2024-06-15T12:00:00.1-01:00",
+                "2024-06-15T12:00:00+01:00:30"
+        };
+        for (String value : values) {
+            ZonedDateTime expected = ZonedDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME)
+                    .withZoneSameInstant(ZoneId.systemDefault());
+
+            assertEquals(expected, Utils.toZoneDateTimeForISO8601OffsetDateTime(value), value);
+            // Cached
+            assertSame(Utils.toZoneDateTimeForISO8601OffsetDateTime(value), Utils.toZoneDateTimeForISO8601OffsetDateTime(value));
+        }
+
+        assertThrows(DateTimeParseException.class, () -> Utils.toZoneDateTimeForISO8601OffsetDateTime("2023-02-29T00:00:00Z"));
+        assertThrows(DateTimeParseException.class, () -> Utils.toZoneDateTimeForISO8601OffsetDateTime("2024-01-01T24:00:00Z"));
+        assertThrows(DateTimeParseException.class, () -> Utils.toZoneDateTimeForISO8601OffsetDateTime("2024-01-01T10:20:30"));
+    }
+
     @Test
     void shouldReturnOverloadsCoverNullAndContainsBranches() {
         assertTrue(Utils.shouldReturn(null, "a", true));